@@ -0,0 +1,63 @@
+package com.noctivag.customenderdragon.benchmark;
+
+import com.noctivag.customenderdragon.abilities.AbilityCooldowns;
+import com.noctivag.customenderdragon.abilities.AbilityIds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cooldown checks and triggers for a population of dragons, as done on every ability tick
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AbilityCooldownBenchmark {
+    @Param({"10", "1000"})
+    public int dragons;
+
+    private AbilityCooldowns[] cooldowns;
+    private long now;
+
+    @Setup
+    public void setup() {
+        cooldowns = new AbilityCooldowns[dragons];
+        for (int i = 0; i < dragons; i++) {
+            cooldowns[i] = new AbilityCooldowns();
+            cooldowns[i].trigger(AbilityIds.FIREBALL, i, 100);
+        }
+        now = 50;
+    }
+
+    @Benchmark
+    public void isOnCooldown(Blackhole blackhole) {
+        for (AbilityCooldowns dragon : cooldowns) {
+            blackhole.consume(dragon.isOnCooldown(AbilityIds.FIREBALL, now));
+            blackhole.consume(dragon.isOnCooldown(AbilityIds.METEOR_SHOWER, now));
+        }
+    }
+
+    @Benchmark
+    public void checkAndTrigger() {
+        long tick = now++;
+        for (AbilityCooldowns dragon : cooldowns) {
+            if (!dragon.isOnCooldown(AbilityIds.FIREBALL, tick)) {
+                dragon.trigger(AbilityIds.FIREBALL, tick, 100);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.noctivag.customenderdragon.benchmark;
+
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ModConfig;
+import com.noctivag.customenderdragon.fight.sim.Simulation;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Fails when the steady-state tick of the headless fight core allocates: DragonFight,
+ * AbilityDispatch, EmissionPlanner and the threat tables, driven by a Simulation. The live
+ * world tick is not covered: ProximityIndex builds still allocate one Box per query area,
+ * and the planning pipeline allocates snapshots and plans when planningThreads is above 0.
+ * Measures the bytes allocated by this thread over several windows and compares the
+ * quietest window against the limit, so a stray JIT or class loading allocation doesn't
+ * fail the run while anything allocating on every tick does. Run with gradle
+ * allocationTest, optionally -PallocationTestArgs="dragons players maxBytesPerTick",
+ * defaults 500 100 0.
+ */
+public final class AllocationRegressionTest {
+    private static final int WARMUP_TICKS = 2000;
+    private static final int WINDOWS = 5;
+    private static final int TICKS_PER_WINDOW = 500;
+
+    private AllocationRegressionTest() {}
+
+    public static void main(String[] args) {
+        int dragons = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        double maxBytesPerTick = args.length > 2 ? Double.parseDouble(args[2]) : 0.0;
+
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("Thread allocation measurement is not supported by this JVM");
+            System.exit(2);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        CompiledConfig config = CompiledConfig.compile(new ModConfig.Config(), false);
+        Simulation simulation = new Simulation(config, dragons, players, 42L);
+
+        // Long enough for every dragon to go through its phases and for the JIT to settle
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            simulation.tick();
+        }
+
+        double best = Double.MAX_VALUE;
+        for (int window = 0; window < WINDOWS; window++) {
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < TICKS_PER_WINDOW; i++) {
+                simulation.tick();
+            }
+            double perTick = (threads.getThreadAllocatedBytes(threadId) - before) / (double) TICKS_PER_WINDOW;
+            System.out.printf("Window %d: %.1f bytes per tick%n", window + 1, perTick);
+            best = Math.min(best, perTick);
+        }
+
+        System.out.printf("%d dragons, %d players: %.1f bytes per tick in the quietest window, limit %.1f%n",
+            dragons, players, best, maxBytesPerTick);
+        if (best > maxBytesPerTick) {
+            System.err.println("Allocation regression: the fight tick allocates on every tick");
+            System.exit(1);
+        }
+    }
+}
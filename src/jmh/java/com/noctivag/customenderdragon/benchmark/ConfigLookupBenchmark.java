@@ -0,0 +1,50 @@
+package com.noctivag.customenderdragon.benchmark;
+
+import com.noctivag.customenderdragon.abilities.AbilityIds;
+import com.noctivag.customenderdragon.config.ModConfig;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw JSON model lookups by name against the compiled snapshot lookups by id
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConfigLookupBenchmark {
+    private DragonVariant variant;
+    private int abilityId;
+
+    @Setup
+    public void setup() {
+        // Compiles the default config without touching the config directory
+        ModConfig.current();
+        variant = DragonVariant.FIRE;
+        abilityId = AbilityIds.FIREBALL;
+    }
+
+    @Benchmark
+    public void getAbilityConfigByName(Blackhole blackhole) {
+        blackhole.consume(ModConfig.getAbilityConfig(variant, "fireball"));
+    }
+
+    @Benchmark
+    public void compiledAbilityById(Blackhole blackhole) {
+        blackhole.consume(ModConfig.current().variant(variant).ability(abilityId).cooldown);
+    }
+}
@@ -0,0 +1,69 @@
+package com.noctivag.customenderdragon.benchmark;
+
+import com.google.gson.Gson;
+import com.noctivag.customenderdragon.config.ModConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing, validating and compiling the config file at 1x, 10x and 100x the default size.
+ * The file is scaled by repeating every variant's abilities under new names.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigParseBenchmark {
+    @Param({"1", "10", "100"})
+    public int scale;
+
+    private File configFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ModConfig.Config config = new ModConfig.Config();
+        for (ModConfig.VariantConfig variant : config.variants.values()) {
+            Map<String, ModConfig.AbilityConfig> scaled = new HashMap<>(variant.abilities);
+            for (int copy = 1; copy < scale; copy++) {
+                for (Map.Entry<String, ModConfig.AbilityConfig> entry : variant.abilities.entrySet()) {
+                    scaled.put(entry.getKey() + "-" + copy, entry.getValue());
+                }
+            }
+            variant.abilities = scaled;
+        }
+
+        configFile = File.createTempFile("customenderdragon-bench", ".json");
+        Files.writeString(configFile.toPath(), new Gson().toJson(config), StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        configFile.delete();
+    }
+
+    @Benchmark
+    public ModConfig.LoadResult parse() {
+        return ModConfig.parse(configFile);
+    }
+}
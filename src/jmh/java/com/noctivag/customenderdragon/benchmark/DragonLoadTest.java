@@ -0,0 +1,65 @@
+package com.noctivag.customenderdragon.benchmark;
+
+import com.noctivag.customenderdragon.abilities.AbilityIds;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ModConfig;
+import com.noctivag.customenderdragon.fight.sim.Simulation;
+import com.noctivag.customenderdragon.metrics.LatencyHistogram;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Ticks a headless simulation of many dragons and reports the per-tick cost and the
+ * allocation rate of the fight logic. Run with
+ * gradle loadTest -PloadTestArgs="dragons players ticks", defaults 1000 200 2000.
+ */
+public final class DragonLoadTest {
+    private static final int WARMUP_TICKS = 500;
+
+    private DragonLoadTest() {}
+
+    public static void main(String[] args) {
+        int dragons = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        CompiledConfig config = CompiledConfig.compile(new ModConfig.Config(), false);
+        Simulation simulation = new Simulation(config, dragons, players, 42L);
+
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            simulation.tick();
+        }
+
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        LatencyHistogram tickTimes = new LatencyHistogram();
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ticks; i++) {
+            long start = System.nanoTime();
+            simulation.tick();
+            tickTimes.record(System.nanoTime() - start);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("Simulated %d dragons, %d players for %d ticks (after %d warmup ticks)%n",
+            dragons, players, ticks, WARMUP_TICKS);
+        System.out.printf("Tick time: mean %.1fus, p50 %.1fus, p99 %.1fus, max %.1fus%n",
+            tickTimes.getMeanNanos() / 1000.0, tickTimes.getPercentileNanos(50) / 1000.0,
+            tickTimes.getPercentileNanos(99) / 1000.0, tickTimes.getMaxNanos() / 1000.0);
+        System.out.printf("Per dragon: %.2fus per tick, ~%d bytes of fight state%n",
+            tickTimes.getMeanNanos() / 1000.0 / Math.max(1, dragons),
+            simulation.estimateFightMemoryBytes() / Math.max(1, dragons));
+        System.out.printf("Allocated: %d bytes per tick (%.1f MB/s at 20 TPS)%n",
+            allocated / ticks, allocated / (double) ticks * 20 / (1024 * 1024));
+        System.out.printf("Particles: %d sent, %d culled; phase changes: %d%n",
+            simulation.getParticlesSent(), simulation.getParticlesCulled(), simulation.getPhaseChanges());
+        for (int id = 0; id < AbilityIds.count(); id++) {
+            long executions = simulation.getAbilityExecutions(id);
+            if (executions > 0) {
+                System.out.printf("  %s: %d%n", AbilityIds.name(id), executions);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.noctivag.customenderdragon.benchmark;
+
+import com.noctivag.customenderdragon.dragon.DragonPhase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phase lookup done by every dragon on every tick
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DragonPhaseBenchmark {
+    private final double[] healthPercents = new double[1024];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < healthPercents.length; i++) {
+            healthPercents[i] = random.nextDouble() * 100.0;
+        }
+    }
+
+    @Benchmark
+    public void fromHealthPercent(Blackhole blackhole) {
+        for (double healthPercent : healthPercents) {
+            blackhole.consume(DragonPhase.fromHealthPercent(healthPercent));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.noctivag.customenderdragon.benchmark;
+
+import com.noctivag.customenderdragon.abilities.AbilityIds;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ModConfig;
+import com.noctivag.customenderdragon.fight.sim.ReplaySimulation;
+import com.noctivag.customenderdragon.metrics.FightRecording;
+import com.noctivag.customenderdragon.metrics.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Replays a fight recording taken with recordFights through the headless fight logic and
+ * compares the replayed tick cost with what the server measured. The first pass warms up
+ * the JIT, every later pass is timed and must decide the same abilities and particles.
+ * The replayed interval counters must match the recorded ones; cooldowns that differ are
+ * reported, as the server may defer ability work past its tick budget. Run with gradle replayFight -PreplayArgs="recording config passes", defaults
+ * config/customenderdragon-fights.bin, config/customenderdragon.json and 3.
+ */
+public final class FightReplay {
+
+    private FightReplay() {}
+
+    public static void main(String[] args) throws IOException {
+        Path recordingFile = Path.of(args.length > 0 ? args[0] : "config/customenderdragon-fights.bin");
+        File configFile = new File(args.length > 1 ? args[1] : "config/customenderdragon.json");
+        int passes = Math.max(2, args.length > 2 ? Integer.parseInt(args[2]) : 3);
+
+        CompiledConfig config;
+        if (configFile.exists()) {
+            ModConfig.LoadResult result = ModConfig.parse(configFile, false);
+            if (!result.isValid()) {
+                System.err.println("Invalid config " + configFile + ": " + String.join("; ", result.getErrors()));
+                System.exit(1);
+                return;
+            }
+            config = result.getConfig();
+        } else {
+            System.out.println("No config at " + configFile + ", replaying with the defaults");
+            config = CompiledConfig.compile(new ModConfig.Config(), false);
+        }
+
+        FightRecording recording = FightRecording.read(recordingFile);
+        FightRecording.Frame frame = new FightRecording.Frame();
+        if (recording.getFrameCount() == 0) {
+            System.out.println("Recording " + recordingFile + " has no frames");
+            return;
+        }
+
+        LatencyHistogram recordedTimes = new LatencyHistogram();
+        long firstTime = Long.MAX_VALUE;
+        long lastTime = Long.MIN_VALUE;
+        int mismatchedFrames = 0;
+        while (recording.next(frame)) {
+            recordedTimes.record(frame.getTickMicros() * 1000L);
+            firstTime = Math.min(firstTime, frame.getTime());
+            lastTime = Math.max(lastTime, frame.getTime());
+            if (frame.getConfigFingerprint() != config.fingerprint()) {
+                mismatchedFrames++;
+            }
+        }
+
+        ReplaySimulation reference = null;
+        LatencyHistogram replayedTimes = null;
+        boolean deterministic = true;
+        for (int pass = 0; pass < passes; pass++) {
+            ReplaySimulation simulation = new ReplaySimulation(config);
+            LatencyHistogram times = new LatencyHistogram();
+            recording.rewind();
+            while (recording.next(frame)) {
+                long start = System.nanoTime();
+                simulation.apply(frame);
+                times.record(System.nanoTime() - start);
+            }
+            if (pass == 0) {
+                continue;
+            }
+            if (reference != null && !sameOutcome(reference, simulation)) {
+                deterministic = false;
+            }
+            reference = simulation;
+            replayedTimes = times;
+        }
+
+        System.out.printf("Replayed %d frames of %d worlds, game time %d to %d (%d frames recorded in total)%n",
+            recording.getFrameCount(), reference.getWorldCount(), firstTime, lastTime, recording.getTotalFrames());
+        if (mismatchedFrames > 0) {
+            System.out.printf("WARNING: %d frames were recorded with a different config, results may differ%n",
+                mismatchedFrames);
+        }
+        System.out.printf("Recorded tick: mean %.1fus, p50 %.1fus, p99 %.1fus, max %.1fus%n",
+            recordedTimes.getMeanNanos() / 1000.0, recordedTimes.getPercentileNanos(50) / 1000.0,
+            recordedTimes.getPercentileNanos(99) / 1000.0, recordedTimes.getMaxNanos() / 1000.0);
+        System.out.printf("Replayed tick: mean %.1fus, p50 %.1fus, p99 %.1fus, max %.1fus (last of %d timed passes)%n",
+            replayedTimes.getMeanNanos() / 1000.0, replayedTimes.getPercentileNanos(50) / 1000.0,
+            replayedTimes.getPercentileNanos(99) / 1000.0, replayedTimes.getMaxNanos() / 1000.0, passes - 1);
+        System.out.printf("Damage: %d events, %.1f total; particles sent: %d; phase changes: %d%n",
+            reference.getDamageEvents(), reference.getDamageTaken(), reference.getParticlesSent(),
+            reference.getPhaseChanges());
+        for (int id = 0; id < AbilityIds.count(); id++) {
+            long executions = reference.getAbilityExecutions(id);
+            if (executions > 0) {
+                System.out.printf("  %s: %d%n", AbilityIds.name(id), executions);
+            }
+        }
+        long compared = reference.getComparedDragonFrames();
+        System.out.printf("Fidelity: %d dragon ticks compared, %d with other interval counters, %d with other "
+            + "cooldowns (%.2f%%)%n", compared, reference.getCounterMismatches(), reference.getCooldownMismatches(),
+            compared == 0 ? 0.0 : reference.getCooldownMismatches() * 100.0 / compared);
+        if (reference.getCounterMismatches() > 0) {
+            System.out.println("FAILED: the replay ran dragon work on other ticks than the server");
+            System.exit(1);
+        }
+        if (!deterministic) {
+            System.out.println("FAILED: passes over the same recording decided different abilities or particles");
+            System.exit(1);
+        }
+    }
+
+    private static boolean sameOutcome(ReplaySimulation a, ReplaySimulation b) {
+        if (a.getParticlesSent() != b.getParticlesSent() || a.getPhaseChanges() != b.getPhaseChanges()) {
+            return false;
+        }
+        for (int id = 0; id < AbilityIds.count(); id++) {
+            if (a.getAbilityExecutions(id) != b.getAbilityExecutions(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+package com.noctivag.customenderdragon.benchmark;
+
+import com.noctivag.customenderdragon.config.ModConfig;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.utils.ParticleGeometry;
+import com.noctivag.customenderdragon.utils.ParticleShape;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geometry of the phase change rings and wing trails, computed per emission and
+ * precompiled into a ParticleShape. Dragon velocities are plain double pairs
+ * standing in for Vec3d.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParticleGeometryBenchmark {
+    private final double[] ringOffsets = new double[100];
+    private final double[] wingOffset = new double[2];
+    private final double[] velocities = new double[2048];
+    private ParticleShape phaseChangeShape;
+
+    @Setup
+    public void setup() {
+        phaseChangeShape = ParticleShape.compile("phase-change",
+            new ModConfig.VariantConfig(DragonVariant.FIRE).particles.get("phase-change"));
+        Random random = new Random(42);
+        for (int i = 0; i < velocities.length; i++) {
+            velocities[i] = random.nextDouble() * 2.0 - 1.0;
+        }
+    }
+
+    /**
+     * The three rings of a phase change effect, 120 points in total
+     */
+    @Benchmark
+    public double[] phaseChangeRings() {
+        for (int ring = 0; ring < 3; ring++) {
+            ParticleGeometry.ring(3.0 + ring * 2, 30 + ring * 10, ringOffsets);
+        }
+        return ringOffsets;
+    }
+
+    /**
+     * The same rings compiled from the default config, emission only walks the offsets
+     */
+    @Benchmark
+    public double compiledPhaseChangeRings() {
+        float[] offsets = phaseChangeShape.getOffsets();
+        double sum = 0;
+        for (int j = 0; j < phaseChangeShape.getPointCount(); j++) {
+            sum += offsets[j * 3] + offsets[j * 3 + 1] + offsets[j * 3 + 2];
+        }
+        return sum;
+    }
+
+    /**
+     * Wing offsets of 1024 moving dragons
+     */
+    @Benchmark
+    public void wingTrails(Blackhole blackhole) {
+        for (int i = 0; i < velocities.length; i += 2) {
+            blackhole.consume(ParticleGeometry.wingOffset(velocities[i], velocities[i + 1], 4, wingOffset));
+            blackhole.consume(wingOffset[0]);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.noctivag.customenderdragon.benchmark;
+
+import com.noctivag.customenderdragon.abilities.AbilityDispatch;
+import com.noctivag.customenderdragon.abilities.AbilityRegistry;
+import com.noctivag.customenderdragon.abilities.BuiltinAbilities;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ModConfig;
+import com.noctivag.customenderdragon.fight.FightEntity;
+import com.noctivag.customenderdragon.fight.sim.InMemoryWorld;
+import com.noctivag.customenderdragon.fight.sim.SimEntity;
+import com.noctivag.customenderdragon.fight.sim.Simulation;
+import com.noctivag.customenderdragon.metrics.LatencyHistogram;
+import com.noctivag.customenderdragon.planning.FightSnapshot;
+import com.noctivag.customenderdragon.planning.PlanBatch;
+import com.noctivag.customenderdragon.planning.PlanningPipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the server thread time of the dragons' target and nearby lookups with the
+ * planning pipeline off and on, over the same headless simulation. Off, the lookups run on
+ * the server thread for every dragon with ability work. On, the server thread snapshots
+ * the dragons with ability work due next tick and picks their plans up a tick later, like
+ * WorldDragonRegistry does; the simulation's players stand in for the indexed entities.
+ * Ticks are spaced out by a pause that stands for the rest of a server tick, so the workers
+ * get the time they would have on a server; the pause isn't counted.
+ * Run with gradle pipelineTest -PpipelineTestArgs="dragons players ticks threads pauseMicros",
+ * defaults 1000 200 2000 2 2000.
+ */
+public final class PlanningPipelineTest {
+    private static final int WARMUP_TICKS = 500;
+    // Half size of an ender dragon's bounding box
+    private static final double DRAGON_HALF_WIDTH = 8.0;
+    private static final double DRAGON_HEIGHT = 8.0;
+
+    private static long sink = 0;
+
+    private PlanningPipelineTest() {}
+
+    public static void main(String[] args) {
+        int dragons = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int threads = Math.max(1, args.length > 3 ? Integer.parseInt(args[3]) : 2);
+        long pauseNanos = (args.length > 4 ? Long.parseLong(args[4]) : 2000L) * 1000L;
+
+        CompiledConfig config = CompiledConfig.compile(new ModConfig.Config(), false);
+        System.out.printf("Simulated %d dragons, %d players for %d ticks (after %d warmup ticks)%n",
+            dragons, players, ticks, WARMUP_TICKS);
+
+        LatencyHistogram off = run(config, dragons, players, ticks, pauseNanos, null);
+        print("Pipeline off", off);
+
+        PlanningPipeline pipeline = new PlanningPipeline(threads);
+        try {
+            LatencyHistogram on = run(config, dragons, players, ticks, pauseNanos, pipeline);
+            print("Pipeline on (" + threads + " threads)", on);
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    private static LatencyHistogram run(CompiledConfig config, int dragonCount, int playerCount, int ticks,
+                                        long pauseNanos, PlanningPipeline pipeline) {
+        Simulation simulation = new Simulation(config, dragonCount, playerCount, 42L);
+        CompiledConfig.General general = config.general();
+        AbilityRegistry registry = new AbilityRegistry();
+        BuiltinAbilities.registerAll(registry);
+        AbilityDispatch dispatch = AbilityDispatch.compile(config, registry);
+        InMemoryWorld world = simulation.getWorld();
+        List<FightEntity> around = new ArrayList<>();
+        int[] due = new int[dragonCount];
+
+        FightSnapshot.Builder builder = new FightSnapshot.Builder();
+        CompletableFuture<PlanBatch> pending = null;
+        LatencyHistogram serverTimes = new LatencyHistogram();
+        int misses = 0;
+
+        for (int tick = 0; tick < WARMUP_TICKS + ticks; tick++) {
+            // Dragons running their abilities this tick
+            int dueCount = 0;
+            for (int i = 0; i < dragonCount; i++) {
+                if (simulation.getFight(i).isAbilityDueNextTick(general)) {
+                    due[dueCount++] = i;
+                }
+            }
+            simulation.tick();
+
+            long start = System.nanoTime();
+            if (pipeline == null) {
+                for (int k = 0; k < dueCount; k++) {
+                    SimEntity dragon = simulation.getDragon(due[k]);
+                    if (world.findClosestTarget(dragon, general.targetRange) != null) {
+                        sink++;
+                    }
+                    world.collectTargetsAround(dragon.getX(), dragon.getY(), dragon.getZ(), config.proximityRadius(), around);
+                    sink += around.size();
+                }
+            } else {
+                if (pending != null) {
+                    PlanBatch batch = pending.isDone() && !pending.isCompletedExceptionally() ? pending.getNow(null) : null;
+                    if (batch != null) {
+                        for (int k = 0; k < batch.size(); k++) {
+                            if (batch.get(k) != null) {
+                                sink += batch.get(k).getTargetId() + batch.get(k).getNearbyIds().length;
+                            }
+                        }
+                    } else {
+                        pending.cancel(false);
+                        builder = new FightSnapshot.Builder();
+                        misses++;
+                    }
+                    pending = null;
+                }
+                builder.reset(world.getTime(), dispatch);
+                for (int i = 0; i < dragonCount; i++) {
+                    if (simulation.getFight(i).isAbilityDueNextTick(general)) {
+                        SimEntity dragon = simulation.getDragon(i);
+                        builder.addDragon(dragon.getId(), simulation.getFight(i).getVariant().ordinal(),
+                            simulation.getFight(i).getPhase().ordinal(), simulation.getFight(i).getSeed(),
+                            dragon.getX(), dragon.getY(), dragon.getZ(), dragon.getVelocityX(), 0.0, dragon.getVelocityZ(),
+                            dragon.getX() - DRAGON_HALF_WIDTH, dragon.getY(), dragon.getZ() - DRAGON_HALF_WIDTH,
+                            dragon.getX() + DRAGON_HALF_WIDTH, dragon.getY() + DRAGON_HEIGHT, dragon.getZ() + DRAGON_HALF_WIDTH);
+                    }
+                }
+                if (builder.getDragonCount() > 0) {
+                    List<SimEntity> players = world.getPlayers();
+                    for (int i = 0; i < players.size(); i++) {
+                        SimEntity player = players.get(i);
+                        builder.addEntity(player.getId(), true, player.getX(), player.getY(), player.getZ(),
+                            player.getX() - 0.3, player.getY(), player.getZ() - 0.3,
+                            player.getX() + 0.3, player.getY() + 1.8, player.getZ() + 0.3);
+                        builder.addPlayer(player.getId(), player.getX(), player.getY(), player.getZ());
+                    }
+                    pending = pipeline.submit(builder.build());
+                }
+            }
+            if (tick >= WARMUP_TICKS) {
+                serverTimes.record(System.nanoTime() - start);
+            }
+            pause(pauseNanos);
+        }
+        if (pending != null) {
+            pending.join();
+        }
+        if (misses > 0) {
+            System.out.printf("  %d plan batches were not done by the next tick%n", misses);
+        }
+        return serverTimes;
+    }
+
+    private static void pause(long nanos) {
+        long end = System.nanoTime() + nanos;
+        long left;
+        while ((left = end - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    private static void print(String label, LatencyHistogram times) {
+        System.out.printf("%s: server thread mean %.1fus, p50 %.1fus, p99 %.1fus, max %.1fus per tick%n", label,
+            times.getMeanNanos() / 1000.0, times.getPercentileNanos(50) / 1000.0,
+            times.getPercentileNanos(99) / 1000.0, times.getMaxNanos() / 1000.0);
+    }
+}
@@ -2,13 +2,21 @@ package com.noctivag.customenderdragon;
 
 import com.noctivag.customenderdragon.abilities.AbilityManager;
 import com.noctivag.customenderdragon.commands.DragonCommandRegistration;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ConfigReloader;
 import com.noctivag.customenderdragon.config.ModConfig;
 import com.noctivag.customenderdragon.dragon.DragonManager;
 import com.noctivag.customenderdragon.listeners.DragonEventHandler;
+import com.noctivag.customenderdragon.metrics.FightRecorder;
+import com.noctivag.customenderdragon.metrics.MetricsDumper;
+import com.noctivag.customenderdragon.metrics.ModMetrics;
+import com.noctivag.customenderdragon.planning.PlanningPipeline;
+import com.noctivag.customenderdragon.utils.BroadcastService;
 import com.noctivag.customenderdragon.utils.ParticleManager;
 import com.noctivag.customenderdragon.visuals.CrystalStructureManager;
 import com.noctivag.customenderdragon.visuals.DisplayEntityManager;
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,8 +33,14 @@ public class CustomEnderDragonMod implements ModInitializer {
     private DragonManager dragonManager;
     private AbilityManager abilityManager;
     private ParticleManager particleManager;
+    private BroadcastService broadcastService;
     private DisplayEntityManager displayEntityManager;
     private CrystalStructureManager crystalStructureManager;
+    private ConfigReloader configReloader;
+    private ModMetrics metrics;
+    private MetricsDumper metricsDumper;
+    private FightRecorder fightRecorder;
+    private PlanningPipeline planningPipeline;
 
     @Override
     public void onInitialize() {
@@ -41,6 +55,11 @@ public class CustomEnderDragonMod implements ModInitializer {
                 LOGGER.error("Failed to load config, continuing with defaults", e);
             }
 
+            // Metrics first so managers can record from their first tick
+            this.metrics = new ModMetrics();
+            this.metricsDumper = new MetricsDumper(() ->
+                metrics.snapshot(dragonManager, abilityManager, particleManager));
+
             // Initialize managers with error handling
             try {
                 this.dragonManager = new DragonManager();
@@ -63,6 +82,13 @@ public class CustomEnderDragonMod implements ModInitializer {
                 throw e;
             }
 
+            try {
+                this.broadcastService = new BroadcastService();
+            } catch (Exception e) {
+                LOGGER.error("Failed to initialize BroadcastService", e);
+                throw e;
+            }
+
             try {
                 this.displayEntityManager = new DisplayEntityManager();
             } catch (Exception e) {
@@ -93,13 +119,37 @@ public class CustomEnderDragonMod implements ModInitializer {
                 throw e;
             }
 
-            // Register tick handler for dragons
+            // Register tick handlers, dragons are ticked per world after that world's entities
             try {
-                ServerTickEvents.END_SERVER_TICK.register(server -> {
+                ServerTickEvents.START_SERVER_TICK.register(server -> {
+                    if (particleManager != null) {
+                        particleManager.beginTick();
+                    }
+                    if (broadcastService != null) {
+                        broadcastService.beginTick();
+                    }
+                    if (dragonManager != null) {
+                        dragonManager.beginServerTick();
+                    }
+                });
+                ServerTickEvents.END_WORLD_TICK.register(world -> {
                     try {
                         if (dragonManager != null) {
-                            dragonManager.tick();
+                            dragonManager.tickWorld(world);
                         }
+                    } catch (Exception e) {
+                        LOGGER.error("Error during dragon world tick", e);
+                    }
+                });
+                ServerTickEvents.END_SERVER_TICK.register(server -> {
+                    try {
+                        if (abilityManager != null) {
+                            abilityManager.tick();
+                        }
+                        if (crystalStructureManager != null) {
+                            crystalStructureManager.tick();
+                        }
+                        metricsDumper.tick(ModConfig.current().general().metricsDumpIntervalSeconds);
                     } catch (Exception e) {
                         LOGGER.error("Error during dragon manager tick", e);
                     }
@@ -109,6 +159,58 @@ public class CustomEnderDragonMod implements ModInitializer {
                 throw e;
             }
 
+            // Per-server services: planning threads, background config reloading and the fight recording
+            try {
+                ServerLifecycleEvents.SERVER_STARTED.register(server -> {
+                    // Worker threads live as long as the server, so planningThreads applies on every start
+                    try {
+                        planningPipeline = new PlanningPipeline(ModConfig.current().general().planningThreads);
+                    } catch (Exception e) {
+                        LOGGER.error("Failed to start PlanningPipeline, dragons plan on the server thread", e);
+                    }
+                    configReloader = new ConfigReloader(server);
+                    if (ModConfig.current().general().watchConfigFile) {
+                        configReloader.startWatching();
+                    }
+                    updateFightRecorder();
+                });
+                ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+                    // Before the worlds save, decorations are recreated with their dragons
+                    if (displayEntityManager != null) {
+                        displayEntityManager.discardAll();
+                    }
+                    // Arena snapshots only live in memory, so the terrain is put back now
+                    if (crystalStructureManager != null) {
+                        crystalStructureManager.restoreAll();
+                    }
+                    if (ModConfig.current().general().metricsDumpIntervalSeconds > 0) {
+                        metricsDumper.dump();
+                    }
+                    if (configReloader != null) {
+                        configReloader.shutdown();
+                        configReloader = null;
+                    }
+                    if (fightRecorder != null) {
+                        fightRecorder.close();
+                        fightRecorder = null;
+                    }
+                    // Batches still being planned are cancelled when the registries close
+                    if (planningPipeline != null) {
+                        planningPipeline.shutdown();
+                        planningPipeline = null;
+                    }
+                });
+                // Registries hold their worlds, drop them so the next integrated server session starts clean
+                ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+                    if (dragonManager != null) {
+                        dragonManager.shutdown();
+                    }
+                });
+            } catch (Exception e) {
+                LOGGER.error("Failed to register config reloader", e);
+                throw e;
+            }
+
             LOGGER.info("Custom Ender Dragon mod initialized successfully!");
         } catch (Exception e) {
             LOGGER.error("CRITICAL: Failed to initialize Custom Ender Dragon mod", e);
@@ -141,6 +243,22 @@ public class CustomEnderDragonMod implements ModInitializer {
         return INSTANCE.particleManager;
     }
 
+    public static BroadcastService getBroadcastService() {
+        if (INSTANCE == null) {
+            LOGGER.error("Mod INSTANCE is null, mod may not be initialized");
+            return null;
+        }
+        return INSTANCE.broadcastService;
+    }
+
+    public static PlanningPipeline getPlanningPipeline() {
+        if (INSTANCE == null) {
+            LOGGER.error("Mod INSTANCE is null, mod may not be initialized");
+            return null;
+        }
+        return INSTANCE.planningPipeline;
+    }
+
     public static DisplayEntityManager getDisplayEntityManager() {
         if (INSTANCE == null) {
             LOGGER.error("Mod INSTANCE is null, mod may not be initialized");
@@ -156,4 +274,60 @@ public class CustomEnderDragonMod implements ModInitializer {
         }
         return INSTANCE.crystalStructureManager;
     }
+
+    public static ConfigReloader getConfigReloader() {
+        if (INSTANCE == null) {
+            LOGGER.error("Mod INSTANCE is null, mod may not be initialized");
+            return null;
+        }
+        return INSTANCE.configReloader;
+    }
+
+    public static ModMetrics getMetrics() {
+        if (INSTANCE == null) {
+            LOGGER.error("Mod INSTANCE is null, mod may not be initialized");
+            return null;
+        }
+        return INSTANCE.metrics;
+    }
+
+    public static MetricsDumper getMetricsDumper() {
+        if (INSTANCE == null) {
+            LOGGER.error("Mod INSTANCE is null, mod may not be initialized");
+            return null;
+        }
+        return INSTANCE.metricsDumper;
+    }
+
+    public static FightRecorder getFightRecorder() {
+        if (INSTANCE == null) {
+            LOGGER.error("Mod INSTANCE is null, mod may not be initialized");
+            return null;
+        }
+        return INSTANCE.fightRecorder;
+    }
+
+    /**
+     * Opens or closes the fight recording to match recordFights, at server start and after
+     * every config reload. A new recordingBufferMegabytes starts a new recording.
+     */
+    public static void updateFightRecorder() {
+        if (INSTANCE == null) {
+            LOGGER.error("Mod INSTANCE is null, mod may not be initialized");
+            return;
+        }
+        CompiledConfig.General general = ModConfig.current().general();
+        FightRecorder recorder = INSTANCE.fightRecorder;
+        if (recorder != null && (!general.recordFights || recorder.getMegabytes() != general.recordingBufferMegabytes)) {
+            recorder.close();
+            INSTANCE.fightRecorder = null;
+        }
+        if (general.recordFights && INSTANCE.fightRecorder == null) {
+            try {
+                INSTANCE.fightRecorder = FightRecorder.open(general.recordingBufferMegabytes);
+            } catch (Exception e) {
+                LOGGER.error("Failed to open fight recording", e);
+            }
+        }
+    }
 }
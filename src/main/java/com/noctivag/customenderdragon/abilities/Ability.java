@@ -0,0 +1,32 @@
+package com.noctivag.customenderdragon.abilities;
+
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.dragon.CustomDragon;
+import net.minecraft.entity.player.PlayerEntity;
+
+/**
+ * A dragon ability. Implementations are registered in the AbilityRegistry under their
+ * config name, which is also the key of their entry in a variant's "abilities" section.
+ */
+public interface Ability {
+    /**
+     * Config name of the ability, e.g. "fireball"
+     */
+    String getName();
+
+    /**
+     * Lowest phase number the ability is used in, unless the config overrides it
+     */
+    default int getMinPhase() {
+        return 1;
+    }
+
+    /**
+     * Whether the configured cooldown applies, abilities without one run on every ability tick
+     */
+    default boolean hasCooldown() {
+        return true;
+    }
+
+    void execute(CustomDragon dragon, PlayerEntity target, CompiledConfig.AbilitySettings settings);
+}
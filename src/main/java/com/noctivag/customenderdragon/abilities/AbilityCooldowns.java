@@ -0,0 +1,53 @@
+package com.noctivag.customenderdragon.abilities;
+
+import java.util.Arrays;
+
+/**
+ * Per-dragon ability cooldown state, indexed by ability id.
+ * Times are server ticks so cooldowns follow game time, not wall time.
+ */
+public final class AbilityCooldowns {
+    private long[] readyAt;
+
+    public AbilityCooldowns() {
+        this.readyAt = new long[AbilityIds.count()];
+    }
+
+    public boolean isOnCooldown(int abilityId, long now) {
+        long[] ready = readyAt;
+        return abilityId < ready.length && now < ready[abilityId];
+    }
+
+    public void trigger(int abilityId, long now, int cooldownTicks) {
+        setReadyAt(abilityId, now + cooldownTicks);
+    }
+
+    /**
+     * Sets the tick an ability becomes ready again, used when restoring saved state
+     */
+    public void setReadyAt(int abilityId, long tick) {
+        if (abilityId >= readyAt.length) {
+            // Abilities interned by a config reload after this dragon spawned
+            readyAt = Arrays.copyOf(readyAt, Math.max(abilityId + 1, AbilityIds.count()));
+        }
+        readyAt[abilityId] = tick;
+    }
+
+    /**
+     * Number of ability ids with a slot, ids at or above it have never been triggered
+     */
+    public int capacity() {
+        return readyAt.length;
+    }
+
+    public long getReadyAt(int abilityId) {
+        return abilityId < readyAt.length ? readyAt[abilityId] : 0L;
+    }
+
+    /**
+     * Approximate heap size of this object and its array
+     */
+    public long estimateMemoryBytes() {
+        return 16 + 16 + 8L * readyAt.length;
+    }
+}
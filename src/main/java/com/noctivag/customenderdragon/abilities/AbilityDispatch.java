@@ -0,0 +1,86 @@
+package com.noctivag.customenderdragon.abilities;
+
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.dragon.DragonPhase;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Enabled abilities of every variant and phase for one config snapshot, flattened into
+ * id arrays so an ability tick only walks the abilities that can actually run.
+ * Immutable, a new table is compiled whenever a new config is published.
+ */
+public final class AbilityDispatch {
+    private static final int PHASE_COUNT = DragonPhase.values().length;
+
+    private final CompiledConfig config;
+    // [variant.ordinal() * PHASE_COUNT + phase.ordinal()]
+    private final int[][] table;
+    private final boolean[] hasCooldown;
+    private final int maxAbilities;
+
+    private AbilityDispatch(CompiledConfig config, int[][] table, boolean[] hasCooldown, int maxAbilities) {
+        this.config = config;
+        this.table = table;
+        this.hasCooldown = hasCooldown;
+        this.maxAbilities = maxAbilities;
+    }
+
+    public static AbilityDispatch compile(CompiledConfig config, AbilityRegistry registry) {
+        DragonVariant[] variants = DragonVariant.values();
+        DragonPhase[] phases = DragonPhase.values();
+        int[][] table = new int[variants.length * PHASE_COUNT][];
+        boolean[] hasCooldown = new boolean[AbilityIds.count()];
+        int maxAbilities = 0;
+
+        for (DragonVariant variant : variants) {
+            CompiledConfig.VariantSettings variantSettings = config.variant(variant);
+            List<Integer> candidates = registry.getAbilityIds(variant);
+
+            for (DragonPhase phase : phases) {
+                int[] ids = new int[candidates.size()];
+                int count = 0;
+                for (int abilityId : candidates) {
+                    Ability ability = registry.get(abilityId);
+                    hasCooldown[abilityId] = ability.hasCooldown();
+
+                    CompiledConfig.AbilitySettings settings = variantSettings.ability(abilityId);
+                    int minPhase = settings.minPhase > 0 ? settings.minPhase : ability.getMinPhase();
+                    if (variantSettings.enabled && settings.enabled && phase.getPhaseNumber() >= minPhase) {
+                        ids[count++] = abilityId;
+                    }
+                }
+                table[variant.ordinal() * PHASE_COUNT + phase.ordinal()] = Arrays.copyOf(ids, count);
+                maxAbilities = Math.max(maxAbilities, count);
+            }
+        }
+        return new AbilityDispatch(config, table, hasCooldown, maxAbilities);
+    }
+
+    /**
+     * The config snapshot this table was compiled from
+     */
+    public CompiledConfig config() {
+        return config;
+    }
+
+    /**
+     * Ability ids a variant uses in a phase, in execution order. Must not be modified.
+     */
+    public int[] get(DragonVariant variant, DragonPhase phase) {
+        return table[variant.ordinal() * PHASE_COUNT + phase.ordinal()];
+    }
+
+    public boolean hasCooldown(int abilityId) {
+        return abilityId < hasCooldown.length && hasCooldown[abilityId];
+    }
+
+    /**
+     * Length of the longest id array, enough for any selection buffer
+     */
+    public int getMaxAbilities() {
+        return maxAbilities;
+    }
+}
@@ -0,0 +1,70 @@
+package com.noctivag.customenderdragon.abilities;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Interns ability names into small int ids so per-dragon ability state can live in
+ * primitive arrays. Built-in abilities have fixed ids, names found in the config
+ * are appended when the config loads.
+ */
+public final class AbilityIds {
+    public static final int FIREBALL = 0;
+    public static final int FIRE_AURA = 1;
+    public static final int METEOR_SHOWER = 2;
+    public static final int ICE_SHARD = 3;
+    public static final int FREEZE_AURA = 4;
+    public static final int LIGHTNING_STRIKE = 5;
+    public static final int SHADOW_STRIKE = 6;
+    public static final int VOID_PULSE = 7;
+
+    private static final Map<String, Integer> IDS = new HashMap<>();
+    private static volatile String[] names = new String[0];
+
+    static {
+        intern("fireball");
+        intern("fire-aura");
+        intern("meteor-shower");
+        intern("ice-shard");
+        intern("freeze-aura");
+        intern("lightning-strike");
+        intern("shadow-strike");
+        intern("void-pulse");
+    }
+
+    private AbilityIds() {}
+
+    /**
+     * Returns the id for an ability name, assigning a new one if it was never seen
+     */
+    public static synchronized int intern(String name) {
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        int newId = names.length;
+        IDS.put(name, newId);
+        String[] grown = Arrays.copyOf(names, newId + 1);
+        grown[newId] = name;
+        names = grown;
+        return newId;
+    }
+
+    /**
+     * Returns the id for an ability name, or -1 if it is unknown
+     */
+    public static synchronized int lookup(String name) {
+        Integer id = IDS.get(name);
+        return id != null ? id : -1;
+    }
+
+    public static String name(int id) {
+        String[] current = names;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    public static int count() {
+        return names.length;
+    }
+}
@@ -1,28 +1,41 @@
 package com.noctivag.customenderdragon.abilities;
 
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ModConfig;
 import com.noctivag.customenderdragon.dragon.CustomDragon;
 import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.metrics.AbilityExecutionEvent;
 import net.minecraft.entity.boss.dragon.EnderDragonEntity;
-import net.minecraft.entity.Entity;
-import net.minecraft.entity.LivingEntity;
-import net.minecraft.entity.effect.StatusEffectInstance;
-import net.minecraft.entity.effect.StatusEffects;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.entity.projectile.DragonFireballEntity;
-import net.minecraft.entity.EntityType;
-import net.minecraft.entity.SpawnReason;
-import net.minecraft.server.world.ServerWorld;
-import net.minecraft.util.math.Vec3d;
-import net.minecraft.util.math.Box;
 
-import java.util.List;
-import java.util.Random;
+import java.util.Arrays;
 
 /**
  * Manages and executes custom dragon abilities for Fabric 1.21.1
+ *
+ * Abilities come from the AbilityRegistry. Whenever a new config snapshot is published the
+ * enabled abilities are compiled into an AbilityDispatch table, the dragon's DragonFight
+ * picks the ones off cooldown and this class executes them against the target.
+ * Invocation counts and time spent are recorded per ability.
  */
 public class AbilityManager {
-    private final Random random = new Random();
+    private final MeteorImpactQueue meteorQueue = new MeteorImpactQueue();
+    private final AbilityRegistry registry = new AbilityRegistry();
+
+    // Dispatch table for the config snapshot it was compiled from
+    private AbilityDispatch dispatch;
+    // Abilities selected for the current dragon, reused between calls
+    private int[] selected = new int[0];
+
+    // Per ability id statistics
+    private long[] invocations = new long[0];
+    private long[] totalNanos = new long[0];
+    private long[] maxNanos = new long[0];
+
+    public AbilityManager() {
+        BuiltinAbilities.registerAll(registry);
+    }
 
     public void executeAbilities(CustomDragon customDragon) {
         DragonVariant variant = customDragon.getVariant();
@@ -32,132 +45,95 @@ public class AbilityManager {
             return;
         }
 
-        // Find nearest player
-        PlayerEntity target = dragon.getWorld().getClosestPlayer(dragon, 30.0);
+        CompiledConfig config = ModConfig.current();
+
+        // Player with the most threat in range, otherwise the nearest one
+        PlayerEntity target = customDragon.findTarget(config.general().targetRange);
         if (target == null) {
             return;
         }
 
-        switch (variant) {
-            case FIRE -> executeFireAbilities(customDragon, target);
-            case ICE -> executeIceAbilities(customDragon, target);
-            case LIGHTNING -> executeLightningAbilities(customDragon, target);
-            case SHADOW -> executeShadowAbilities(customDragon, target);
-            case VOID -> executeVoidAbilities(customDragon, target);
-        }
-    }
-
-    private void executeFireAbilities(CustomDragon customDragon, PlayerEntity target) {
-        EnderDragonEntity dragon = customDragon.getDragon();
-        int phase = customDragon.getCurrentPhase().getPhaseNumber();
-
-        // Fireball attack
-        if (!customDragon.isAbilityOnCooldown("fireball")) {
-            spawnFireball(dragon, target);
-            customDragon.setAbilityCooldown("fireball");
-        }
+        CompiledConfig.VariantSettings variantSettings = config.variant(variant);
+        AbilityDispatch abilities = getDispatch(config);
+        int count = customDragon.getFight().decideAbilities(abilities, dragon.getWorld().getTime(), selected);
 
-        // Fire aura
-        applyFireAura(dragon);
+        boolean recordExecutions = AbilityExecutionEvent.isRecording();
+        for (int i = 0; i < count; i++) {
+            int abilityId = selected[i];
+            Ability ability = registry.get(abilityId);
 
-        // Meteor shower (Phase 3 only)
-        if (phase >= 3 && !customDragon.isAbilityOnCooldown("meteor-shower")) {
-            spawnMeteorShower(dragon);
-            customDragon.setAbilityCooldown("meteor-shower");
+            AbilityExecutionEvent event = null;
+            if (recordExecutions) {
+                event = new AbilityExecutionEvent();
+                event.begin();
+            }
+            long start = System.nanoTime();
+            try {
+                ability.execute(customDragon, target, variantSettings.ability(abilityId));
+            } catch (Exception e) {
+                CustomEnderDragonMod.LOGGER.error("Error executing ability {}", ability.getName(), e);
+            }
+            record(abilityId, System.nanoTime() - start);
+            if (event != null && event.shouldCommit()) {
+                event.tag(customDragon.getUUID(), variant, customDragon.getCurrentPhase());
+                event.ability = ability.getName();
+                event.target = target.getName().getString();
+                event.commit();
+            }
         }
     }
 
-    private void executeIceAbilities(CustomDragon customDragon, PlayerEntity target) {
-        EnderDragonEntity dragon = customDragon.getDragon();
-
-        // Ice shard damage + slowness
-        if (!customDragon.isAbilityOnCooldown("ice-shard")) {
-            target.damage(dragon.getDamageSources().mobAttack(dragon), 10.0f);
-            target.addStatusEffect(new StatusEffectInstance(StatusEffects.SLOWNESS, 100, 1));
-            customDragon.setAbilityCooldown("ice-shard");
+    /**
+     * Dispatch table of the given snapshot, recompiled when a new config was published
+     */
+    public AbilityDispatch getDispatch(CompiledConfig config) {
+        if (dispatch == null || dispatch.config() != config) {
+            dispatch = AbilityDispatch.compile(config, registry);
+            if (selected.length < dispatch.getMaxAbilities()) {
+                selected = new int[dispatch.getMaxAbilities()];
+            }
         }
-
-        // Freeze aura
-        applyFreezeAura(dragon);
+        return dispatch;
     }
 
-    private void executeLightningAbilities(CustomDragon customDragon, PlayerEntity target) {
-        EnderDragonEntity dragon = customDragon.getDragon();
-        
-        if (!customDragon.isAbilityOnCooldown("lightning-strike") && dragon.getWorld() instanceof ServerWorld serverWorld) {
-            // Strike lightning
-            EntityType.LIGHTNING_BOLT.spawn(serverWorld, target.getBlockPos(), SpawnReason.TRIGGERED);
-            customDragon.setAbilityCooldown("lightning-strike");
+    private void record(int abilityId, long nanos) {
+        if (abilityId >= invocations.length) {
+            int size = Math.max(abilityId + 1, AbilityIds.count());
+            invocations = Arrays.copyOf(invocations, size);
+            totalNanos = Arrays.copyOf(totalNanos, size);
+            maxNanos = Arrays.copyOf(maxNanos, size);
         }
-    }
-
-    private void executeShadowAbilities(CustomDragon customDragon, PlayerEntity target) {
-        EnderDragonEntity dragon = customDragon.getDragon();
-
-        if (!customDragon.isAbilityOnCooldown("shadow-strike")) {
-            target.damage(dragon.getDamageSources().mobAttack(dragon), 15.0f);
-            target.addStatusEffect(new StatusEffectInstance(StatusEffects.BLINDNESS, 60, 0));
-            customDragon.setAbilityCooldown("shadow-strike");
+        invocations[abilityId]++;
+        totalNanos[abilityId] += nanos;
+        if (nanos > maxNanos[abilityId]) {
+            maxNanos[abilityId] = nanos;
         }
     }
 
-    private void executeVoidAbilities(CustomDragon customDragon, PlayerEntity target) {
-        EnderDragonEntity dragon = customDragon.getDragon();
-
-        if (!customDragon.isAbilityOnCooldown("void-pulse")) {
-            target.damage(dragon.getDamageSources().mobAttack(dragon), 20.0f);
-            target.addStatusEffect(new StatusEffectInstance(StatusEffects.WITHER, 100, 1));
-            customDragon.setAbilityCooldown("void-pulse");
-        }
+    /**
+     * Called every server tick to run queued ability work
+     */
+    public void tick() {
+        meteorQueue.tick();
     }
 
-    // Helper methods
-    private void spawnFireball(EnderDragonEntity dragon, PlayerEntity target) {
-        Vec3d direction = target.getPos().subtract(dragon.getPos()).normalize();
-        DragonFireballEntity fireball = new DragonFireballEntity(dragon.getWorld(), dragon, direction);
-        fireball.setPosition(dragon.getX(), dragon.getY() + 2, dragon.getZ());
-        dragon.getWorld().spawnEntity(fireball);
+    public long getInvocationCount(int abilityId) {
+        return abilityId < invocations.length ? invocations[abilityId] : 0L;
     }
 
-    private void applyFireAura(EnderDragonEntity dragon) {
-        Box box = dragon.getBoundingBox().expand(10.0);
-        List<Entity> nearbyEntities = dragon.getWorld().getOtherEntities(dragon, box, 
-            entity -> entity instanceof LivingEntity);
-                
-        for (Entity entity : nearbyEntities) {
-            if (entity instanceof LivingEntity living) {
-                living.setOnFireFor(5);
-            }
-        }
+    public long getTotalNanos(int abilityId) {
+        return abilityId < totalNanos.length ? totalNanos[abilityId] : 0L;
     }
 
-    private void applyFreezeAura(EnderDragonEntity dragon) {
-        Box box = dragon.getBoundingBox().expand(10.0);
-        List<Entity> nearbyEntities = dragon.getWorld().getOtherEntities(dragon, box,
-            entity -> entity instanceof LivingEntity);
-
-        for (Entity entity : nearbyEntities) {
-            if (entity instanceof LivingEntity living) {
-                living.addStatusEffect(new StatusEffectInstance(StatusEffects.SLOWNESS, 60, 2));
-            }
-        }
+    public long getMaxNanos(int abilityId) {
+        return abilityId < maxNanos.length ? maxNanos[abilityId] : 0L;
     }
 
-    private void spawnMeteorShower(EnderDragonEntity dragon) {
-        if (!(dragon.getWorld() instanceof ServerWorld serverWorld)) {
-            return;
-        }
+    public AbilityRegistry getRegistry() {
+        return registry;
+    }
 
-        for (int i = 0; i < 15; i++) {
-            int offsetX = random.nextInt(40) - 20;
-            int offsetZ = random.nextInt(40) - 20;
-            
-            serverWorld.createExplosion(null, 
-                dragon.getX() + offsetX, 
-                dragon.getY() + 20, 
-                dragon.getZ() + offsetZ, 
-                2.0f, 
-                ServerWorld.ExplosionSourceType.MOB);
-        }
+    public MeteorImpactQueue getMeteorQueue() {
+        return meteorQueue;
     }
 }
@@ -0,0 +1,49 @@
+package com.noctivag.customenderdragon.abilities;
+
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Registry of abilities by id and the variants that use them.
+ * Registration order is the order abilities run in within an ability tick.
+ */
+public class AbilityRegistry {
+    private Ability[] byId = new Ability[0];
+    private final List<List<Integer>> idsByVariant = new ArrayList<>();
+
+    public AbilityRegistry() {
+        for (int i = 0; i < DragonVariant.values().length; i++) {
+            idsByVariant.add(new ArrayList<>());
+        }
+    }
+
+    public int register(Ability ability, DragonVariant... variants) {
+        int id = AbilityIds.intern(ability.getName());
+        if (id >= byId.length) {
+            byId = Arrays.copyOf(byId, id + 1);
+        }
+        if (byId[id] != null) {
+            throw new IllegalStateException("Ability " + ability.getName() + " is already registered");
+        }
+        byId[id] = ability;
+
+        for (DragonVariant variant : variants) {
+            idsByVariant.get(variant.ordinal()).add(id);
+        }
+        return id;
+    }
+
+    public Ability get(int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /**
+     * Ids of the abilities a variant uses, in execution order
+     */
+    public List<Integer> getAbilityIds(DragonVariant variant) {
+        return idsByVariant.get(variant.ordinal());
+    }
+}
@@ -0,0 +1,213 @@
+package com.noctivag.customenderdragon.abilities;
+
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.dragon.CustomDragon;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.planning.DragonPlan;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.SpawnReason;
+import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.entity.effect.StatusEffectInstance;
+import net.minecraft.entity.effect.StatusEffects;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.projectile.DragonFireballEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The abilities shipped with the mod
+ */
+public final class BuiltinAbilities {
+    // Meteors per shower and the width of the square they land in
+    public static final int METEOR_COUNT = 15;
+    public static final int METEOR_SPREAD = 40;
+
+    private BuiltinAbilities() {}
+
+    public static void registerAll(AbilityRegistry registry) {
+        registry.register(new Fireball(), DragonVariant.FIRE);
+        registry.register(new FireAura(), DragonVariant.FIRE);
+        registry.register(new MeteorShower(), DragonVariant.FIRE);
+        registry.register(new IceShard(), DragonVariant.ICE);
+        registry.register(new FreezeAura(), DragonVariant.ICE);
+        registry.register(new LightningStrike(), DragonVariant.LIGHTNING);
+        registry.register(new ShadowStrike(), DragonVariant.SHADOW);
+        registry.register(new VoidPulse(), DragonVariant.VOID);
+    }
+
+    private static final class Fireball implements Ability {
+        @Override
+        public String getName() {
+            return "fireball";
+        }
+
+        @Override
+        public void execute(CustomDragon customDragon, PlayerEntity target, CompiledConfig.AbilitySettings settings) {
+            EnderDragonEntity dragon = customDragon.getDragon();
+            Vec3d direction = target.getPos().subtract(dragon.getPos()).normalize();
+            DragonFireballEntity fireball = new DragonFireballEntity(dragon.getWorld(), dragon, direction);
+            fireball.setPosition(dragon.getX(), dragon.getY() + 2, dragon.getZ());
+            dragon.getWorld().spawnEntity(fireball);
+        }
+    }
+
+    private static final class FireAura implements Ability {
+        // Reused query result, abilities only run on the server thread
+        private final List<LivingEntity> nearbyEntities = new ArrayList<>();
+
+        @Override
+        public String getName() {
+            return "fire-aura";
+        }
+
+        @Override
+        public boolean hasCooldown() {
+            return false;
+        }
+
+        @Override
+        public void execute(CustomDragon customDragon, PlayerEntity target, CompiledConfig.AbilitySettings settings) {
+            customDragon.collectLivingAround(settings.radius, nearbyEntities);
+
+            for (LivingEntity living : nearbyEntities) {
+                living.setOnFireFor(5);
+            }
+            nearbyEntities.clear();
+        }
+    }
+
+    private static final class MeteorShower implements Ability {
+        @Override
+        public String getName() {
+            return "meteor-shower";
+        }
+
+        @Override
+        public int getMinPhase() {
+            return 3;
+        }
+
+        /**
+         * Queues the meteors of a shower, one impact per tick so the explosions don't all land together
+         */
+        @Override
+        public void execute(CustomDragon customDragon, PlayerEntity target, CompiledConfig.AbilitySettings settings) {
+            EnderDragonEntity dragon = customDragon.getDragon();
+            if (!(dragon.getWorld() instanceof ServerWorld serverWorld)) {
+                return;
+            }
+
+            AbilityManager abilityManager = CustomEnderDragonMod.getAbilityManager();
+            // Offsets drawn by the planner threads if there is a current plan, both draw
+            // from the dragon's random numbers for this tick
+            DragonPlan plan = customDragon.getPlan();
+            int[] planned = plan != null ? plan.getMeteorOffsets() : null;
+            SplittableRandom random = planned == null ? customDragon.getFight().random(serverWorld.getTime()) : null;
+            for (int i = 0; i < METEOR_COUNT; i++) {
+                int offsetX;
+                int offsetZ;
+                if (planned != null) {
+                    offsetX = planned[i * 2];
+                    offsetZ = planned[i * 2 + 1];
+                } else {
+                    offsetX = random.nextInt(METEOR_SPREAD) - METEOR_SPREAD / 2;
+                    offsetZ = random.nextInt(METEOR_SPREAD) - METEOR_SPREAD / 2;
+                }
+
+                abilityManager.getMeteorQueue().enqueue(serverWorld,
+                    dragon.getX() + offsetX,
+                    dragon.getY() + 20,
+                    dragon.getZ() + offsetZ,
+                    2.0f,
+                    i);
+            }
+        }
+    }
+
+    private static final class IceShard implements Ability {
+        @Override
+        public String getName() {
+            return "ice-shard";
+        }
+
+        @Override
+        public void execute(CustomDragon customDragon, PlayerEntity target, CompiledConfig.AbilitySettings settings) {
+            EnderDragonEntity dragon = customDragon.getDragon();
+            target.damage(dragon.getDamageSources().mobAttack(dragon), (float) settings.damage);
+            target.addStatusEffect(new StatusEffectInstance(StatusEffects.SLOWNESS, 100, 1));
+        }
+    }
+
+    private static final class FreezeAura implements Ability {
+        // Reused query result, abilities only run on the server thread
+        private final List<LivingEntity> nearbyEntities = new ArrayList<>();
+
+        @Override
+        public String getName() {
+            return "freeze-aura";
+        }
+
+        @Override
+        public boolean hasCooldown() {
+            return false;
+        }
+
+        @Override
+        public void execute(CustomDragon customDragon, PlayerEntity target, CompiledConfig.AbilitySettings settings) {
+            customDragon.collectLivingAround(settings.radius, nearbyEntities);
+
+            for (LivingEntity living : nearbyEntities) {
+                living.addStatusEffect(new StatusEffectInstance(StatusEffects.SLOWNESS, 60, 2));
+            }
+            nearbyEntities.clear();
+        }
+    }
+
+    private static final class LightningStrike implements Ability {
+        @Override
+        public String getName() {
+            return "lightning-strike";
+        }
+
+        @Override
+        public void execute(CustomDragon customDragon, PlayerEntity target, CompiledConfig.AbilitySettings settings) {
+            if (customDragon.getDragon().getWorld() instanceof ServerWorld serverWorld) {
+                EntityType.LIGHTNING_BOLT.spawn(serverWorld, target.getBlockPos(), SpawnReason.TRIGGERED);
+            }
+        }
+    }
+
+    private static final class ShadowStrike implements Ability {
+        @Override
+        public String getName() {
+            return "shadow-strike";
+        }
+
+        @Override
+        public void execute(CustomDragon customDragon, PlayerEntity target, CompiledConfig.AbilitySettings settings) {
+            EnderDragonEntity dragon = customDragon.getDragon();
+            target.damage(dragon.getDamageSources().mobAttack(dragon), (float) settings.damage);
+            target.addStatusEffect(new StatusEffectInstance(StatusEffects.BLINDNESS, 60, 0));
+        }
+    }
+
+    private static final class VoidPulse implements Ability {
+        @Override
+        public String getName() {
+            return "void-pulse";
+        }
+
+        @Override
+        public void execute(CustomDragon customDragon, PlayerEntity target, CompiledConfig.AbilitySettings settings) {
+            EnderDragonEntity dragon = customDragon.getDragon();
+            target.damage(dragon.getDamageSources().mobAttack(dragon), (float) settings.damage);
+            target.addStatusEffect(new StatusEffectInstance(StatusEffects.WITHER, 100, 1));
+        }
+    }
+}
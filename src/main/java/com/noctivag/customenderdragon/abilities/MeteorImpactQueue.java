@@ -0,0 +1,244 @@
+package com.noctivag.customenderdragon.abilities;
+
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ModConfig;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.damage.DamageSource;
+import net.minecraft.particle.ParticleTypes;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.sound.SoundCategory;
+import net.minecraft.sound.SoundEvents;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spreads meteor impacts over several ticks instead of detonating a whole shower at once.
+ * Every tick at most maxExplosionsPerTick due impacts are executed, the rest wait for the
+ * next tick. Impacts can use vanilla explosions, a damage-only explosion or a precomputed
+ * block pattern, the latter two skip the per-ray block sampling of vanilla explosions.
+ */
+public class MeteorImpactQueue {
+    public enum ExplosionMode {
+        VANILLA,
+        DAMAGE_ONLY,
+        PATTERN
+    }
+
+    private static final class Impact {
+        final ServerWorld world;
+        final double x;
+        final double y;
+        final double z;
+        final float power;
+        int delay;
+
+        Impact(ServerWorld world, double x, double y, double z, float power, int delay) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.power = power;
+            this.delay = delay;
+        }
+    }
+
+    /**
+     * Block offsets reached by an explosion of a given power, with the strongest blast
+     * resistance that can still be broken at each offset. Computed once per power.
+     */
+    private static final class BlastPattern {
+        final int[] offsets; // dx, dy, dz triples
+        final float[] maxResistance;
+
+        BlastPattern(float power) {
+            // Vanilla rays lose 0.225 intensity per 0.3 block step, 0.75 per block
+            int reach = (int) Math.ceil(power / 0.75f);
+            List<int[]> cells = new ArrayList<>();
+            List<Float> resistances = new ArrayList<>();
+            for (int dx = -reach; dx <= reach; dx++) {
+                for (int dy = -reach; dy <= reach; dy++) {
+                    for (int dz = -reach; dz <= reach; dz++) {
+                        float remaining = power - (float) Math.sqrt(dx * dx + dy * dy + dz * dz) * 0.75f;
+                        if (remaining > 0) {
+                            cells.add(new int[]{dx, dy, dz});
+                            resistances.add(remaining / 0.3f - 0.3f);
+                        }
+                    }
+                }
+            }
+
+            offsets = new int[cells.size() * 3];
+            maxResistance = new float[cells.size()];
+            for (int i = 0; i < cells.size(); i++) {
+                offsets[i * 3] = cells.get(i)[0];
+                offsets[i * 3 + 1] = cells.get(i)[1];
+                offsets[i * 3 + 2] = cells.get(i)[2];
+                maxResistance[i] = resistances.get(i);
+            }
+        }
+    }
+
+    private final ArrayDeque<Impact> queue = new ArrayDeque<>();
+    private final Map<Float, BlastPattern> patterns = new HashMap<>();
+    private final BlockPos.Mutable mutablePos = new BlockPos.Mutable();
+
+    private int executedLastTick = 0;
+    private int deferredLastTick = 0;
+    private long executedTotal = 0;
+    private long deferredTotal = 0;
+
+    /**
+     * Queues an impact that detonates after the given number of ticks
+     */
+    public void enqueue(ServerWorld world, double x, double y, double z, float power, int delayTicks) {
+        queue.addLast(new Impact(world, x, y, z, power, Math.max(0, delayTicks)));
+    }
+
+    /**
+     * Executes due impacts within the per-tick budget, called once per server tick
+     */
+    public void tick() {
+        CompiledConfig.General general = ModConfig.current().general();
+        int budget = general.maxExplosionsPerTick;
+        int executed = 0;
+        int deferred = 0;
+
+        for (int i = queue.size(); i > 0; i--) {
+            Impact impact = queue.pollFirst();
+            if (impact.delay > 0) {
+                impact.delay--;
+                queue.addLast(impact);
+                continue;
+            }
+            if (executed >= budget) {
+                deferred++;
+                queue.addLast(impact);
+                continue;
+            }
+
+            try {
+                detonate(impact, general.meteorExplosionMode);
+            } catch (Exception e) {
+                CustomEnderDragonMod.LOGGER.error("Error during meteor impact", e);
+            }
+            executed++;
+        }
+
+        executedLastTick = executed;
+        deferredLastTick = deferred;
+        executedTotal += executed;
+        deferredTotal += deferred;
+    }
+
+    private void detonate(Impact impact, ExplosionMode mode) {
+        ServerWorld world = impact.world;
+        if (!world.isChunkLoaded((int) Math.floor(impact.x) >> 4, (int) Math.floor(impact.z) >> 4)) {
+            return;
+        }
+
+        switch (mode) {
+            case VANILLA -> world.createExplosion(null, impact.x, impact.y, impact.z, impact.power,
+                ServerWorld.ExplosionSourceType.MOB);
+            case DAMAGE_ONLY -> damageOnly(impact);
+            case PATTERN -> {
+                breakPattern(impact);
+                damageOnly(impact);
+            }
+        }
+    }
+
+    /**
+     * Applies vanilla explosion damage and knockback without sampling exposure or blocks
+     */
+    private void damageOnly(Impact impact) {
+        ServerWorld world = impact.world;
+        double reach = impact.power * 2.0;
+        Box area = new Box(impact.x - reach, impact.y - reach, impact.z - reach,
+            impact.x + reach, impact.y + reach, impact.z + reach);
+        DamageSource source = world.getDamageSources().explosion(null, null);
+
+        for (LivingEntity living : world.getEntitiesByClass(LivingEntity.class, area, LivingEntity::isAlive)) {
+            double distance = Math.sqrt(living.squaredDistanceTo(impact.x, impact.y, impact.z));
+            double strength = 1.0 - distance / reach;
+            if (strength <= 0) {
+                continue;
+            }
+
+            float damage = (float) ((strength * strength + strength) / 2.0 * 7.0 * reach + 1.0);
+            living.damage(source, damage);
+
+            if (distance > 0) {
+                double scale = strength / distance;
+                living.addVelocity((living.getX() - impact.x) * scale, (living.getY() - impact.y) * scale,
+                    (living.getZ() - impact.z) * scale);
+            }
+        }
+
+        world.spawnParticles(ParticleTypes.EXPLOSION_EMITTER, impact.x, impact.y, impact.z, 1, 0, 0, 0, 0);
+        world.playSound(null, impact.x, impact.y, impact.z, SoundEvents.ENTITY_GENERIC_EXPLODE.value(),
+            SoundCategory.HOSTILE, 4.0f, 0.9f);
+    }
+
+    private void breakPattern(Impact impact) {
+        ServerWorld world = impact.world;
+        BlastPattern pattern = patterns.computeIfAbsent(impact.power, BlastPattern::new);
+        int originX = (int) Math.floor(impact.x);
+        int originY = (int) Math.floor(impact.y);
+        int originZ = (int) Math.floor(impact.z);
+        BlockState air = Blocks.AIR.getDefaultState();
+        // Cells can reach into neighbouring chunks, reading an unloaded one would load it
+        // synchronously, so those cells are left alone. Consecutive cells mostly share a chunk.
+        int checkedChunkX = Integer.MIN_VALUE;
+        int checkedChunkZ = Integer.MIN_VALUE;
+        boolean chunkLoaded = false;
+
+        for (int i = 0; i < pattern.maxResistance.length; i++) {
+            int x = originX + pattern.offsets[i * 3];
+            int z = originZ + pattern.offsets[i * 3 + 2];
+            if (x >> 4 != checkedChunkX || z >> 4 != checkedChunkZ) {
+                checkedChunkX = x >> 4;
+                checkedChunkZ = z >> 4;
+                chunkLoaded = world.isChunkLoaded(checkedChunkX, checkedChunkZ);
+            }
+            if (!chunkLoaded) {
+                continue;
+            }
+            mutablePos.set(x, originY + pattern.offsets[i * 3 + 1], z);
+            BlockState state = world.getBlockState(mutablePos);
+            if (state.isAir() || state.getBlock().getBlastResistance() > pattern.maxResistance[i]) {
+                continue;
+            }
+            world.setBlockState(mutablePos, air, Block.NOTIFY_ALL);
+        }
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public int getExecutedLastTick() {
+        return executedLastTick;
+    }
+
+    public int getDeferredLastTick() {
+        return deferredLastTick;
+    }
+
+    public long getExecutedTotal() {
+        return executedTotal;
+    }
+
+    public long getDeferredTotal() {
+        return deferredTotal;
+    }
+}
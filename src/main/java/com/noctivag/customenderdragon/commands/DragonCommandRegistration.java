@@ -4,7 +4,15 @@ import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.ConfigReloader;
+import com.noctivag.customenderdragon.abilities.AbilityIds;
+import com.noctivag.customenderdragon.abilities.AbilityManager;
+import com.noctivag.customenderdragon.dragon.DragonManager;
 import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.metrics.LatencyHistogram;
+import com.noctivag.customenderdragon.metrics.MetricsDumper;
+import com.noctivag.customenderdragon.metrics.ModMetrics;
+import com.noctivag.customenderdragon.utils.ParticleManager;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.minecraft.command.CommandRegistryAccess;
 import net.minecraft.server.command.CommandManager;
@@ -42,7 +50,11 @@ public class DragonCommandRegistration {
             .then(CommandManager.literal("remove")
                 .executes(DragonCommandRegistration::removeAllDragons))
             .then(CommandManager.literal("reload")
-                .executes(DragonCommandRegistration::reloadConfig)));
+                .executes(DragonCommandRegistration::reloadConfig))
+            .then(CommandManager.literal("stats")
+                .executes(DragonCommandRegistration::showStats)
+                .then(CommandManager.literal("dump")
+                    .executes(DragonCommandRegistration::dumpStats))));
     }
 
     private static int spawnDragon(CommandContext<ServerCommandSource> context) {
@@ -98,14 +110,101 @@ public class DragonCommandRegistration {
 
     private static int reloadConfig(CommandContext<ServerCommandSource> context) {
         ServerCommandSource source = context.getSource();
-        
-        try {
-            com.noctivag.customenderdragon.config.ModConfig.load();
-            source.sendFeedback(() -> Text.literal("Configuration reloaded successfully!").formatted(Formatting.GREEN), true);
-            return 1;
-        } catch (Exception e) {
-            source.sendError(Text.literal("Failed to reload configuration: " + e.getMessage()));
+
+        ConfigReloader reloader = CustomEnderDragonMod.getConfigReloader();
+        if (reloader == null) {
+            source.sendError(Text.literal("Config reloader is not running!"));
             return 0;
         }
+
+        // Parsing happens off-thread, feedback arrives on a later tick
+        source.sendFeedback(() -> Text.literal("Reloading configuration...").formatted(Formatting.GRAY), false);
+        reloader.reloadAsync(result -> {
+            if (result.isValid()) {
+                source.sendFeedback(() -> Text.literal("Configuration reloaded successfully!").formatted(Formatting.GREEN), true);
+            } else {
+                source.sendError(Text.literal("Configuration rejected, keeping the current one:"));
+                for (String error : result.getErrors()) {
+                    source.sendError(Text.literal("  - " + error));
+                }
+            }
+        });
+        return 1;
+    }
+
+    private static int showStats(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        ModMetrics metrics = CustomEnderDragonMod.getMetrics();
+        if (metrics == null) {
+            source.sendError(Text.literal("Metrics are not available!"));
+            return 0;
+        }
+
+        DragonManager dragonManager = CustomEnderDragonMod.getDragonManager();
+        AbilityManager abilityManager = CustomEnderDragonMod.getAbilityManager();
+        ParticleManager particleManager = CustomEnderDragonMod.getParticleManager();
+
+        source.sendFeedback(() -> Text.literal("Custom Dragon Stats").formatted(Formatting.YELLOW), false);
+        sendTiming(source, "Manager tick", metrics.getManagerTick());
+        sendTiming(source, "Dragon tick", metrics.getDragonTick());
+        sendTiming(source, "Dragon work", metrics.getDragonWork());
+        sendTiming(source, "Planning (workers)", metrics.getPlanning());
+        sendTiming(source, "Plan handoff (server)", metrics.getPlanHandoff());
+        source.sendFeedback(() -> Text.literal("  Plans: " + metrics.getPlansApplied() + " applied, "
+            + metrics.getPlanBatchesMissed() + " batches missed").formatted(Formatting.GRAY), false);
+
+        if (dragonManager != null) {
+            var dragons = dragonManager.getAllDragons();
+            source.sendFeedback(() -> Text.literal("  Dragons: " + dragons.size() + " ("
+                + dragonManager.getDormantCount() + " dormant, ~"
+                + ModMetrics.estimateBytesPerDragon(dragons) + " bytes each), deferred work: "
+                + dragonManager.getScheduledDeferredTotal()).formatted(Formatting.GRAY), false);
+        }
+
+        if (abilityManager != null) {
+            for (int id = 0; id < AbilityIds.count(); id++) {
+                long invocations = abilityManager.getInvocationCount(id);
+                if (invocations == 0) {
+                    continue;
+                }
+                String line = String.format("  %s: %d runs, avg %.1fus, max %.1fus", AbilityIds.name(id), invocations,
+                    abilityManager.getTotalNanos(id) / 1000.0 / invocations, abilityManager.getMaxNanos(id) / 1000.0);
+                source.sendFeedback(() -> Text.literal(line).formatted(Formatting.GRAY), false);
+            }
+            var meteors = abilityManager.getMeteorQueue();
+            source.sendFeedback(() -> Text.literal("  Explosions: " + meteors.getExecutedTotal() + " executed, "
+                + meteors.getDeferredTotal() + " deferred, " + meteors.getQueuedCount() + " queued")
+                .formatted(Formatting.GRAY), false);
+        }
+
+        if (particleManager != null) {
+            source.sendFeedback(() -> Text.literal("  Particles: " + particleManager.getParticlesSent() + " sent, "
+                + particleManager.getParticlesCulled() + " culled").formatted(Formatting.GRAY), false);
+        }
+
+        source.sendFeedback(() -> Text.literal("  Messages broadcast: " + metrics.getMessagesBroadcast())
+            .formatted(Formatting.GRAY), false);
+        return 1;
+    }
+
+    private static void sendTiming(ServerCommandSource source, String label, LatencyHistogram histogram) {
+        String line = String.format("  %s: %d samples, mean %.1fus, p99 %.1fus, max %.1fus", label,
+            histogram.getCount(), histogram.getMeanNanos() / 1000.0, histogram.getPercentileNanos(99) / 1000.0,
+            histogram.getMaxNanos() / 1000.0);
+        source.sendFeedback(() -> Text.literal(line).formatted(Formatting.GRAY), false);
+    }
+
+    private static int dumpStats(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        MetricsDumper dumper = CustomEnderDragonMod.getMetricsDumper();
+        if (dumper == null) {
+            source.sendError(Text.literal("Metrics are not available!"));
+            return 0;
+        }
+
+        dumper.dump();
+        source.sendFeedback(() -> Text.literal("Metrics written to config/customenderdragon-metrics.json")
+            .formatted(Formatting.GREEN), false);
+        return 1;
     }
 }
@@ -0,0 +1,329 @@
+package com.noctivag.customenderdragon.config;
+
+import com.noctivag.customenderdragon.abilities.AbilityIds;
+import com.noctivag.customenderdragon.abilities.MeteorImpactQueue;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.utils.BroadcastService;
+import com.noctivag.customenderdragon.utils.LootTable;
+import com.noctivag.customenderdragon.utils.ParticleShape;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable snapshot of the configuration with all defaults resolved.
+ * Built from the JSON model on every load and published by ModConfig with a single
+ * volatile write, so readers always see either the old or the new config, never a mix.
+ * Per-variant data is indexed by DragonVariant.ordinal(), per-ability data by ability id.
+ */
+public final class CompiledConfig {
+    private static final int DEFAULT_ABILITY_COOLDOWN = 100;
+    private static final double DEFAULT_ABILITY_DAMAGE = 10.0;
+    private static final double DEFAULT_ABILITY_RADIUS = 10.0;
+
+    private final ModConfig.Config source;
+    private final long fingerprint;
+    private final General general;
+    private final Messages messages;
+    private final VariantSettings[] variants;
+    private final double proximityRadius;
+
+    private CompiledConfig(ModConfig.Config source, General general, Messages messages, VariantSettings[] variants) {
+        this.source = source;
+        this.fingerprint = fingerprint(source);
+        this.general = general;
+        this.messages = messages;
+        this.variants = variants;
+
+        double radius = general.targetRange;
+        for (VariantSettings variant : variants) {
+            for (AbilitySettings ability : variant.abilities) {
+                radius = Math.max(radius, ability.radius);
+            }
+        }
+        this.proximityRadius = radius;
+    }
+
+    public static CompiledConfig compile(ModConfig.Config config) {
+        return compile(config, true);
+    }
+
+    /**
+     * Compiles a config, without loot the loot tables stay empty. Loot resolves its items in
+     * Minecraft's registries, so tools running without a bootstrapped game skip it.
+     */
+    public static CompiledConfig compile(ModConfig.Config config, boolean withLoot) {
+        // Intern every configured ability first so all tables share the same size
+        for (ModConfig.VariantConfig variantConfig : config.variants.values()) {
+            if (variantConfig != null && variantConfig.abilities != null) {
+                variantConfig.abilities.keySet().forEach(AbilityIds::intern);
+            }
+        }
+
+        DragonVariant[] values = DragonVariant.values();
+        VariantSettings[] variants = new VariantSettings[values.length];
+        for (DragonVariant variant : values) {
+            ModConfig.VariantConfig variantConfig = config.variants.get(variant.name());
+            if (variantConfig == null) {
+                variantConfig = new ModConfig.VariantConfig(variant);
+            }
+            variants[variant.ordinal()] = new VariantSettings(variant, variantConfig, withLoot);
+        }
+
+        ModConfig.GeneralConfig generalConfig = config.general != null ? config.general : new ModConfig.GeneralConfig();
+        ModConfig.MessagesConfig messagesConfig = config.messages != null ? config.messages : new ModConfig.MessagesConfig();
+
+        return new CompiledConfig(config, new General(generalConfig), new Messages(messagesConfig), variants);
+    }
+
+    private static long fingerprint(ModConfig.Config config) {
+        CRC32 crc = new CRC32();
+        crc.update(ModConfig.toJson(config).getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * CRC32 of the canonical JSON, equal for configs that only differ in formatting
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * The JSON model this snapshot was compiled from, only meant for saving
+     */
+    public ModConfig.Config source() {
+        return source;
+    }
+
+    public General general() {
+        return general;
+    }
+
+    public Messages messages() {
+        return messages;
+    }
+
+    public VariantSettings variant(DragonVariant variant) {
+        return variants[variant.ordinal()];
+    }
+
+    /**
+     * Radius the proximity index must cover: the target range or the largest ability radius
+     */
+    public double proximityRadius() {
+        return proximityRadius;
+    }
+
+    public static final class General {
+        public final boolean bossBarEnabled;
+        public final double bossBarRadius;
+        public final double bossBarUpdateStep;
+        public final int bossBarCheckInterval;
+        public final boolean decorationsEnabled;
+        public final int decorationUpdateInterval;
+        public final int decorationPoolSize;
+        public final boolean arenaEnabled;
+        public final int arenaPillars;
+        public final int arenaRadius;
+        public final int arenaPillarHeight;
+        public final int arenaBlocksPerTick;
+        public final BroadcastService.Audience phaseChangeAudience;
+        public final BroadcastService.Audience deathAudience;
+        public final double announcementRadius;
+        public final int announcementCooldownTicks;
+        public final int maxAnnouncementsPerTick;
+        public final int particleUpdateInterval;
+        public final int abilityUpdateInterval;
+        public final double particleViewDistance;
+        public final double particleLodDistance;
+        public final int particleBudgetPerPlayer;
+        public final double tickBudgetMillis;
+        public final boolean watchConfigFile;
+        public final double targetRange;
+        public final double threatHalfLifeTicks;
+        public final MeteorImpactQueue.ExplosionMode meteorExplosionMode;
+        public final int maxExplosionsPerTick;
+        public final int metricsDumpIntervalSeconds;
+        public final double dormancyRadius;
+        public final int dormancyCheckInterval;
+        public final long fightSeed;
+        public final boolean recordFights;
+        public final int recordingBufferMegabytes;
+        public final int planningThreads;
+
+        private General(ModConfig.GeneralConfig config) {
+            this.bossBarEnabled = config.bossBarEnabled;
+            this.bossBarRadius = Math.max(0.0, config.bossBarRadius);
+            this.bossBarUpdateStep = Math.max(0.1, Math.min(100.0, config.bossBarUpdateStep));
+            this.bossBarCheckInterval = Math.max(1, config.bossBarCheckInterval);
+            this.decorationsEnabled = config.decorationsEnabled;
+            this.decorationUpdateInterval = Math.max(1, Math.min(40, config.decorationUpdateInterval));
+            this.decorationPoolSize = Math.max(0, config.decorationPoolSize);
+            this.arenaEnabled = config.arenaEnabled;
+            this.arenaPillars = Math.max(1, Math.min(32, config.arenaPillars));
+            this.arenaRadius = Math.max(2, Math.min(128, config.arenaRadius));
+            this.arenaPillarHeight = Math.max(1, Math.min(64, config.arenaPillarHeight));
+            this.arenaBlocksPerTick = Math.max(1, config.arenaBlocksPerTick);
+            BroadcastService.Audience phaseAudience = ModConfig.parseAudience(config.phaseChangeAudience);
+            this.phaseChangeAudience = phaseAudience != null ? phaseAudience : BroadcastService.Audience.RADIUS;
+            BroadcastService.Audience killAudience = ModConfig.parseAudience(config.deathAudience);
+            this.deathAudience = killAudience != null ? killAudience : BroadcastService.Audience.WORLD;
+            this.announcementRadius = Math.max(0.0, config.announcementRadius);
+            this.announcementCooldownTicks = Math.max(0, config.announcementCooldownTicks);
+            this.maxAnnouncementsPerTick = Math.max(1, config.maxAnnouncementsPerTick);
+            this.particleUpdateInterval = Math.max(1, config.particleUpdateInterval);
+            this.abilityUpdateInterval = Math.max(1, config.abilityUpdateInterval);
+            this.particleViewDistance = Math.max(0.0, config.particleViewDistance);
+            this.particleLodDistance = Math.max(0.0, config.particleLodDistance);
+            this.particleBudgetPerPlayer = Math.max(0, config.particleBudgetPerPlayer);
+            this.tickBudgetMillis = Math.max(0.0, config.tickBudgetMillis);
+            this.watchConfigFile = config.watchConfigFile;
+            this.targetRange = Math.max(0.0, config.targetRange);
+            this.threatHalfLifeTicks = Math.max(0.0, config.threatHalfLifeSeconds) * 20.0;
+            MeteorImpactQueue.ExplosionMode mode = ModConfig.parseExplosionMode(config.meteorExplosionMode);
+            this.meteorExplosionMode = mode != null ? mode : MeteorImpactQueue.ExplosionMode.VANILLA;
+            this.maxExplosionsPerTick = Math.max(1, config.maxExplosionsPerTick);
+            this.metricsDumpIntervalSeconds = Math.max(0, config.metricsDumpIntervalSeconds);
+            this.dormancyRadius = Math.max(0.0, config.dormancyRadius);
+            this.dormancyCheckInterval = Math.max(1, config.dormancyCheckInterval);
+            this.fightSeed = config.fightSeed;
+            this.recordFights = config.recordFights;
+            this.recordingBufferMegabytes = Math.max(1, Math.min(1024, config.recordingBufferMegabytes));
+            this.planningThreads = Math.max(0, Math.min(16, config.planningThreads));
+        }
+    }
+
+    public static final class Messages {
+        public final String prefix;
+        public final String noPermission;
+        public final String dragonSpawned;
+        public final String dragonKilled;
+        public final String phaseChange;
+        public final String invalidVariant;
+        public final String noDragons;
+
+        private Messages(ModConfig.MessagesConfig config) {
+            ModConfig.MessagesConfig defaults = new ModConfig.MessagesConfig();
+            this.prefix = config.prefix != null ? config.prefix : defaults.prefix;
+            this.noPermission = config.noPermission != null ? config.noPermission : defaults.noPermission;
+            this.dragonSpawned = config.dragonSpawned != null ? config.dragonSpawned : defaults.dragonSpawned;
+            this.dragonKilled = config.dragonKilled != null ? config.dragonKilled : defaults.dragonKilled;
+            this.phaseChange = config.phaseChange != null ? config.phaseChange : defaults.phaseChange;
+            this.invalidVariant = config.invalidVariant != null ? config.invalidVariant : defaults.invalidVariant;
+            this.noDragons = config.noDragons != null ? config.noDragons : defaults.noDragons;
+        }
+    }
+
+    public static final class VariantSettings {
+        public final boolean enabled;
+        public final String displayName;
+        public final float health;
+        private final AbilitySettings[] abilities;
+        // Compiled emitters indexed by ParticleShape.Trigger ordinal
+        private final ParticleShape[][] particles;
+        public final LootTable loot;
+
+        private VariantSettings(DragonVariant variant, ModConfig.VariantConfig config, boolean withLoot) {
+            this.enabled = config.enabled;
+            this.displayName = config.displayName != null ? config.displayName : variant.getDisplayName();
+            this.health = config.health > 0 ? config.health : 200.0f;
+
+            this.abilities = new AbilitySettings[AbilityIds.count()];
+            if (config.abilities != null) {
+                for (Map.Entry<String, ModConfig.AbilityConfig> entry : config.abilities.entrySet()) {
+                    if (entry.getValue() != null) {
+                        abilities[AbilityIds.intern(entry.getKey())] = new AbilitySettings(entry.getValue());
+                    }
+                }
+            }
+
+            // Abilities missing from an older config file get the variant's defaults
+            for (Map.Entry<String, ModConfig.AbilityConfig> entry : new ModConfig.VariantConfig(variant).abilities.entrySet()) {
+                int id = AbilityIds.intern(entry.getKey());
+                if (id < abilities.length && abilities[id] == null) {
+                    abilities[id] = new AbilitySettings(entry.getValue());
+                }
+            }
+            for (int i = 0; i < abilities.length; i++) {
+                if (abilities[i] == null) {
+                    abilities[i] = AbilitySettings.DEFAULT;
+                }
+            }
+
+            // Emitters missing from an older config file get the variant's defaults as well,
+            // sorted by name so the emission order doesn't depend on map iteration
+            Map<String, ModConfig.ParticleConfig> emitters = new TreeMap<>(new ModConfig.VariantConfig(variant).particles);
+            if (config.particles != null) {
+                for (Map.Entry<String, ModConfig.ParticleConfig> entry : config.particles.entrySet()) {
+                    if (entry.getValue() != null) {
+                        emitters.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            ParticleShape.Trigger[] triggers = ParticleShape.Trigger.values();
+            List<List<ParticleShape>> byTrigger = new ArrayList<>();
+            for (int i = 0; i < triggers.length; i++) {
+                byTrigger.add(new ArrayList<>());
+            }
+            for (Map.Entry<String, ModConfig.ParticleConfig> entry : emitters.entrySet()) {
+                if (entry.getValue().enabled) {
+                    ParticleShape shape = ParticleShape.compile(entry.getKey(), entry.getValue());
+                    byTrigger.get(shape.getTrigger().ordinal()).add(shape);
+                }
+            }
+            this.particles = new ParticleShape[triggers.length][];
+            for (int i = 0; i < triggers.length; i++) {
+                particles[i] = byTrigger.get(i).toArray(new ParticleShape[0]);
+            }
+
+            // Older config files have an empty loot section, those get the variant's defaults as well.
+            // lootRolls 0 turns loot off.
+            Map<String, ModConfig.LootConfig> loot = config.loot != null && !config.loot.isEmpty()
+                ? config.loot : new ModConfig.VariantConfig(variant).loot;
+            this.loot = withLoot ? LootTable.compile(loot, Math.max(0, Math.min(1000, config.lootRolls))) : LootTable.EMPTY;
+        }
+
+        /**
+         * Enabled particle emitters of a trigger, sorted by name. Must not be modified.
+         */
+        public ParticleShape[] particles(ParticleShape.Trigger trigger) {
+            return particles[trigger.ordinal()];
+        }
+
+        /**
+         * Settings for an ability id, abilities missing from the config get the defaults
+         */
+        public AbilitySettings ability(int abilityId) {
+            return abilityId >= 0 && abilityId < abilities.length ? abilities[abilityId] : AbilitySettings.DEFAULT;
+        }
+    }
+
+    public static final class AbilitySettings {
+        static final AbilitySettings DEFAULT = new AbilitySettings(true, DEFAULT_ABILITY_COOLDOWN,
+            DEFAULT_ABILITY_DAMAGE, DEFAULT_ABILITY_RADIUS, 0);
+
+        public final boolean enabled;
+        public final int cooldown; // in ticks
+        public final double damage;
+        public final double radius;
+        public final int minPhase; // 0 uses the ability's own default
+
+        private AbilitySettings(ModConfig.AbilityConfig config) {
+            this(config.enabled, Math.max(0, config.cooldown), config.damage, Math.max(0.0, config.radius),
+                Math.max(0, config.minPhase));
+        }
+
+        private AbilitySettings(boolean enabled, int cooldown, double damage, double radius, int minPhase) {
+            this.enabled = enabled;
+            this.cooldown = cooldown;
+            this.damage = damage;
+            this.radius = radius;
+            this.minPhase = minPhase;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.noctivag.customenderdragon.config;
+
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import net.minecraft.server.MinecraftServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Reloads the config without blocking the server thread.
+ * Parsing and validation run on a background thread, only a validated snapshot is
+ * handed to the server thread where it is published. Optionally watches the config
+ * file and reloads it whenever it changes on disk.
+ */
+public class ConfigReloader {
+    // Editors often write a file in several steps, wait for them to finish
+    private static final long WATCH_DEBOUNCE_MS = 250;
+
+    private final MinecraftServer server;
+    private final ExecutorService executor;
+    private volatile WatchService watchService;
+    private Thread watchThread;
+
+    public ConfigReloader(MinecraftServer server) {
+        this.server = server;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CustomEnderDragon-Config");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Parses the config file in the background. If it is valid it is published on the
+     * server thread, the callback always runs on the server thread with the result.
+     */
+    public void reloadAsync(Consumer<ModConfig.LoadResult> callback) {
+        executor.execute(() -> {
+            ModConfig.LoadResult result = ModConfig.parse(ModConfig.getConfigFile());
+            server.execute(() -> {
+                if (result.isValid()) {
+                    ModConfig.publish(result.getConfig());
+                    CustomEnderDragonMod.updateFightRecorder();
+                }
+                if (callback != null) {
+                    callback.accept(result);
+                }
+            });
+        });
+    }
+
+    /**
+     * Starts watching the config file for changes
+     */
+    public void startWatching() {
+        File configFile = ModConfig.getConfigFile();
+        Path directory = configFile.getAbsoluteFile().getParentFile().toPath();
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            CustomEnderDragonMod.LOGGER.error("Failed to watch config directory {}", directory, e);
+            return;
+        }
+
+        watchThread = new Thread(() -> watchLoop(configFile.getName()), "CustomEnderDragon-ConfigWatcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        CustomEnderDragonMod.LOGGER.info("Watching {} for changes", configFile);
+    }
+
+    private void watchLoop(String fileName) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path path && path.getFileName().toString().equals(fileName)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+
+                if (changed) {
+                    Thread.sleep(WATCH_DEBOUNCE_MS);
+                    drainPendingEvents();
+                    reloadFromWatch();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private void drainPendingEvents() {
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            key.pollEvents();
+            key.reset();
+        }
+    }
+
+    private void reloadFromWatch() {
+        long currentFingerprint = ModConfig.current().fingerprint();
+        reloadAsync(result -> {
+            if (!result.isValid()) {
+                CustomEnderDragonMod.LOGGER.error("Changed config file was rejected, keeping current config:\n  {}",
+                    String.join("\n  ", result.getErrors()));
+            } else if (result.getConfig().fingerprint() != currentFingerprint) {
+                CustomEnderDragonMod.LOGGER.info("Config file changed, configuration reloaded");
+            }
+        });
+    }
+
+    public void shutdown() {
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+        } catch (IOException e) {
+            CustomEnderDragonMod.LOGGER.error("Error closing config watcher", e);
+        }
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        executor.shutdownNow();
+    }
+}
@@ -2,13 +2,27 @@ package com.noctivag.customenderdragon.config;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.abilities.MeteorImpactQueue;
+import com.noctivag.customenderdragon.dragon.DragonPhase;
 import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.utils.BroadcastService;
+import com.noctivag.customenderdragon.utils.LootTable;
+import com.noctivag.customenderdragon.utils.ParticleShape;
 
 import java.io.File;
 import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,7 +30,8 @@ import java.util.Map;
  */
 public class ModConfig {
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    private static Config config;
+    public static final String CONFIG_FILE_NAME = "customenderdragon.json";
+    private static volatile CompiledConfig compiled;
 
     public static class Config {
         public Map<String, VariantConfig> variants = new HashMap<>();
@@ -38,6 +53,7 @@ public class ModConfig {
         public Map<String, AbilityConfig> abilities = new HashMap<>();
         public Map<String, ParticleConfig> particles = new HashMap<>();
         public Map<String, LootConfig> loot = new HashMap<>();
+        public int lootRolls = 8; // weighted picks from the loot entries per kill, 0 drops no loot
 
         public VariantConfig() {}
 
@@ -51,10 +67,63 @@ public class ModConfig {
                 case VOID -> 500.0f;
             };
 
-            // Initialize default abilities
-            abilities.put("fireball", new AbilityConfig(true, 100));
-            abilities.put("fire-aura", new AbilityConfig(true, 60));
-            abilities.put("meteor-shower", new AbilityConfig(true, 200));
+            // Initialize default abilities of the variant
+            switch (variant) {
+                case FIRE -> {
+                    abilities.put("fireball", new AbilityConfig(true, 100));
+                    abilities.put("fire-aura", new AbilityConfig(true, 60));
+                    abilities.put("meteor-shower", new AbilityConfig(true, 200));
+                }
+                case ICE -> {
+                    abilities.put("ice-shard", new AbilityConfig(true, 100));
+                    abilities.put("freeze-aura", new AbilityConfig(true, 100));
+                }
+                case LIGHTNING -> abilities.put("lightning-strike", new AbilityConfig(true, 100));
+                case SHADOW -> abilities.put("shadow-strike", new AbilityConfig(true, 100, 15.0));
+                case VOID -> abilities.put("void-pulse", new AbilityConfig(true, 100, 20.0));
+            }
+
+            // Default effects: an ambient burst above the dragon, wing trails and expanding phase change rings
+            String particleType = switch (variant) {
+                case FIRE -> "FLAME";
+                case ICE -> "SNOWFLAKE";
+                case LIGHTNING -> "ELECTRIC_SPARK";
+                case SHADOW -> "LARGE_SMOKE";
+                case VOID -> "PORTAL";
+            };
+            particles.put("ambient", ParticleConfig.point(particleType, 5, 0.5, 2.0));
+            particles.put("wing-trail", ParticleConfig.trail(particleType, 2, 0.1, 4.0));
+            particles.put("phase-change", ParticleConfig.rings(particleType, 3, 3.0, 2.0, 30, 10, 1.0));
+
+            // Default loot, weights are relative within the variant
+            switch (variant) {
+                case FIRE -> {
+                    loot.put("blaze-rods", LootConfig.of("BLAZE_ROD", 40, "2-6"));
+                    loot.put("magma-cream", LootConfig.of("MAGMA_CREAM", 30, "1-4"));
+                    loot.put("netherite-scrap", LootConfig.of("NETHERITE_SCRAP", 5, "1"));
+                }
+                case ICE -> {
+                    loot.put("blue-ice", LootConfig.of("BLUE_ICE", 40, "4-12"));
+                    loot.put("prismarine-crystals", LootConfig.of("PRISMARINE_CRYSTALS", 30, "2-6"));
+                    loot.put("diamonds", LootConfig.of("DIAMOND", 10, "1-3"));
+                }
+                case LIGHTNING -> {
+                    loot.put("glowstone-dust", LootConfig.of("GLOWSTONE_DUST", 40, "4-10"));
+                    loot.put("copper-ingots", LootConfig.of("COPPER_INGOT", 30, "4-12"));
+                    loot.put("amethyst-shards", LootConfig.of("AMETHYST_SHARD", 20, "2-6"));
+                }
+                case SHADOW -> {
+                    loot.put("ender-pearls", LootConfig.of("ENDER_PEARL", 40, "2-6"));
+                    loot.put("ink-sacs", LootConfig.of("INK_SAC", 30, "2-8"));
+                    loot.put("echo-shards", LootConfig.of("ECHO_SHARD", 10, "1-2"));
+                }
+                case VOID -> {
+                    loot.put("ender-pearls", LootConfig.of("ENDER_PEARL", 30, "2-6"));
+                    loot.put("dragon-breath", LootConfig.of("DRAGON_BREATH", 30, "1-4"));
+                    loot.put("shulker-shells", LootConfig.of("SHULKER_SHELL", 20, "1-2"));
+                    loot.put("nether-star", LootConfig.of("NETHER_STAR", 2, "1"));
+                }
+            }
         }
     }
 
@@ -63,6 +132,7 @@ public class ModConfig {
         public int cooldown; // in ticks
         public double damage = 10.0;
         public double radius = 10.0;
+        public int minPhase = 0; // 0 uses the ability's own default
 
         public AbilityConfig() {}
 
@@ -70,105 +140,505 @@ public class ModConfig {
             this.enabled = enabled;
             this.cooldown = cooldown;
         }
+
+        public AbilityConfig(boolean enabled, int cooldown, double damage) {
+            this(enabled, cooldown);
+            this.damage = damage;
+        }
     }
 
+    /**
+     * A particle emitter, compiled into a ParticleShape when the config loads
+     */
     public static class ParticleConfig {
+        public boolean enabled = true;
         public String type = "FLAME";
-        public int count = 5;
-        public double offset = 0.5;
+        public int count = 5; // particles per point
+        public double offset = 0.5; // random spread around each point
+        public String shape = "POINT"; // POINT, RING, SPIRAL, SPHERE or TRAIL
+        public String trigger = "AMBIENT"; // AMBIENT (every particle update) or PHASE_CHANGE
+        public double radius = 0.0; // ring/spiral/sphere radius, wing span of a TRAIL
+        public double radiusStep = 0.0; // RING: added per ring
+        public int points = 1; // points per ring, spiral or sphere, per wing of a TRAIL
+        public int pointsStep = 0; // RING: added per ring
+        public int layers = 1; // rings of a RING, turns of a SPIRAL
+        public double height = 0.0; // SPIRAL: rise over all turns
+        public double yOffset = 0.0; // blocks above the dragon
+        public boolean nearOnly = false; // fine detail that viewers beyond the LOD distance skip
+
+        public ParticleConfig() {}
+
+        static ParticleConfig point(String type, int count, double offset, double yOffset) {
+            ParticleConfig config = new ParticleConfig();
+            config.type = type;
+            config.count = count;
+            config.offset = offset;
+            config.yOffset = yOffset;
+            return config;
+        }
+
+        static ParticleConfig trail(String type, int count, double offset, double span) {
+            ParticleConfig config = point(type, count, offset, 0.0);
+            config.shape = "TRAIL";
+            config.radius = span;
+            config.nearOnly = true;
+            return config;
+        }
+
+        static ParticleConfig rings(String type, int layers, double radius, double radiusStep, int points,
+                                    int pointsStep, double yOffset) {
+            ParticleConfig config = point(type, 1, 0.0, yOffset);
+            config.shape = "RING";
+            config.trigger = "PHASE_CHANGE";
+            config.layers = layers;
+            config.radius = radius;
+            config.radiusStep = radiusStep;
+            config.points = points;
+            config.pointsStep = pointsStep;
+            return config;
+        }
     }
 
+    /**
+     * A loot entry, compiled into the variant's LootTable when the config loads
+     */
     public static class LootConfig {
-        public String material;
-        public int chance = 100;
-        public String amount = "1";
+        public String material; // item name, BLAZE_ROD or minecraft:blaze_rod
+        public int chance = 100; // weight against the variant's other entries, 0 disables
+        public String amount = "1"; // per pick, a number or a range like 2-5
+
+        public LootConfig() {}
+
+        static LootConfig of(String material, int chance, String amount) {
+            LootConfig config = new LootConfig();
+            config.material = material;
+            config.chance = chance;
+            config.amount = amount;
+            return config;
+        }
     }
 
     public static class GeneralConfig {
         public boolean bossBarEnabled = true;
+        public double bossBarRadius = 96.0; // blocks, players this close to a dragon see its boss bar
+        public double bossBarUpdateStep = 1.0; // percent of health the bar moves in, smaller changes aren't sent
+        public int bossBarCheckInterval = 10; // ticks between updates of who sees a dragon's boss bar
+        public boolean decorationsEnabled = true; // display entity horns, crystal and orbiting shards on dragons
+        public int decorationUpdateInterval = 5; // ticks between decoration updates, clients interpolate in between
+        public int decorationPoolSize = 4; // unused decoration sets kept per variant and world for the next dragon
+        public boolean arenaEnabled = true; // crystal pillars built around newly spawned dragons
+        public int arenaPillars = 6;
+        public int arenaRadius = 24; // blocks from the dragon to the pillars
+        public int arenaPillarHeight = 12;
+        public int arenaBlocksPerTick = 256; // block changes per tick over all arenas being built or removed
+        public String phaseChangeAudience = "RADIUS"; // who is told about phase changes: RADIUS, WORLD or SERVER
+        public String deathAudience = "WORLD"; // who is told about dragon deaths: RADIUS, WORLD or SERVER
+        public double announcementRadius = 128.0; // blocks, reach of RADIUS announcements
+        public int announcementCooldownTicks = 100; // min ticks between phase change announcements of one dragon
+        public int maxAnnouncementsPerTick = 3; // announcements sent per tick over all dragons, the rest is dropped
         public int particleUpdateInterval = 5;
         public int abilityUpdateInterval = 40;
+        public double particleViewDistance = 64.0; // blocks, players further away receive nothing
+        public double particleLodDistance = 32.0; // blocks, players further away get reduced detail
+        public int particleBudgetPerPlayer = 200; // max particles sent to one player per tick
+        public double tickBudgetMillis = 2.0; // time per tick for dragon particles/abilities, the rest is deferred
+        public boolean watchConfigFile = true; // reload automatically when the config file changes
+        public double targetRange = 30.0; // blocks, how far dragons look for a player to attack
+        public double threatHalfLifeSeconds = 10.0; // how fast dragons forget who hurt them, they attack the player with most threat, 0 attacks the closest
+        public String meteorExplosionMode = "VANILLA"; // VANILLA, DAMAGE_ONLY or PATTERN
+        public int maxExplosionsPerTick = 3; // meteor impacts per tick, the rest is deferred
+        public int metricsDumpIntervalSeconds = 300; // how often metrics are written to disk, 0 disables
+        public double dormancyRadius = 128.0; // blocks, dragons with no player this close go dormant, 0 disables
+        public int dormancyCheckInterval = 20; // ticks between checks whether a dragon should sleep or wake
+        public long fightSeed = 0; // mixed into every dragon's random seed, 0 uses the dragon's UUID only
+        public boolean recordFights = false; // write fight inputs to config/customenderdragon-fights.bin for replays
+        public int recordingBufferMegabytes = 16; // size of the recording, the oldest ticks are overwritten
+        public int planningThreads = 0; // worker threads planning targets and effects off the server thread, 0 disables, applied when the server starts; measure with gradle pipelineTest first
     }
 
     public static class MessagesConfig {
         public String prefix = "§5§l[CustomDragon]§r ";
         public String noPermission = "§cYou don't have permission to do that!";
         public String dragonSpawned = "§aSpawned %variant% Dragon at your location!";
-        public String dragonKilled = "§e%variant% Dragon has been slain!";
+        public String dragonKilled = "§e§l%variant% Dragon has been slain!";
+        public String phaseChange = "§6§lThe %variant% Dragon has entered Phase %phase%!";
         public String invalidVariant = "§cInvalid variant! Use: FIRE, ICE, LIGHTNING, SHADOW, VOID";
         public String noDragons = "§cNo custom dragons found!";
     }
 
+    /**
+     * Result of parsing and validating the config file, produced off the server thread
+     */
+    public static class LoadResult {
+        private final CompiledConfig config;
+        private final List<String> errors;
+
+        private LoadResult(CompiledConfig config, List<String> errors) {
+            this.config = config;
+            this.errors = errors;
+        }
+
+        public boolean isValid() {
+            return config != null && errors.isEmpty();
+        }
+
+        public CompiledConfig getConfig() {
+            return config;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    /**
+     * Synchronously loads the config, only used at startup before the server thread exists.
+     * Reloads go through ConfigReloader so they never block a tick.
+     */
     public static void load() {
         try {
-            File configDir = new File("config");
-            if (!configDir.exists()) {
-                configDir.mkdirs();
-            }
-
-            File configFile = new File(configDir, "customenderdragon.json");
-
-            if (configFile.exists()) {
-                try (FileReader reader = new FileReader(configFile)) {
-                    Config loadedConfig = GSON.fromJson(reader, Config.class);
-                    // Validate loaded config
-                    if (loadedConfig != null && loadedConfig.variants != null) {
-                        config = loadedConfig;
-                        CustomEnderDragonMod.LOGGER.info("Configuration loaded successfully");
-                    } else {
-                        CustomEnderDragonMod.LOGGER.warn("Loaded config was invalid, using defaults");
-                        config = new Config();
-                        save();
-                    }
-                } catch (Exception e) {
-                    CustomEnderDragonMod.LOGGER.error("Failed to load config, using defaults", e);
-                    config = new Config();
-                    save();
-                }
+            File configFile = getConfigFile();
+
+            if (!configFile.exists()) {
+                Config defaults = new Config();
+                save(defaults);
+                publish(CompiledConfig.compile(defaults));
+                return;
+            }
+
+            LoadResult result = parse(configFile);
+            if (result.isValid()) {
+                publish(result.getConfig());
+                CustomEnderDragonMod.LOGGER.info("Configuration loaded successfully");
             } else {
-                config = new Config();
-                save();
+                // Keep the broken file on disk so the user can fix it
+                CustomEnderDragonMod.LOGGER.error("Config file is invalid, using defaults:\n  {}",
+                    String.join("\n  ", result.getErrors()));
+                publish(CompiledConfig.compile(new Config()));
             }
         } catch (Exception e) {
             CustomEnderDragonMod.LOGGER.error("Critical error during config load, using defaults", e);
-            config = new Config();
+            publish(CompiledConfig.compile(new Config()));
         }
+    }
 
-        // Final safety check - config must never be null
-        if (config == null) {
-            CustomEnderDragonMod.LOGGER.error("Config was null after load, creating emergency default");
-            config = new Config();
+    /**
+     * Reads, validates and compiles the config file without publishing it.
+     * Safe to call from any thread.
+     */
+    public static LoadResult parse(File configFile) {
+        return parse(configFile, true);
+    }
+
+    /**
+     * Same as {@link #parse(File)}, without loot for tools that run without Minecraft
+     */
+    public static LoadResult parse(File configFile, boolean withLoot) {
+        List<String> errors = new ArrayList<>();
+        Config loadedConfig;
+
+        try (FileReader reader = new FileReader(configFile, StandardCharsets.UTF_8)) {
+            loadedConfig = GSON.fromJson(reader, Config.class);
+        } catch (JsonParseException e) {
+            errors.add("Malformed JSON: " + e.getMessage());
+            return new LoadResult(null, errors);
+        } catch (IOException e) {
+            errors.add("Could not read " + configFile + ": " + e.getMessage());
+            return new LoadResult(null, errors);
+        }
+
+        if (loadedConfig == null || loadedConfig.variants == null) {
+            errors.add("Config is empty or has no 'variants' section");
+            return new LoadResult(null, errors);
+        }
+
+        validate(loadedConfig, errors);
+        if (!errors.isEmpty()) {
+            return new LoadResult(null, errors);
+        }
+
+        try {
+            return new LoadResult(CompiledConfig.compile(loadedConfig, withLoot), errors);
+        } catch (Exception e) {
+            errors.add("Failed to compile config: " + e.getMessage());
+            return new LoadResult(null, errors);
+        }
+    }
+
+    private static void validate(Config config, List<String> errors) {
+        for (Map.Entry<String, VariantConfig> entry : config.variants.entrySet()) {
+            String variantName = entry.getKey();
+            VariantConfig variantConfig = entry.getValue();
+
+            if (DragonVariant.fromString(variantName) == null) {
+                errors.add("variants." + variantName + ": unknown variant");
+            }
+            if (variantConfig == null) {
+                errors.add("variants." + variantName + ": must not be null");
+                continue;
+            }
+            if (variantConfig.health <= 0) {
+                errors.add("variants." + variantName + ".health: must be positive, got " + variantConfig.health);
+            }
+            if (variantConfig.abilities != null) {
+                for (Map.Entry<String, AbilityConfig> ability : variantConfig.abilities.entrySet()) {
+                    String path = "variants." + variantName + ".abilities." + ability.getKey();
+                    if (ability.getValue() == null) {
+                        errors.add(path + ": must not be null");
+                        continue;
+                    }
+                    if (ability.getValue().cooldown < 0) {
+                        errors.add(path + ".cooldown: must not be negative");
+                    }
+                    if (ability.getValue().radius < 0) {
+                        errors.add(path + ".radius: must not be negative");
+                    }
+                    if (ability.getValue().minPhase < 0 || ability.getValue().minPhase > DragonPhase.values().length) {
+                        errors.add(path + ".minPhase: must be between 0 and " + DragonPhase.values().length);
+                    }
+                }
+            }
+            if (variantConfig.particles != null) {
+                for (Map.Entry<String, ParticleConfig> particle : variantConfig.particles.entrySet()) {
+                    String path = "variants." + variantName + ".particles." + particle.getKey();
+                    ParticleConfig emitter = particle.getValue();
+                    if (emitter == null) {
+                        errors.add(path + ": must not be null");
+                        continue;
+                    }
+                    if (emitter.type == null || emitter.type.isBlank()) {
+                        errors.add(path + ".type: must be set");
+                    }
+                    if (ParticleShape.parseKind(emitter.shape) == null) {
+                        errors.add(path + ".shape: must be POINT, RING, SPIRAL, SPHERE or TRAIL, got " + emitter.shape);
+                    }
+                    if (ParticleShape.parseTrigger(emitter.trigger) == null) {
+                        errors.add(path + ".trigger: must be AMBIENT or PHASE_CHANGE, got " + emitter.trigger);
+                    }
+                    if (emitter.count < 1) {
+                        errors.add(path + ".count: must be at least 1");
+                    }
+                    if (emitter.offset < 0 || emitter.radius < 0) {
+                        errors.add(path + ".offset/radius: must not be negative");
+                    }
+                    if (emitter.points < 1 || emitter.layers < 1) {
+                        errors.add(path + ".points/layers: must be at least 1");
+                    }
+                    if (ParticleShape.pointCount(emitter) > ParticleShape.MAX_POINTS) {
+                        errors.add(path + ": more than " + ParticleShape.MAX_POINTS + " points");
+                    }
+                }
+            }
+            if (variantConfig.loot != null) {
+                for (Map.Entry<String, LootConfig> loot : variantConfig.loot.entrySet()) {
+                    String path = "variants." + variantName + ".loot." + loot.getKey();
+                    LootConfig drop = loot.getValue();
+                    if (drop == null) {
+                        errors.add(path + ": must not be null");
+                        continue;
+                    }
+                    if (drop.material == null || drop.material.isBlank()) {
+                        errors.add(path + ".material: must be set");
+                    }
+                    if (drop.chance < 0) {
+                        errors.add(path + ".chance: must not be negative");
+                    }
+                    if (LootTable.parseAmount(drop.amount) == null) {
+                        errors.add(path + ".amount: must be a number or a range like 2-5, got " + drop.amount);
+                    }
+                }
+            }
+            if (variantConfig.lootRolls < 0 || variantConfig.lootRolls > 1000) {
+                errors.add("variants." + variantName + ".lootRolls: must be between 0 and 1000");
+            }
         }
+
+        GeneralConfig general = config.general;
+        if (general != null) {
+            if (general.particleUpdateInterval < 1) {
+                errors.add("general.particleUpdateInterval: must be at least 1");
+            }
+            if (general.abilityUpdateInterval < 1) {
+                errors.add("general.abilityUpdateInterval: must be at least 1");
+            }
+            if (general.particleViewDistance < 0 || general.particleLodDistance < 0) {
+                errors.add("general.particleViewDistance/particleLodDistance: must not be negative");
+            }
+            if (general.particleBudgetPerPlayer < 0) {
+                errors.add("general.particleBudgetPerPlayer: must not be negative");
+            }
+            if (general.targetRange < 0) {
+                errors.add("general.targetRange: must not be negative");
+            }
+            if (general.threatHalfLifeSeconds < 0) {
+                errors.add("general.threatHalfLifeSeconds: must not be negative");
+            }
+            if (parseExplosionMode(general.meteorExplosionMode) == null) {
+                errors.add("general.meteorExplosionMode: must be VANILLA, DAMAGE_ONLY or PATTERN, got "
+                    + general.meteorExplosionMode);
+            }
+            if (general.maxExplosionsPerTick < 1) {
+                errors.add("general.maxExplosionsPerTick: must be at least 1");
+            }
+            if (general.tickBudgetMillis < 0) {
+                errors.add("general.tickBudgetMillis: must not be negative");
+            }
+            if (parseAudience(general.phaseChangeAudience) == null) {
+                errors.add("general.phaseChangeAudience: must be RADIUS, WORLD or SERVER, got "
+                    + general.phaseChangeAudience);
+            }
+            if (parseAudience(general.deathAudience) == null) {
+                errors.add("general.deathAudience: must be RADIUS, WORLD or SERVER, got " + general.deathAudience);
+            }
+            if (general.announcementRadius < 0) {
+                errors.add("general.announcementRadius: must not be negative");
+            }
+            if (general.announcementCooldownTicks < 0) {
+                errors.add("general.announcementCooldownTicks: must not be negative");
+            }
+            if (general.maxAnnouncementsPerTick < 1) {
+                errors.add("general.maxAnnouncementsPerTick: must be at least 1");
+            }
+            if (general.recordingBufferMegabytes < 1 || general.recordingBufferMegabytes > 1024) {
+                errors.add("general.recordingBufferMegabytes: must be between 1 and 1024");
+            }
+            if (general.decorationUpdateInterval < 1 || general.decorationUpdateInterval > 40) {
+                errors.add("general.decorationUpdateInterval: must be between 1 and 40");
+            }
+            if (general.decorationPoolSize < 0) {
+                errors.add("general.decorationPoolSize: must not be negative");
+            }
+            if (general.arenaPillars < 1 || general.arenaPillars > 32) {
+                errors.add("general.arenaPillars: must be between 1 and 32");
+            }
+            if (general.arenaRadius < 2 || general.arenaRadius > 128) {
+                errors.add("general.arenaRadius: must be between 2 and 128");
+            }
+            if (general.arenaPillarHeight < 1 || general.arenaPillarHeight > 64) {
+                errors.add("general.arenaPillarHeight: must be between 1 and 64");
+            }
+            if (general.arenaBlocksPerTick < 1) {
+                errors.add("general.arenaBlocksPerTick: must be at least 1");
+            }
+            if (general.bossBarRadius < 0) {
+                errors.add("general.bossBarRadius: must not be negative");
+            }
+            if (general.bossBarUpdateStep < 0.1 || general.bossBarUpdateStep > 100) {
+                errors.add("general.bossBarUpdateStep: must be between 0.1 and 100");
+            }
+            if (general.bossBarCheckInterval < 1) {
+                errors.add("general.bossBarCheckInterval: must be at least 1");
+            }
+            if (general.dormancyRadius < 0) {
+                errors.add("general.dormancyRadius: must not be negative");
+            }
+            if (general.dormancyCheckInterval < 1) {
+                errors.add("general.dormancyCheckInterval: must be at least 1");
+            }
+            if (general.planningThreads < 0 || general.planningThreads > 16) {
+                errors.add("general.planningThreads: must be between 0 and 16");
+            }
+            if (general.metricsDumpIntervalSeconds < 0) {
+                errors.add("general.metricsDumpIntervalSeconds: must not be negative");
+            }
+        }
+    }
+
+    static MeteorImpactQueue.ExplosionMode parseExplosionMode(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return MeteorImpactQueue.ExplosionMode.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static BroadcastService.Audience parseAudience(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return BroadcastService.Audience.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Makes a compiled config visible to all readers in one step
+     */
+    static void publish(CompiledConfig snapshot) {
+        compiled = snapshot;
     }
 
     public static void save() {
+        save(current().source());
+    }
+
+    /**
+     * Writes the config to a temp file and renames it over the real one,
+     * so a crash mid-write never leaves a truncated config behind
+     */
+    private static void save(Config config) {
         if (config == null) {
             CustomEnderDragonMod.LOGGER.error("Cannot save null config");
             return;
         }
 
         try {
-            File configDir = new File("config");
-            if (!configDir.exists()) {
-                configDir.mkdirs();
-            }
+            File configFile = getConfigFile();
+            Path target = configFile.toPath();
+            Path temp = target.resolveSibling(configFile.getName() + ".tmp");
 
-            File configFile = new File(configDir, "customenderdragon.json");
-
-            try (FileWriter writer = new FileWriter(configFile)) {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
                 GSON.toJson(config, writer);
-                CustomEnderDragonMod.LOGGER.info("Configuration saved successfully");
-            } catch (Exception e) {
-                CustomEnderDragonMod.LOGGER.error("Failed to save config", e);
             }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            CustomEnderDragonMod.LOGGER.info("Configuration saved successfully");
         } catch (Exception e) {
-            CustomEnderDragonMod.LOGGER.error("Critical error during config save", e);
+            CustomEnderDragonMod.LOGGER.error("Failed to save config", e);
+        }
+    }
+
+    public static File getConfigFile() {
+        File configDir = new File("config");
+        if (!configDir.exists()) {
+            configDir.mkdirs();
         }
+        return new File(configDir, CONFIG_FILE_NAME);
     }
 
-    // Getters with null safety
+    /**
+     * Canonical JSON of a config, used to fingerprint snapshots
+     */
+    static String toJson(Config config) {
+        return GSON.toJson(config);
+    }
+
+    /**
+     * Current compiled config snapshot, this is what the tick path should read
+     */
+    public static CompiledConfig current() {
+        CompiledConfig snapshot = compiled;
+        if (snapshot == null) {
+            CustomEnderDragonMod.LOGGER.warn("Config requested before load, using defaults");
+            snapshot = CompiledConfig.compile(new Config());
+            publish(snapshot);
+        }
+        return snapshot;
+    }
+
+    // Getters for the raw JSON model with null safety
     public static VariantConfig getVariantConfig(DragonVariant variant) {
-        if (config == null || config.variants == null) {
+        Config config = getConfig();
+        if (config.variants == null) {
             CustomEnderDragonMod.LOGGER.error("Config not initialized, cannot get variant config");
             return null;
         }
@@ -188,11 +658,14 @@ public class ModConfig {
         return variantConfig.abilities.get(abilityName);
     }
 
+    /**
+     * Cooldown in ticks of an ability for a variant
+     */
+    public static int getAbilityCooldownTicks(DragonVariant variant, int abilityId) {
+        return current().variant(variant).ability(abilityId).cooldown;
+    }
+
     public static Config getConfig() {
-        if (config == null) {
-            CustomEnderDragonMod.LOGGER.warn("Config requested but was null, returning default");
-            config = new Config();
-        }
-        return config;
+        return current().source();
     }
 }
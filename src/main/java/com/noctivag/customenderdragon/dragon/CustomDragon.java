@@ -1,31 +1,54 @@
 package com.noctivag.customenderdragon.dragon;
 
 import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.CompiledConfig;
 import com.noctivag.customenderdragon.config.ModConfig;
+import com.noctivag.customenderdragon.fight.DragonFight;
+import com.noctivag.customenderdragon.fight.FightEntity;
+import com.noctivag.customenderdragon.fight.ThreatTable;
+import com.noctivag.customenderdragon.persistence.DragonPersistentState;
+import com.noctivag.customenderdragon.metrics.PhaseChangeEvent;
+import com.noctivag.customenderdragon.planning.DragonPlan;
+import com.noctivag.customenderdragon.utils.ProximityIndex;
 import com.noctivag.customenderdragon.visuals.CrystalStructureManager;
+import com.noctivag.customenderdragon.visuals.DragonBossBar;
 import com.noctivag.customenderdragon.visuals.DisplayEntityManager;
+import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.boss.dragon.EnderDragonEntity;
 import net.minecraft.entity.attribute.EntityAttributes;
-import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
 import net.minecraft.world.World;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.UUID;
 
 /**
- * Represents a custom EnderDragon with unique abilities and phases
+ * Represents a custom EnderDragon with unique abilities and phases.
+ * Phase, interval and cooldown logic lives in DragonFight, this class connects it
+ * to the entity and triggers the particles, abilities and messages it decides on.
  */
-public class CustomDragon {
+public class CustomDragon implements FightEntity {
+    // Object header plus fields, rounded up
+    private static final long SHALLOW_SIZE_BYTES = 64;
+
     private final EnderDragonEntity dragon;
     private final DragonVariant variant;
-    private DragonPhase currentPhase;
-    private final Map<String, Long> abilityCooldowns;
-    private double maxHealth;
-    private int particleTickCounter = 0;
-    private int abilityTickCounter = 0;
+    private final DragonFight fight;
+    private boolean scheduled = false;
+    private boolean dormant = false;
+    private int dormancyCheckCountdown = 0;
+    private DragonPersistentState persistentState;
+    // Made off-thread from the end of last tick, null if there is none for this tick
+    private DragonPlan plan;
+    // Created on the first tick with boss bars enabled
+    private DragonBossBar bossBar;
+    // World time of the last announcement, for BroadcastService's per-dragon cooldown
+    private long lastAnnouncementTick = Long.MIN_VALUE;
 
     // 3D Visual Decorations
     private DisplayEntityManager.DragonDecorations decorations;
@@ -34,13 +57,49 @@ public class CustomDragon {
     public CustomDragon(EnderDragonEntity dragon, DragonVariant variant) {
         this.dragon = dragon;
         this.variant = variant;
-        this.currentPhase = DragonPhase.PHASE_1;
-        this.abilityCooldowns = new HashMap<>();
+        this.fight = new DragonFight(variant, ModConfig.current().variant(variant).health);
+        fight.setSeed(seedFor(dragon.getUuid()));
 
         setupDragon();
         setup3DVisuals();
     }
 
+    /**
+     * Wraps a dragon entity loaded from disk. Health, attributes and name were saved with
+     * the entity, decorations are recreated and the arena is rebuilt at its saved origin.
+     */
+    CustomDragon(EnderDragonEntity dragon, DragonVariant variant, NbtCompound record) {
+        this.dragon = dragon;
+        this.variant = variant;
+        this.fight = new DragonFight(variant, ModConfig.current().variant(variant).health);
+        // Records from before seeds were saved get the seed a new dragon would
+        fight.setSeed(seedFor(dragon.getUuid()));
+        DragonPersistentState.apply(record, fight);
+
+        try {
+            DisplayEntityManager displayManager = CustomEnderDragonMod.getDisplayEntityManager();
+            if (displayManager != null) {
+                decorations = displayManager.createDragonDecorations(dragon, variant);
+            }
+
+            // Still standing if only the chunk was unloaded, otherwise restored when the server stopped
+            BlockPos arenaOrigin = DragonPersistentState.readArenaOrigin(record);
+            CrystalStructureManager crystalManager = CustomEnderDragonMod.getCrystalStructureManager();
+            if (arenaOrigin != null && crystalManager != null) {
+                arena = crystalManager.createCrystalArena(dragon.getUuid(), arenaOrigin, variant, dragon.getWorld());
+            }
+        } catch (Exception e) {
+            CustomEnderDragonMod.LOGGER.error("Failed to setup 3D visuals for restored dragon", e);
+        }
+    }
+
+    /**
+     * Seed of a dragon's random numbers, from its UUID and the configured fightSeed
+     */
+    private static long seedFor(UUID uuid) {
+        return uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits() ^ ModConfig.current().general().fightSeed;
+    }
+
     /**
      * Sets up 3D visual decorations and arena structures
      */
@@ -55,7 +114,8 @@ public class CustomDragon {
             // Create crystal arena structures
             CrystalStructureManager crystalManager = CustomEnderDragonMod.getCrystalStructureManager();
             if (crystalManager != null && dragon.getBlockPos() != null && dragon.getWorld() != null) {
-                arena = crystalManager.createCrystalArena(dragon.getBlockPos(), variant, dragon.getWorld());
+                arena = crystalManager.createCrystalArena(dragon.getUuid(), dragon.getBlockPos(), variant,
+                    dragon.getWorld());
             }
         } catch (Exception e) {
             CustomEnderDragonMod.LOGGER.error("Failed to setup 3D visuals for dragon", e);
@@ -64,28 +124,18 @@ public class CustomDragon {
 
     private void setupDragon() {
         try {
-            ModConfig.VariantConfig config = ModConfig.getVariantConfig(variant);
-
-            if (config == null) {
-                CustomEnderDragonMod.LOGGER.error("Config is null for variant {}, using defaults", variant.name());
-                this.maxHealth = 200.0;
-                dragon.setHealth((float) this.maxHealth);
-                dragon.setCustomName(Text.literal(variant.getDisplayName() + " Dragon").formatted(Formatting.RED, Formatting.BOLD));
-                dragon.setCustomNameVisible(true);
-                return;
-            }
+            CompiledConfig.VariantSettings config = ModConfig.current().variant(variant);
 
             // Set dragon attributes with null check
             var healthAttribute = dragon.getAttributeInstance(EntityAttributes.GENERIC_MAX_HEALTH);
             if (healthAttribute != null) {
                 healthAttribute.setBaseValue(config.health);
                 dragon.setHealth(config.health);
-                this.maxHealth = config.health;
             } else {
                 CustomEnderDragonMod.LOGGER.error("Could not get health attribute for dragon, using default");
-                this.maxHealth = config.health;
                 dragon.setHealth(config.health);
             }
+            fight.setMaxHealth(config.health);
 
             // Set custom name with color
             Formatting formatting = switch (variant) {
@@ -96,19 +146,19 @@ public class CustomDragon {
                 case VOID -> Formatting.DARK_GRAY;
             };
 
-            String displayName = config.displayName != null ? config.displayName : variant.getDisplayName();
-            dragon.setCustomName(Text.literal(displayName + " Dragon").formatted(formatting, Formatting.BOLD));
+            dragon.setCustomName(Text.literal(config.displayName + " Dragon").formatted(formatting, Formatting.BOLD));
             dragon.setCustomNameVisible(true);
         } catch (Exception e) {
             CustomEnderDragonMod.LOGGER.error("Failed to setup dragon attributes", e);
             // Set minimal defaults
-            this.maxHealth = 200.0;
-            dragon.setHealth((float) this.maxHealth);
+            fight.setMaxHealth(200.0);
+            dragon.setHealth((float) fight.getMaxHealth());
         }
     }
 
     /**
-     * Called every tick to update dragon effects
+     * Called every tick to update dragon state. Only cheap work happens here, particle
+     * and ability work is flagged as due and executed by the DragonTickScheduler.
      */
     public void tick() {
         try {
@@ -116,102 +166,310 @@ public class CustomDragon {
                 return;
             }
 
-            // Update phase based on health
-            updatePhase();
+            CompiledConfig.General general = ModConfig.current().general();
 
-            // Particle effects every 5 ticks
-            particleTickCounter++;
-            if (particleTickCounter >= 5) {
-                var particleManager = CustomEnderDragonMod.getParticleManager();
-                if (particleManager != null) {
-                    particleManager.spawnParticles(dragon, variant);
+            // Update phase based on health and advance the interval counters
+            if (fight.tick(this, general)) {
+                // Phase changes are rare, the event only times the change effects
+                PhaseChangeEvent event = null;
+                if (PhaseChangeEvent.isRecording()) {
+                    event = new PhaseChangeEvent();
+                    event.begin();
                 }
-                particleTickCounter = 0;
-            }
-
-            // Ability execution every 2 seconds (40 ticks)
-            abilityTickCounter++;
-            if (abilityTickCounter >= 40) {
-                var abilityManager = CustomEnderDragonMod.getAbilityManager();
-                if (abilityManager != null) {
-                    abilityManager.executeAbilities(this);
+                onPhaseChange();
+                if (event != null && event.shouldCommit()) {
+                    event.tag(getUUID(), variant, fight.getPhase());
+                    event.previousPhase = fight.getPreviousPhase().getPhaseNumber();
+                    event.healthPercent = fight.getHealthPercent(dragon.getHealth());
+                    event.commit();
                 }
-                abilityTickCounter = 0;
             }
 
             // Update decorations
             if (decorations != null) {
                 decorations.update(dragon);
             }
+
+            updateBossBar(general);
         } catch (Exception e) {
             CustomEnderDragonMod.LOGGER.error("Error during dragon tick", e);
         }
     }
 
-    private void updatePhase() {
-        try {
-            if (maxHealth <= 0) {
-                maxHealth = 200.0; // Prevent division by zero
+    private void updateBossBar(CompiledConfig.General general) {
+        if (!general.bossBarEnabled) {
+            // Turned off by a config reload
+            hideBossBar();
+            return;
+        }
+        if (bossBar == null) {
+            bossBar = new DragonBossBar(dragon, variant, Math.floorMod(dragon.getId(), general.bossBarCheckInterval));
+        }
+        bossBar.tick(dragon, general);
+    }
+
+    /**
+     * Hides the boss bar and gives the decorations back for reuse, for dragons whose
+     * entity is already gone
+     */
+    void releaseVisuals() {
+        hideBossBar();
+        if (decorations != null) {
+            decorations.remove();
+            decorations = null;
+        }
+    }
+
+    /**
+     * Removes the boss bar from every player, a new one is made if the dragon ticks again
+     */
+    private void hideBossBar() {
+        if (bossBar != null) {
+            bossBar.clearViewers();
+            bossBar = null;
+        }
+    }
+
+    public boolean hasPendingWork() {
+        return fight.hasPendingWork();
+    }
+
+    /**
+     * Puts the dragon to sleep when no player is within the dormancy radius and wakes it
+     * when one comes close. The player check only runs every dormancyCheckInterval ticks,
+     * in between the last result is kept. Returns true while the dragon is dormant.
+     */
+    boolean updateDormancy(CompiledConfig.General general) {
+        if (general.dormancyRadius <= 0) {
+            dormant = false;
+            return false;
+        }
+        if (--dormancyCheckCountdown > 0) {
+            return dormant;
+        }
+        dormancyCheckCountdown = general.dormancyCheckInterval;
+
+        boolean playersNear = hasPlayerWithin(general.dormancyRadius);
+        if (!playersNear && !dormant) {
+            // Work flagged before falling asleep is dropped, not run late
+            fight.clearPendingWork();
+            if (bossBar != null) {
+                bossBar.clearViewers();
             }
-            double healthPercent = (dragon.getHealth() / maxHealth) * 100;
-            DragonPhase newPhase = DragonPhase.fromHealthPercent(healthPercent);
+        }
+        dormant = !playersNear;
+        return dormant;
+    }
 
-            if (newPhase != currentPhase) {
-                currentPhase = newPhase;
-                onPhaseChange();
+    private boolean hasPlayerWithin(double radius) {
+        World world = dragon.getWorld();
+        if (world == null) {
+            return false;
+        }
+        double radiusSq = radius * radius;
+        var players = world.getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            var player = players.get(i);
+            if (!player.isSpectator() && player.squaredDistanceTo(dragon) <= radiusSq) {
+                return true;
             }
-        } catch (Exception e) {
-            CustomEnderDragonMod.LOGGER.error("Error updating dragon phase", e);
         }
+        return false;
+    }
+
+    public boolean isDormant() {
+        return dormant;
+    }
+
+    /**
+     * Runs the particle and ability work flagged as due by tick()
+     */
+    public void runPendingWork() {
+        if (dragon == null || dragon.isDead() || dragon.isRemoved()) {
+            fight.clearPendingWork();
+            return;
+        }
+
+        if (fight.takeParticlesDue()) {
+            var particleManager = CustomEnderDragonMod.getParticleManager();
+            if (particleManager != null) {
+                particleManager.spawnParticles(dragon, variant, fight.getPhase(), getPlan());
+            }
+        }
+
+        if (fight.takeAbilitiesDue()) {
+            var abilityManager = CustomEnderDragonMod.getAbilityManager();
+            if (abilityManager != null) {
+                abilityManager.executeAbilities(this);
+            }
+        }
+    }
+
+    /**
+     * Plan for the current tick, null if none was made or it is out of date
+     */
+    public DragonPlan getPlan() {
+        return plan != null && plan.isCurrent(dragon.getWorld().getTime()) ? plan : null;
+    }
+
+    void setPlan(DragonPlan plan) {
+        this.plan = plan;
+    }
+
+    /**
+     * Adds threat for damage a player dealt to this dragon
+     */
+    public void addThreat(PlayerEntity attacker, float amount) {
+        fight.getThreat().add(attacker.getId(), amount, dragon.getWorld().getTime(),
+            ModConfig.current().general().threatHalfLifeTicks);
+    }
+
+    /**
+     * Player to attack within range: whoever has the most threat while they are in range,
+     * otherwise the closest player. The planned target is used for that if it is still
+     * alive, attackable and in range, without a plan the world's proximity index is asked.
+     */
+    public PlayerEntity findTarget(double range) {
+        World world = dragon.getWorld();
+        ThreatTable threat = fight.getThreat();
+        int attackerId;
+        while ((attackerId = threat.getTop(world.getTime())) >= 0) {
+            if (world.getEntityById(attackerId) instanceof PlayerEntity player && player.isAlive()
+                && !player.isSpectator()) {
+                if (player.squaredDistanceTo(dragon) <= range * range) {
+                    return player;
+                }
+                break;
+            }
+            // Died, left or is spectating, their threat is gone
+            threat.remove(attackerId);
+        }
+
+        DragonPlan current = getPlan();
+        if (current != null) {
+            if (current.getTargetId() < 0) {
+                return null;
+            }
+            if (world.getEntityById(current.getTargetId()) instanceof PlayerEntity player && player.isAlive()
+                && !player.isSpectator() && player.squaredDistanceTo(dragon) <= range * range) {
+                return player;
+            }
+        }
+        ProximityIndex index = CustomEnderDragonMod.getDragonManager().getProximityIndex(world);
+        return index != null ? index.getClosestPlayer(dragon, range) : null;
+    }
+
+    /**
+     * Collects living entities other than the dragon whose bounding box intersects the
+     * dragon's bounding box expanded by the radius, from the plan when it covers the radius
+     */
+    public void collectLivingAround(double radius, List<LivingEntity> out) {
+        World world = dragon.getWorld();
+        DragonPlan current = getPlan();
+        if (current != null && radius <= current.getNearbyRadius()) {
+            out.clear();
+            Box area = dragon.getBoundingBox().expand(radius);
+            for (int id : current.getNearbyIds()) {
+                if (world.getEntityById(id) instanceof LivingEntity living && living.isAlive()
+                    && living.getBoundingBox().intersects(area)) {
+                    out.add(living);
+                }
+            }
+            return;
+        }
+        ProximityIndex index = CustomEnderDragonMod.getDragonManager().getProximityIndex(world);
+        if (index != null) {
+            index.collectLivingAround(dragon, radius, out);
+        } else {
+            out.clear();
+        }
+    }
+
+    /**
+     * Shifts the interval counters so this dragon's work lands on different ticks
+     * than dragons spawned at the same time
+     */
+    void setTickOffset(int offset) {
+        CompiledConfig.General general = ModConfig.current().general();
+        fight.setTickOffset(offset, general);
+        this.dormancyCheckCountdown = Math.floorMod(offset, general.dormancyCheckInterval);
+    }
+
+    boolean isScheduled() {
+        return scheduled;
+    }
+
+    void setScheduled(boolean scheduled) {
+        this.scheduled = scheduled;
+    }
+
+    /**
+     * World time of this dragon's last chat announcement, Long.MIN_VALUE if it made none
+     */
+    public long getLastAnnouncementTick() {
+        return lastAnnouncementTick;
+    }
+
+    public void setLastAnnouncementTick(long tick) {
+        this.lastAnnouncementTick = tick;
+    }
+
+    DragonPersistentState getPersistentState() {
+        return persistentState;
+    }
+
+    void setPersistentState(DragonPersistentState persistentState) {
+        this.persistentState = persistentState;
     }
 
     private void onPhaseChange() {
         try {
             var particleManager = CustomEnderDragonMod.getParticleManager();
             if (particleManager != null) {
-                particleManager.spawnPhaseChangeEffect(dragon, variant, currentPhase);
+                particleManager.spawnPhaseChangeEffect(dragon, variant, fight.getPhase());
             }
 
-            // Broadcast phase change
-            World world = dragon.getWorld();
-            if (world != null && !world.isClient) {
-                Text message = Text.literal("The " + variant.getDisplayName() + " Dragon has entered Phase " +
-                    currentPhase.getPhaseNumber() + "!").formatted(Formatting.GOLD, Formatting.BOLD);
-
-                world.getPlayers().forEach(player -> {
-                    if (player instanceof ServerPlayerEntity serverPlayer) {
-                        serverPlayer.sendMessage(message, false);
-                    }
-                });
+            var broadcastService = CustomEnderDragonMod.getBroadcastService();
+            if (broadcastService != null) {
+                broadcastService.announcePhaseChange(this);
             }
         } catch (Exception e) {
             CustomEnderDragonMod.LOGGER.error("Error during phase change", e);
         }
     }
 
-    public boolean isAbilityOnCooldown(String abilityName) {
-        Long lastUsed = abilityCooldowns.get(abilityName);
-        if (lastUsed == null) {
-            return false;
-        }
+    /**
+     * Checks an ability cooldown by id (see AbilityIds), measured in server ticks
+     */
+    public boolean isAbilityOnCooldown(int abilityId) {
+        return fight.isAbilityOnCooldown(abilityId, dragon.getWorld().getTime());
+    }
 
-        ModConfig.AbilityConfig abilityConfig = ModConfig.getAbilityConfig(variant, abilityName);
-        long cooldown = abilityConfig != null ? abilityConfig.cooldown : 100;
-        
-        return (System.currentTimeMillis() - lastUsed) < (cooldown * 50); // Convert ticks to ms
+    public void setAbilityCooldown(int abilityId) {
+        fight.triggerCooldown(abilityId, dragon.getWorld().getTime(),
+            ModConfig.getAbilityCooldownTicks(variant, abilityId));
     }
 
-    public void setAbilityCooldown(String abilityName) {
-        abilityCooldowns.put(abilityName, System.currentTimeMillis());
+    /**
+     * Approximate heap the mod keeps for this dragon, not counting the entity itself
+     */
+    public long estimateMemoryBytes() {
+        return SHALLOW_SIZE_BYTES + fight.estimateMemoryBytes();
     }
 
-    public void remove() {
-        if (decorations != null) {
-            decorations.remove();
-        }
+    /**
+     * Starts restoring the terrain under the arena, for dragons that are gone for good
+     */
+    void removeArena() {
         if (arena != null) {
             arena.remove();
+            arena = null;
         }
+    }
+
+    public void remove() {
+        releaseVisuals();
+        removeArena();
         dragon.remove(EnderDragonEntity.RemovalReason.DISCARDED);
     }
 
@@ -225,10 +483,62 @@ public class CustomDragon {
     }
 
     public DragonPhase getCurrentPhase() {
-        return currentPhase;
+        return fight.getPhase();
+    }
+
+    public DragonFight getFight() {
+        return fight;
     }
 
     public UUID getUUID() {
         return dragon.getUuid();
     }
+
+    /**
+     * Where the dragon's arena is centered, null if it has none
+     */
+    public BlockPos getArenaOrigin() {
+        return arena != null ? arena.getOrigin() : null;
+    }
+
+    // FightEntity view of the dragon entity
+    @Override
+    public int getId() {
+        return dragon.getId();
+    }
+
+    @Override
+    public double getX() {
+        return dragon.getX();
+    }
+
+    @Override
+    public double getY() {
+        return dragon.getY();
+    }
+
+    @Override
+    public double getZ() {
+        return dragon.getZ();
+    }
+
+    @Override
+    public double getVelocityX() {
+        return dragon.getVelocity().x;
+    }
+
+    @Override
+    public double getVelocityZ() {
+        return dragon.getVelocity().z;
+    }
+
+    @Override
+    public float getHealth() {
+        return dragon.getHealth();
+    }
+
+    @Override
+    public boolean isAlive() {
+        return !dragon.isDead() && !dragon.isRemoved();
+    }
 }
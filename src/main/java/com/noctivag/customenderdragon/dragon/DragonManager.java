@@ -1,20 +1,36 @@
 package com.noctivag.customenderdragon.dragon;
 
 import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ModConfig;
+import com.noctivag.customenderdragon.metrics.FightRecorder;
+import com.noctivag.customenderdragon.persistence.DragonPersistentState;
+import com.noctivag.customenderdragon.utils.ProximityIndex;
 import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Manages all active custom dragons
+ *
+ * Dragons are kept in one WorldDragonRegistry per world, each ticked from that world's
+ * END_WORLD_TICK. The particle/ability time budget is shared by all worlds of a server tick.
  */
 public class DragonManager {
-    private final Map<UUID, CustomDragon> activeDragons;
+    private final Map<World, WorldDragonRegistry> registries;
+    private long budgetUsedNanos = 0;
 
     public DragonManager() {
-        this.activeDragons = new HashMap<>();
+        this.registries = new IdentityHashMap<>();
+    }
+
+    private WorldDragonRegistry getOrCreateRegistry(ServerWorld world) {
+        return registries.computeIfAbsent(world, w -> new WorldDragonRegistry(world));
     }
 
     public CustomDragon spawnDragon(ServerWorld world, BlockPos pos, DragonVariant variant) {
@@ -30,7 +46,9 @@ public class DragonManager {
             world.spawnEntity(dragon);
 
             CustomDragon customDragon = new CustomDragon(dragon, variant);
-            activeDragons.put(dragon.getUuid(), customDragon);
+            WorldDragonRegistry registry = getOrCreateRegistry(world);
+            registry.add(customDragon);
+            registry.getPersistentState().markDragonDirty(customDragon);
 
             CustomEnderDragonMod.LOGGER.info("Spawned {} dragon at {}", variant.name(), pos);
             return customDragon;
@@ -40,14 +58,58 @@ public class DragonManager {
         }
     }
 
+    /**
+     * Turns a dragon entity that was loaded from disk back into a custom dragon if the
+     * world has a saved record for it. Called from ENTITY_LOAD, so dragons are restored
+     * as their chunks load rather than all at startup.
+     */
+    public CustomDragon restoreDragon(EnderDragonEntity dragon, ServerWorld world) {
+        try {
+            if (dragon == null || world == null) {
+                return null;
+            }
+
+            // Worlds never get a registry for plain vanilla dragons
+            DragonPersistentState state = DragonPersistentState.get(world);
+            NbtCompound record = state.getRecord(dragon.getUuid());
+            if (record == null) {
+                return null;
+            }
+
+            WorldDragonRegistry registry = getOrCreateRegistry(world);
+            if (registry.contains(dragon.getUuid())) {
+                return null;
+            }
+
+            DragonVariant variant = DragonPersistentState.readVariant(record);
+            if (variant == null) {
+                CustomEnderDragonMod.LOGGER.warn("Dropping saved dragon {} with unknown variant", dragon.getUuid());
+                state.forget(dragon.getUuid());
+                return null;
+            }
+
+            CustomDragon customDragon = new CustomDragon(dragon, variant, record);
+            registry.add(customDragon);
+
+            CustomEnderDragonMod.LOGGER.debug("Restored {} dragon {}", variant.name(), dragon.getUuid());
+            return customDragon;
+        } catch (Exception e) {
+            CustomEnderDragonMod.LOGGER.error("Failed to restore dragon", e);
+            return null;
+        }
+    }
+
     public void removeDragon(UUID uuid) {
         try {
             if (uuid == null) {
                 return;
             }
-            CustomDragon dragon = activeDragons.remove(uuid);
-            if (dragon != null) {
-                dragon.remove();
+            for (WorldDragonRegistry registry : registries.values()) {
+                CustomDragon dragon = registry.remove(uuid);
+                if (dragon != null) {
+                    dragon.remove();
+                    return;
+                }
             }
         } catch (Exception e) {
             CustomEnderDragonMod.LOGGER.error("Error removing dragon", e);
@@ -58,7 +120,13 @@ public class DragonManager {
         if (uuid == null) {
             return null;
         }
-        return activeDragons.get(uuid);
+        for (WorldDragonRegistry registry : registries.values()) {
+            CustomDragon dragon = registry.get(uuid);
+            if (dragon != null) {
+                return dragon;
+            }
+        }
+        return null;
     }
 
     public CustomDragon getCustomDragon(EnderDragonEntity dragon) {
@@ -66,28 +134,44 @@ public class DragonManager {
             return null;
         }
         try {
-            return activeDragons.get(dragon.getUuid());
+            WorldDragonRegistry registry = registries.get(dragon.getWorld());
+            return registry != null ? registry.get(dragon.getUuid()) : null;
         } catch (Exception e) {
             CustomEnderDragonMod.LOGGER.error("Error getting custom dragon", e);
             return null;
         }
     }
 
+    /**
+     * Copy of all dragons across worlds, meant for commands. The tick path uses the
+     * per-world registries directly.
+     */
     public Collection<CustomDragon> getAllDragons() {
-        return new ArrayList<>(activeDragons.values());
+        List<CustomDragon> dragons = new ArrayList<>(getDragonCount());
+        forEachDragon(dragons::add);
+        return dragons;
+    }
+
+    public void forEachDragon(Consumer<CustomDragon> action) {
+        for (WorldDragonRegistry registry : registries.values()) {
+            registry.getDragons().forEach(action);
+        }
+    }
+
+    public int getDragonCount() {
+        int count = 0;
+        for (WorldDragonRegistry registry : registries.values()) {
+            count += registry.size();
+        }
+        return count;
     }
 
     public int removeAllDragons() {
         try {
-            int count = activeDragons.size();
-            activeDragons.values().forEach(dragon -> {
-                try {
-                    dragon.remove();
-                } catch (Exception e) {
-                    CustomEnderDragonMod.LOGGER.error("Error removing dragon during cleanup", e);
-                }
-            });
-            activeDragons.clear();
+            int count = 0;
+            for (WorldDragonRegistry registry : registries.values()) {
+                count += registry.removeAll();
+            }
             return count;
         } catch (Exception e) {
             CustomEnderDragonMod.LOGGER.error("Error during removeAllDragons", e);
@@ -100,7 +184,8 @@ public class DragonManager {
             return false;
         }
         try {
-            return activeDragons.containsKey(dragon.getUuid());
+            WorldDragonRegistry registry = registries.get(dragon.getWorld());
+            return registry != null && registry.contains(dragon.getUuid());
         } catch (Exception e) {
             CustomEnderDragonMod.LOGGER.error("Error checking if dragon is custom", e);
             return false;
@@ -108,43 +193,81 @@ public class DragonManager {
     }
 
     /**
-     * Called every tick to update all dragons
+     * Called at the start of every server tick, resets the shared work budget
      */
-    public void tick() {
-        try {
-            // Remove dead dragons with safety checks
-            activeDragons.entrySet().removeIf(entry -> {
-                try {
-                    CustomDragon dragon = entry.getValue();
-                    if (dragon == null || dragon.getDragon() == null) {
-                        return true; // Remove null entries
-                    }
-                    EnderDragonEntity dragonEntity = dragon.getDragon();
-                    return dragonEntity.isDead() || dragonEntity.isRemoved();
-                } catch (Exception e) {
-                    CustomEnderDragonMod.LOGGER.error("Error checking dragon state, removing from list", e);
-                    return true; // Remove problematic entries
-                }
-            });
-
-            // Tick all active dragons with individual error handling
-            activeDragons.values().forEach(dragon -> {
-                try {
-                    if (dragon != null) {
-                        dragon.tick();
-                    }
-                } catch (Exception e) {
-                    CustomEnderDragonMod.LOGGER.error("Error during dragon tick", e);
-                }
-            });
-        } catch (Exception e) {
-            CustomEnderDragonMod.LOGGER.error("Critical error during dragon manager tick", e);
+    public void beginServerTick() {
+        budgetUsedNanos = 0;
+    }
+
+    /**
+     * Called from END_WORLD_TICK to update the dragons of that world
+     */
+    public void tickWorld(ServerWorld world) {
+        WorldDragonRegistry registry = registries.get(world);
+        if (registry == null) {
+            return;
         }
+        if (registry.size() == 0) {
+            // Dragons are removed as they die, their killing blow is recorded here
+            FightRecorder recorder = CustomEnderDragonMod.getFightRecorder();
+            if (recorder != null) {
+                recorder.flushWorld(world, ModConfig.current().fingerprint());
+            }
+            return;
+        }
+
+        CompiledConfig config = ModConfig.current();
+        long budgetNanos = (long) (config.general().tickBudgetMillis * 1_000_000L);
+        budgetUsedNanos += registry.tick(config, Math.max(0L, budgetNanos - budgetUsedNanos),
+            CustomEnderDragonMod.getMetrics(), CustomEnderDragonMod.getPlanningPipeline());
     }
 
+    /**
+     * Proximity index of a world's dragons, rebuilt lazily during that world's tick
+     */
+    public ProximityIndex getProximityIndex(World world) {
+        WorldDragonRegistry registry = registries.get(world);
+        return registry != null ? registry.getProximityIndex() : null;
+    }
+
+    public Collection<WorldDragonRegistry> getRegistries() {
+        return Collections.unmodifiableCollection(registries.values());
+    }
+
+    public int getDormantCount() {
+        int count = 0;
+        for (WorldDragonRegistry registry : registries.values()) {
+            count += registry.getDormantCount();
+        }
+        return count;
+    }
+
+    public long getScheduledExecutedTotal() {
+        long total = 0;
+        for (WorldDragonRegistry registry : registries.values()) {
+            total += registry.getScheduler().getExecutedTotal();
+        }
+        return total;
+    }
+
+    public long getScheduledDeferredTotal() {
+        long total = 0;
+        for (WorldDragonRegistry registry : registries.values()) {
+            total += registry.getScheduler().getDeferredTotal();
+        }
+        return total;
+    }
+
+    /**
+     * Forgets every world once the server stopped. Dragons stay saved with their worlds and
+     * are restored as their chunks load, also when an integrated server opens a world again.
+     */
     public void shutdown() {
         try {
-            removeAllDragons();
+            for (WorldDragonRegistry registry : registries.values()) {
+                registry.close();
+            }
+            registries.clear();
         } catch (Exception e) {
             CustomEnderDragonMod.LOGGER.error("Error during shutdown", e);
         }
@@ -8,6 +8,9 @@ public enum DragonPhase {
     PHASE_2(2, 66, 34),
     PHASE_3(3, 33, 0);
 
+    // values() clones the array on every call, this runs every tick for every dragon
+    private static final DragonPhase[] PHASES = values();
+
     private final int phaseNumber;
     private final double healthPercentStart;
     private final double healthPercentEnd;
@@ -31,7 +34,7 @@ public enum DragonPhase {
     }
 
     public static DragonPhase fromHealthPercent(double healthPercent) {
-        for (DragonPhase phase : values()) {
+        for (DragonPhase phase : PHASES) {
             if (healthPercent <= phase.healthPercentStart && healthPercent > phase.healthPercentEnd) {
                 return phase;
             }
@@ -0,0 +1,98 @@
+package com.noctivag.customenderdragon.dragon;
+
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.metrics.ModMetrics;
+
+import java.util.ArrayDeque;
+
+/**
+ * Spreads the expensive per-dragon work (particles, abilities) across ticks.
+ * Every dragon gets its own phase offset so dragons spawned together don't share
+ * their interval ticks, and the work that is due runs under a per-tick time budget.
+ * Whatever doesn't fit is deferred and runs first on the next tick.
+ */
+public class DragonTickScheduler {
+    private final ArrayDeque<CustomDragon> pending = new ArrayDeque<>();
+    private int nextOffset = 0;
+
+    private long executedTotal = 0;
+    private long deferredTotal = 0;
+    private int lastDeferred = 0;
+
+    /**
+     * Gives a newly registered dragon the next phase offset
+     */
+    public void assignOffset(CustomDragon dragon) {
+        dragon.setTickOffset(nextOffset++);
+    }
+
+    /**
+     * Queues a dragon whose interval work is due, at most once
+     */
+    public void schedule(CustomDragon dragon) {
+        if (!dragon.isScheduled()) {
+            dragon.setScheduled(true);
+            pending.addLast(dragon);
+        }
+    }
+
+    public void unschedule(CustomDragon dragon) {
+        if (dragon.isScheduled()) {
+            pending.remove(dragon);
+            dragon.setScheduled(false);
+        }
+    }
+
+    /**
+     * Runs queued work until the given budget is spent and returns the time used.
+     * At least one dragon always runs so a single slow dragon can't starve forever.
+     */
+    public long run(long budgetNanos) {
+        ModMetrics metrics = CustomEnderDragonMod.getMetrics();
+        long start = System.nanoTime();
+        int executed = 0;
+
+        while (!pending.isEmpty()) {
+            if (executed > 0 && System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+
+            CustomDragon dragon = pending.pollFirst();
+            dragon.setScheduled(false);
+            long workStart = System.nanoTime();
+            try {
+                dragon.runPendingWork();
+            } catch (Exception e) {
+                CustomEnderDragonMod.LOGGER.error("Error during scheduled dragon work", e);
+            }
+            if (metrics != null) {
+                metrics.recordDragonWork(System.nanoTime() - workStart);
+            }
+            executed++;
+        }
+
+        executedTotal += executed;
+        lastDeferred = pending.size();
+        deferredTotal += lastDeferred;
+        return System.nanoTime() - start;
+    }
+
+    public void clear() {
+        for (CustomDragon dragon : pending) {
+            dragon.setScheduled(false);
+        }
+        pending.clear();
+    }
+
+    public long getExecutedTotal() {
+        return executedTotal;
+    }
+
+    public long getDeferredTotal() {
+        return deferredTotal;
+    }
+
+    public int getLastDeferred() {
+        return lastDeferred;
+    }
+}
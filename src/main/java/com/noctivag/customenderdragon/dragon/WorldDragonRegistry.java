@@ -0,0 +1,388 @@
+package com.noctivag.customenderdragon.dragon;
+
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.abilities.AbilityManager;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.metrics.DragonManagerTickEvent;
+import com.noctivag.customenderdragon.metrics.DragonTickEvent;
+import com.noctivag.customenderdragon.metrics.FightRecorder;
+import com.noctivag.customenderdragon.metrics.ModMetrics;
+import com.noctivag.customenderdragon.persistence.DragonPersistentState;
+import com.noctivag.customenderdragon.planning.FightSnapshot;
+import com.noctivag.customenderdragon.planning.PlanBatch;
+import com.noctivag.customenderdragon.planning.PlanningPipeline;
+import com.noctivag.customenderdragon.utils.ProximityIndex;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * The custom dragons of one world with their scheduler and proximity index.
+ * Ticked from END_WORLD_TICK of its world, so the entity data it indexes is only
+ * ever that world's and worlds without dragons do no work at all.
+ */
+public class WorldDragonRegistry {
+    private final ServerWorld world;
+    private final DragonPersistentState persistentState;
+    private final Map<UUID, CustomDragon> dragons = new HashMap<>();
+    // Same dragons as the map, iterated by index on the tick path instead of through a map iterator
+    private final List<CustomDragon> dragonList = new ArrayList<>();
+    private final List<CustomDragon> dragonsView = Collections.unmodifiableList(dragonList);
+    private final DragonTickScheduler scheduler = new DragonTickScheduler();
+    private final ProximityIndex proximityIndex;
+    private int dormantCount = 0;
+
+    // Dragons of the snapshot submitted at the end of the last tick, in snapshot order
+    private final List<CustomDragon> plannedDragons = new ArrayList<>();
+    private CompletableFuture<PlanBatch> pendingPlans;
+    // Reused while its last snapshot's plans were picked up, replaced when workers may still read it
+    private FightSnapshot.Builder snapshotBuilder = new FightSnapshot.Builder();
+    private final Consumer<LivingEntity> snapshotEntity = this::addSnapshotEntity;
+
+    WorldDragonRegistry(ServerWorld world) {
+        this.world = world;
+        this.persistentState = DragonPersistentState.get(world);
+        this.proximityIndex = new ProximityIndex(world);
+    }
+
+    void add(CustomDragon dragon) {
+        scheduler.assignOffset(dragon);
+        dragon.setPersistentState(persistentState);
+        CustomDragon previous = dragons.put(dragon.getUUID(), dragon);
+        if (previous != null) {
+            dragonList.remove(previous);
+        }
+        dragonList.add(dragon);
+    }
+
+    /**
+     * Removes a dragon from the registry, its saved record is dropped as well
+     */
+    CustomDragon remove(UUID uuid) {
+        CustomDragon dragon = dragons.remove(uuid);
+        if (dragon != null) {
+            dragonList.remove(dragon);
+            scheduler.unschedule(dragon);
+            dragon.setPlan(null);
+            persistentState.forget(uuid);
+        }
+        return dragon;
+    }
+
+    CustomDragon get(UUID uuid) {
+        return dragons.get(uuid);
+    }
+
+    boolean contains(UUID uuid) {
+        return dragons.containsKey(uuid);
+    }
+
+    /**
+     * Read-only live view of the dragons, no copy
+     */
+    public Collection<CustomDragon> getDragons() {
+        return dragonsView;
+    }
+
+    public int size() {
+        return dragons.size();
+    }
+
+    public ServerWorld getWorld() {
+        return world;
+    }
+
+    public DragonPersistentState getPersistentState() {
+        return persistentState;
+    }
+
+    public DragonTickScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public ProximityIndex getProximityIndex() {
+        return proximityIndex;
+    }
+
+    public int getDormantCount() {
+        return dormantCount;
+    }
+
+    /**
+     * Ticks every dragon of this world and runs their due work within the given budget.
+     * Returns the time spent on scheduled work.
+     */
+    long tick(CompiledConfig config, long budgetNanos, ModMetrics metrics, PlanningPipeline pipeline) {
+        if (dragons.isEmpty()) {
+            return 0L;
+        }
+
+        long tickStart = System.nanoTime();
+        DragonManagerTickEvent tickEvent = null;
+        if (DragonManagerTickEvent.isRecording()) {
+            tickEvent = new DragonManagerTickEvent();
+            tickEvent.begin();
+        }
+        boolean recordDragonTicks = DragonTickEvent.isRecording();
+        long workNanos = 0L;
+        try {
+            removeGoneDragons();
+            long handoffStart = System.nanoTime();
+            applyPlans(metrics);
+            long handoffNanos = System.nanoTime() - handoffStart;
+
+            // Entities around dragons are indexed on first use this tick
+            proximityIndex.invalidate(dragonsView, config.proximityRadius());
+
+            // Tick all awake dragons with individual error handling, queueing due work
+            int dormant = 0;
+            for (int i = 0; i < dragonList.size(); i++) {
+                CustomDragon dragon = dragonList.get(i);
+                try {
+                    if (dragon.updateDormancy(config.general())) {
+                        dormant++;
+                        continue;
+                    }
+
+                    DragonTickEvent dragonEvent = null;
+                    if (recordDragonTicks) {
+                        dragonEvent = new DragonTickEvent();
+                        dragonEvent.begin();
+                    }
+                    long dragonStart = System.nanoTime();
+                    dragon.tick();
+                    if (metrics != null) {
+                        metrics.recordDragonTick(System.nanoTime() - dragonStart);
+                    }
+                    if (dragon.getFight().isDirty()) {
+                        dragon.getFight().clearDirty();
+                        persistentState.markDragonDirty(dragon);
+                    }
+                    if (dragonEvent != null && dragonEvent.shouldCommit()) {
+                        dragonEvent.tag(dragon.getUUID(), dragon.getVariant(), dragon.getCurrentPhase());
+                        dragonEvent.commit();
+                    }
+                    if (dragon.hasPendingWork()) {
+                        scheduler.schedule(dragon);
+                    }
+                } catch (Exception e) {
+                    CustomEnderDragonMod.LOGGER.error("Error during dragon tick", e);
+                }
+            }
+            dormantCount = dormant;
+
+            // Run particle/ability work within what is left of the tick budget
+            workNanos = scheduler.run(budgetNanos);
+
+            // Snapshot for the planner threads to work on until the next tick
+            handoffStart = System.nanoTime();
+            submitPlans(config, pipeline);
+            handoffNanos += System.nanoTime() - handoffStart;
+            if (metrics != null && pipeline != null && pipeline.isEnabled()) {
+                metrics.recordPlanHandoff(handoffNanos);
+            }
+
+            FightRecorder recorder = CustomEnderDragonMod.getFightRecorder();
+            if (recorder != null) {
+                recorder.recordFrame(world, dragonList, System.nanoTime() - tickStart, config.fingerprint());
+            }
+        } catch (Exception e) {
+            CustomEnderDragonMod.LOGGER.error("Critical error during dragon registry tick", e);
+        }
+
+        if (metrics != null) {
+            metrics.recordManagerTick(System.nanoTime() - tickStart);
+        }
+        if (tickEvent != null && tickEvent.shouldCommit()) {
+            tickEvent.world = world.getRegistryKey().getValue().toString();
+            tickEvent.activeDragons = dragons.size();
+            tickEvent.deferredDragons = scheduler.getLastDeferred();
+            tickEvent.commit();
+        }
+        return workNanos;
+    }
+
+    /**
+     * Hands the plans made since the last tick to their dragons. Never waits, a batch
+     * that isn't done yet is dropped and those dragons plan on the server thread.
+     */
+    private void applyPlans(ModMetrics metrics) {
+        if (pendingPlans == null) {
+            return;
+        }
+        CompletableFuture<PlanBatch> future = pendingPlans;
+        pendingPlans = null;
+
+        PlanBatch batch = future.isDone() && !future.isCompletedExceptionally() ? future.getNow(null) : null;
+        if (batch == null) {
+            future.cancel(false);
+            // Workers may still be reading the snapshot's arrays
+            snapshotBuilder = new FightSnapshot.Builder();
+            if (metrics != null) {
+                metrics.recordPlanMiss();
+            }
+            return;
+        }
+        if (metrics != null) {
+            metrics.recordPlanBatch(batch.getPlanningNanos(), batch.size());
+        }
+        for (int i = 0; i < plannedDragons.size(); i++) {
+            plannedDragons.get(i).setPlan(batch.get(i));
+        }
+    }
+
+    /**
+     * Snapshots the awake dragons whose ability work is due next tick, together with the
+     * entities of this tick's proximity index and the world's players, and submits it
+     */
+    private void submitPlans(CompiledConfig config, PlanningPipeline pipeline) {
+        for (int i = 0; i < plannedDragons.size(); i++) {
+            plannedDragons.get(i).setPlan(null);
+        }
+        plannedDragons.clear();
+        if (pipeline == null || !pipeline.isEnabled()) {
+            return;
+        }
+
+        CompiledConfig.General general = config.general();
+        for (int i = 0; i < dragonList.size(); i++) {
+            CustomDragon dragon = dragonList.get(i);
+            if (!dragon.isDormant() && dragon.isAlive() && dragon.getFight().isAbilityDueNextTick(general)) {
+                plannedDragons.add(dragon);
+            }
+        }
+        if (plannedDragons.isEmpty()) {
+            return;
+        }
+
+        AbilityManager abilityManager = CustomEnderDragonMod.getAbilityManager();
+        if (abilityManager == null) {
+            plannedDragons.clear();
+            return;
+        }
+        FightSnapshot.Builder builder = snapshotBuilder;
+        builder.reset(world.getTime(), abilityManager.getDispatch(config));
+        for (int i = 0; i < plannedDragons.size(); i++) {
+            CustomDragon dragon = plannedDragons.get(i);
+            EnderDragonEntity entity = dragon.getDragon();
+            Vec3d velocity = entity.getVelocity();
+            Box box = entity.getBoundingBox();
+            builder.addDragon(entity.getId(), dragon.getVariant().ordinal(), dragon.getCurrentPhase().ordinal(),
+                dragon.getFight().getSeed(), entity.getX(), entity.getY(), entity.getZ(), velocity.x, velocity.y, velocity.z,
+                box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+        }
+
+        // The index of this tick covers every awake dragon, so the planned ones as well.
+        // It is only built here if no ability asked it anything this tick.
+        proximityIndex.forEachEntity(snapshotEntity);
+        List<ServerPlayerEntity> players = world.getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            ServerPlayerEntity player = players.get(i);
+            builder.addPlayer(player.getId(), player.getX(), player.getY(), player.getZ());
+        }
+
+        pendingPlans = pipeline.submit(builder.build());
+    }
+
+    private void addSnapshotEntity(LivingEntity living) {
+        Box box = living.getBoundingBox();
+        snapshotBuilder.addEntity(living.getId(), living instanceof PlayerEntity player && !player.isSpectator(),
+            living.getX(), living.getY(), living.getZ(),
+            box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+    }
+
+    /**
+     * Drops dragons whose entity is gone. Unloaded dragons keep their saved record and
+     * are restored when they load again, dead or discarded ones are forgotten.
+     */
+    private void removeGoneDragons() {
+        for (int i = dragonList.size() - 1; i >= 0; i--) {
+            CustomDragon dragon = dragonList.get(i);
+            try {
+                EnderDragonEntity dragonEntity = dragon.getDragon();
+                if (dragonEntity == null) {
+                    removeAt(i);
+                    continue;
+                }
+                if (dragonEntity.isDead() || dragonEntity.isRemoved()) {
+                    Entity.RemovalReason reason = dragonEntity.getRemovalReason();
+                    if (dragonEntity.isDead() || (reason != null && reason.shouldDestroy())) {
+                        persistentState.forget(dragon.getUUID());
+                        dragon.removeArena();
+                    }
+                    removeAt(i);
+                }
+            } catch (Exception e) {
+                CustomEnderDragonMod.LOGGER.error("Error checking dragon state, removing from list", e);
+                removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * Removes the dragon at the given list index from the list, the map and the scheduler.
+     * The last dragon takes its place, so callers walking the list must go backwards.
+     */
+    private void removeAt(int index) {
+        CustomDragon dragon = dragonList.get(index);
+        scheduler.unschedule(dragon);
+        dragon.setPlan(null);
+        dragon.releaseVisuals();
+        CustomDragon last = dragonList.remove(dragonList.size() - 1);
+        if (index < dragonList.size()) {
+            dragonList.set(index, last);
+        }
+        dragons.remove(dragon.getUUID());
+    }
+
+    /**
+     * Removes every dragon of this world, returns how many there were
+     */
+    int removeAll() {
+        int count = dragons.size();
+        for (CustomDragon dragon : dragonList) {
+            try {
+                persistentState.forget(dragon.getUUID());
+                dragon.remove();
+            } catch (Exception e) {
+                CustomEnderDragonMod.LOGGER.error("Error removing dragon during cleanup", e);
+            }
+        }
+        dragons.clear();
+        dragonList.clear();
+        scheduler.clear();
+        return count;
+    }
+
+    /**
+     * Drops this world's dragons and plans without touching their entities or saved
+     * records, once the server stopped
+     */
+    void close() {
+        if (pendingPlans != null) {
+            pendingPlans.cancel(false);
+            pendingPlans = null;
+        }
+        plannedDragons.clear();
+        snapshotBuilder = new FightSnapshot.Builder();
+        scheduler.clear();
+        dragons.clear();
+        dragonList.clear();
+        proximityIndex.invalidate(dragonsView, 0.0);
+    }
+}
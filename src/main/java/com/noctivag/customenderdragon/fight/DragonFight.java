@@ -0,0 +1,259 @@
+package com.noctivag.customenderdragon.fight;
+
+import com.noctivag.customenderdragon.abilities.AbilityCooldowns;
+import com.noctivag.customenderdragon.abilities.AbilityDispatch;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.dragon.DragonPhase;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+
+import java.util.SplittableRandom;
+
+/**
+ * Fight state of one dragon: phase, interval counters, ability cooldowns, who hurt it
+ * and the seed of its random numbers. Reads the dragon only through FightEntity so the
+ * same logic runs for real dragons and in headless simulations. Times are game ticks.
+ */
+public final class DragonFight {
+    // Object header and fields, rounded up
+    private static final long SHALLOW_SIZE_BYTES = 64;
+
+    private final DragonVariant variant;
+    private final AbilityCooldowns cooldowns = new AbilityCooldowns();
+    private final ThreatTable threat = new ThreatTable();
+    private DragonPhase phase = DragonPhase.PHASE_1;
+    private DragonPhase previousPhase = DragonPhase.PHASE_1;
+    private double maxHealth;
+    private int particleTickCounter = 0;
+    private int abilityTickCounter = 0;
+    private boolean particlesDue = false;
+    private boolean abilitiesDue = false;
+    // Phase or cooldowns changed since the state was last saved
+    private boolean dirty = true;
+    private long seed = 0L;
+
+    public DragonFight(DragonVariant variant, double maxHealth) {
+        this.variant = variant;
+        setMaxHealth(maxHealth);
+    }
+
+    /**
+     * Updates the phase from the dragon's health and advances the interval counters.
+     * Returns true if the dragon entered a new phase this tick.
+     */
+    public boolean tick(FightEntity self, CompiledConfig.General general) {
+        boolean phaseChanged = updatePhase(self.getHealth());
+
+        // Particle effects every particleUpdateInterval ticks
+        particleTickCounter++;
+        if (particleTickCounter >= general.particleUpdateInterval) {
+            particlesDue = true;
+            particleTickCounter = 0;
+        }
+
+        // Ability execution every abilityUpdateInterval ticks
+        abilityTickCounter++;
+        if (abilityTickCounter >= general.abilityUpdateInterval) {
+            abilitiesDue = true;
+            abilityTickCounter = 0;
+        }
+        return phaseChanged;
+    }
+
+    /**
+     * Returns true if the health moved the dragon into another phase
+     */
+    public boolean updatePhase(float health) {
+        DragonPhase newPhase = DragonPhase.fromHealthPercent(getHealthPercent(health));
+        if (newPhase == phase) {
+            return false;
+        }
+        previousPhase = phase;
+        phase = newPhase;
+        dirty = true;
+        return true;
+    }
+
+    public double getHealthPercent(float health) {
+        return (health / maxHealth) * 100;
+    }
+
+    /**
+     * Shifts the interval counters so this dragon's work lands on different ticks
+     * than dragons spawned at the same time
+     */
+    public void setTickOffset(int offset, CompiledConfig.General general) {
+        this.particleTickCounter = Math.floorMod(offset, general.particleUpdateInterval);
+        this.abilityTickCounter = Math.floorMod(offset, general.abilityUpdateInterval);
+    }
+
+    /**
+     * Restores the interval counters of a recorded fight, so its work lands on the same ticks
+     */
+    public void restoreTickCounters(int particleTicks, int abilityTicks) {
+        this.particleTickCounter = particleTicks;
+        this.abilityTickCounter = abilityTicks;
+    }
+
+    public int getParticleTickCounter() {
+        return particleTickCounter;
+    }
+
+    public int getAbilityTickCounter() {
+        return abilityTickCounter;
+    }
+
+    /**
+     * Whether the next tick() will flag ability work
+     */
+    public boolean isAbilityDueNextTick(CompiledConfig.General general) {
+        return abilityTickCounter + 1 >= general.abilityUpdateInterval;
+    }
+
+    public boolean hasPendingWork() {
+        return particlesDue || abilitiesDue;
+    }
+
+    /**
+     * Returns whether particles are due and clears the flag
+     */
+    public boolean takeParticlesDue() {
+        boolean due = particlesDue;
+        particlesDue = false;
+        return due;
+    }
+
+    /**
+     * Returns whether abilities are due and clears the flag
+     */
+    public boolean takeAbilitiesDue() {
+        boolean due = abilitiesDue;
+        abilitiesDue = false;
+        return due;
+    }
+
+    public void clearPendingWork() {
+        particlesDue = false;
+        abilitiesDue = false;
+    }
+
+    /**
+     * Writes the abilities to run this ability tick into out and starts their cooldowns.
+     * Abilities without a cooldown are always selected. Returns the number selected,
+     * out must hold at least dispatch.getMaxAbilities() ids.
+     */
+    public int decideAbilities(AbilityDispatch dispatch, long now, int[] out) {
+        CompiledConfig.VariantSettings settings = dispatch.config().variant(variant);
+        int count = 0;
+        for (int abilityId : dispatch.get(variant, phase)) {
+            if (dispatch.hasCooldown(abilityId)) {
+                if (cooldowns.isOnCooldown(abilityId, now)) {
+                    continue;
+                }
+                cooldowns.trigger(abilityId, now, settings.ability(abilityId).cooldown);
+                dirty = true;
+            }
+            out[count++] = abilityId;
+        }
+        return count;
+    }
+
+    public boolean isAbilityOnCooldown(int abilityId, long now) {
+        return cooldowns.isOnCooldown(abilityId, now);
+    }
+
+    public void triggerCooldown(int abilityId, long now, int cooldownTicks) {
+        cooldowns.trigger(abilityId, now, cooldownTicks);
+        dirty = true;
+    }
+
+    /**
+     * Tick the ability becomes ready, 0 if it never ran
+     */
+    public long getCooldownReadyAt(int abilityId) {
+        return cooldowns.getReadyAt(abilityId);
+    }
+
+    public int getCooldownCapacity() {
+        return cooldowns.capacity();
+    }
+
+    /**
+     * Restores saved state without reporting a phase change
+     */
+    public void restorePhase(DragonPhase phase) {
+        this.phase = phase;
+        this.previousPhase = phase;
+    }
+
+    public void restoreCooldown(int abilityId, long readyAt) {
+        cooldowns.setReadyAt(abilityId, readyAt);
+    }
+
+    /**
+     * Random numbers of this dragon for one game tick. The same seed and tick always give
+     * the same numbers whatever was drawn before, so a fight replayed from the middle
+     * draws what the recorded one did.
+     */
+    public SplittableRandom random(long tick) {
+        return new SplittableRandom(streamSeed(seed, tick));
+    }
+
+    /**
+     * Seed of the random numbers for one tick of a dragon, for code that only has the
+     * dragon's seed, like the planner threads
+     */
+    public static long streamSeed(long seed, long tick) {
+        return seed ^ (tick * 0x9E3779B97F4A7C15L);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Threat of the entities that hurt this dragon, not saved with the fight
+     */
+    public ThreatTable getThreat() {
+        return threat;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void clearDirty() {
+        dirty = false;
+    }
+
+    public DragonVariant getVariant() {
+        return variant;
+    }
+
+    public DragonPhase getPhase() {
+        return phase;
+    }
+
+    public DragonPhase getPreviousPhase() {
+        return previousPhase;
+    }
+
+    public double getMaxHealth() {
+        return maxHealth;
+    }
+
+    public void setMaxHealth(double maxHealth) {
+        // Prevent division by zero in the phase calculation
+        this.maxHealth = maxHealth > 0 ? maxHealth : 200.0;
+    }
+
+    /**
+     * Approximate heap size of this fight state
+     */
+    public long estimateMemoryBytes() {
+        return SHALLOW_SIZE_BYTES + cooldowns.estimateMemoryBytes() + threat.estimateMemoryBytes();
+    }
+}
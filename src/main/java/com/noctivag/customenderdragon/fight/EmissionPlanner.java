@@ -0,0 +1,46 @@
+package com.noctivag.customenderdragon.fight;
+
+import com.noctivag.customenderdragon.config.CompiledConfig;
+
+/**
+ * Decides how many particles of an emission a viewer receives: nothing beyond the view
+ * distance, half and no fine detail beyond the LOD distance, and never more than the
+ * viewer's remaining per-tick budget. Shared by ParticleManager and the simulations.
+ */
+public final class EmissionPlanner {
+    private double viewDistanceSq;
+    private double lodDistanceSq;
+    private int budgetPerViewer;
+
+    /**
+     * Reads the distances and budget of a config snapshot
+     */
+    public void configure(CompiledConfig.General general) {
+        this.viewDistanceSq = general.particleViewDistance * general.particleViewDistance;
+        this.lodDistanceSq = general.particleLodDistance * general.particleLodDistance;
+        this.budgetPerViewer = general.particleBudgetPerPlayer;
+    }
+
+    public boolean isVisible(double distanceSq) {
+        return distanceSq <= viewDistanceSq;
+    }
+
+    public boolean isFar(double distanceSq) {
+        return distanceSq > lodDistanceSq;
+    }
+
+    /**
+     * Particles a viewer receives of an emission of the given count, 0 if none.
+     * nearOnly marks fine detail that far viewers skip entirely.
+     */
+    public int allowedCount(int count, boolean far, boolean nearOnly, int budgetUsed) {
+        int wanted = count;
+        if (far) {
+            if (nearOnly) {
+                return 0;
+            }
+            wanted = Math.max(1, count / 2);
+        }
+        return Math.max(0, Math.min(wanted, budgetPerViewer - budgetUsed));
+    }
+}
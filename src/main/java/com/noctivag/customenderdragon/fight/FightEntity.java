@@ -0,0 +1,30 @@
+package com.noctivag.customenderdragon.fight;
+
+/**
+ * The parts of an entity the fight logic reads. Implemented by CustomDragon for real
+ * dragons and by in-memory entities for headless simulations.
+ */
+public interface FightEntity {
+    int getId();
+
+    double getX();
+
+    double getY();
+
+    double getZ();
+
+    double getVelocityX();
+
+    double getVelocityZ();
+
+    float getHealth();
+
+    boolean isAlive();
+
+    default double squaredDistanceTo(double x, double y, double z) {
+        double dx = getX() - x;
+        double dy = getY() - y;
+        double dz = getZ() - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
@@ -0,0 +1,23 @@
+package com.noctivag.customenderdragon.fight;
+
+import java.util.List;
+
+/**
+ * The world queries the fight logic needs: game time and the players around a dragon
+ */
+public interface FightWorld {
+    /**
+     * Game time in ticks, cooldowns are measured against it
+     */
+    long getTime();
+
+    /**
+     * Closest living player within range, or null
+     */
+    FightEntity findClosestTarget(FightEntity from, double range);
+
+    /**
+     * Collects the living players within range into out, which is cleared first
+     */
+    void collectTargetsAround(double x, double y, double z, double range, List<FightEntity> out);
+}
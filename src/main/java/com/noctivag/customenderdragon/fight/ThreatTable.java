@@ -0,0 +1,163 @@
+package com.noctivag.customenderdragon.fight;
+
+/**
+ * Who hurt a dragon and how much, for picking its target. An attacker's threat is the
+ * damage it dealt, halving every half-life. Since all entries decay by the same factor their
+ * order never changes, so threat is stored scaled up to a reference tick instead of being
+ * decayed every tick, and the top entry stays known after every add.
+ * Holds a few attackers, a new one replaces the one with the least threat.
+ */
+public final class ThreatTable {
+    private static final int CAPACITY = 8;
+    // Threat below this, half a heart, no longer counts
+    private static final double MIN_THREAT = 1.0;
+    // Stored values are scaled back to the current tick before they get this large
+    private static final double RESCALE_LIMIT = 1.0e100;
+
+    private final int[] ids = new int[CAPACITY];
+    private final double[] threat = new double[CAPACITY];
+    private int size = 0;
+    private int top = -1;
+    private long referenceTick = 0L;
+    private double halfLifeTicks = 0.0;
+
+    /**
+     * Adds threat for damage an entity dealt at tick now. Does nothing with a half-life of 0.
+     */
+    public void add(int entityId, double amount, long now, double halfLifeTicks) {
+        if (amount <= 0 || halfLifeTicks <= 0) {
+            return;
+        }
+        if (halfLifeTicks != this.halfLifeTicks || size == 0) {
+            // Config changed: decay what is there with the old half-life, then switch
+            rescale(now);
+            this.halfLifeTicks = halfLifeTicks;
+        }
+        double scaled = amount * growth(now);
+        if (scaled > RESCALE_LIMIT) {
+            rescale(now);
+            scaled = amount;
+        }
+
+        int slot = indexOf(entityId);
+        if (slot < 0) {
+            if (size < CAPACITY) {
+                slot = size++;
+            } else {
+                slot = lowest();
+                if (threat[slot] >= scaled) {
+                    return;
+                }
+            }
+            ids[slot] = entityId;
+            threat[slot] = 0.0;
+            if (slot == top) {
+                threat[slot] = scaled;
+                findTop();
+                return;
+            }
+        }
+        threat[slot] += scaled;
+        if (top < 0 || threat[slot] > threat[top]) {
+            top = slot;
+        }
+    }
+
+    /**
+     * Entity with the most threat at tick now, -1 if nobody's threat counts anymore
+     */
+    public int getTop(long now) {
+        if (top < 0) {
+            return -1;
+        }
+        if (threat[top] / growth(now) < MIN_THREAT) {
+            // The top entry decayed away, so did the others
+            clear();
+            return -1;
+        }
+        return ids[top];
+    }
+
+    /**
+     * Current threat of an entity, 0 if it has none
+     */
+    public double getThreat(int entityId, long now) {
+        int slot = indexOf(entityId);
+        return slot < 0 ? 0.0 : threat[slot] / growth(now);
+    }
+
+    /**
+     * Forgets an entity, e.g. once it died or left
+     */
+    public void remove(int entityId) {
+        int slot = indexOf(entityId);
+        if (slot < 0) {
+            return;
+        }
+        size--;
+        ids[slot] = ids[size];
+        threat[slot] = threat[size];
+        findTop();
+    }
+
+    public void clear() {
+        size = 0;
+        top = -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Factor the threat added at tick now is scaled up by, relative to the reference tick
+     */
+    private double growth(long now) {
+        return Math.pow(2.0, (now - referenceTick) / halfLifeTicks);
+    }
+
+    private void rescale(long now) {
+        if (size > 0) {
+            double factor = growth(now);
+            for (int i = 0; i < size; i++) {
+                threat[i] /= factor;
+            }
+        }
+        referenceTick = now;
+    }
+
+    private int indexOf(int entityId) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == entityId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int lowest() {
+        int lowest = 0;
+        for (int i = 1; i < size; i++) {
+            if (threat[i] < threat[lowest]) {
+                lowest = i;
+            }
+        }
+        return lowest;
+    }
+
+    private void findTop() {
+        top = -1;
+        for (int i = 0; i < size; i++) {
+            if (top < 0 || threat[i] > threat[top]) {
+                top = i;
+            }
+        }
+    }
+
+    /**
+     * Approximate heap size of this object and its arrays
+     */
+    public long estimateMemoryBytes() {
+        return 48 + 16 + 4L * CAPACITY + 16 + 8L * CAPACITY;
+    }
+}
@@ -0,0 +1,142 @@
+package com.noctivag.customenderdragon.fight.sim;
+
+import com.noctivag.customenderdragon.fight.FightEntity;
+import com.noctivag.customenderdragon.fight.FightWorld;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FightWorld backed by plain lists. Players are bucketed into a horizontal grid that is
+ * rebuilt once per tick, like ProximityIndex does for real worlds.
+ */
+public class InMemoryWorld implements FightWorld {
+    private static final int CELL_SHIFT = 5; // 32 block cells
+
+    private final List<SimEntity> players = new ArrayList<>();
+    private final Long2ObjectOpenHashMap<List<SimEntity>> cells = new Long2ObjectOpenHashMap<>();
+    private final ArrayDeque<List<SimEntity>> listPool = new ArrayDeque<>();
+    private long time = 0;
+
+    public void addPlayer(SimEntity player) {
+        players.add(player);
+    }
+
+    public void clearPlayers() {
+        players.clear();
+    }
+
+    /**
+     * Player by entity id, null if it isn't in the world. Walks the list, for the few
+     * lookups of threat targeting.
+     */
+    public SimEntity getPlayer(int id) {
+        for (int i = 0; i < players.size(); i++) {
+            if (players.get(i).getId() == id) {
+                return players.get(i);
+            }
+        }
+        return null;
+    }
+
+    public List<SimEntity> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Advances game time and re-buckets the players after they moved
+     */
+    public void advance() {
+        advanceTo(time + 1);
+    }
+
+    /**
+     * Sets game time and re-buckets the players, for replays that skip ticks
+     */
+    public void advanceTo(long time) {
+        this.time = time;
+        for (List<SimEntity> list : cells.values()) {
+            list.clear();
+            listPool.push(list);
+        }
+        cells.clear();
+        for (int i = 0; i < players.size(); i++) {
+            SimEntity player = players.get(i);
+            if (player.isAlive()) {
+                long key = cellKey((int) Math.floor(player.x) >> CELL_SHIFT, (int) Math.floor(player.z) >> CELL_SHIFT);
+                List<SimEntity> cell = cells.get(key);
+                if (cell == null) {
+                    cell = listPool.isEmpty() ? new ArrayList<>() : listPool.pop();
+                    cells.put(key, cell);
+                }
+                cell.add(player);
+            }
+        }
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public FightEntity findClosestTarget(FightEntity from, double range) {
+        double x = from.getX();
+        double y = from.getY();
+        double z = from.getZ();
+        double bestDistanceSq = range * range;
+        FightEntity best = null;
+
+        int minX = (int) Math.floor(x - range) >> CELL_SHIFT;
+        int maxX = (int) Math.floor(x + range) >> CELL_SHIFT;
+        int minZ = (int) Math.floor(z - range) >> CELL_SHIFT;
+        int maxZ = (int) Math.floor(z + range) >> CELL_SHIFT;
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                List<SimEntity> cell = cells.get(cellKey(cx, cz));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++) {
+                    SimEntity player = cell.get(i);
+                    double distanceSq = player.squaredDistanceTo(x, y, z);
+                    if (distanceSq < bestDistanceSq) {
+                        bestDistanceSq = distanceSq;
+                        best = player;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void collectTargetsAround(double x, double y, double z, double range, List<FightEntity> out) {
+        out.clear();
+        double rangeSq = range * range;
+        int minX = (int) Math.floor(x - range) >> CELL_SHIFT;
+        int maxX = (int) Math.floor(x + range) >> CELL_SHIFT;
+        int minZ = (int) Math.floor(z - range) >> CELL_SHIFT;
+        int maxZ = (int) Math.floor(z + range) >> CELL_SHIFT;
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                List<SimEntity> cell = cells.get(cellKey(cx, cz));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size(); i++) {
+                    SimEntity player = cell.get(i);
+                    if (player.squaredDistanceTo(x, y, z) <= rangeSq) {
+                        out.add(player);
+                    }
+                }
+            }
+        }
+    }
+}
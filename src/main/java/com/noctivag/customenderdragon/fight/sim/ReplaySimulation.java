@@ -0,0 +1,257 @@
+package com.noctivag.customenderdragon.fight.sim;
+
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.dragon.DragonPhase;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.fight.DragonFight;
+import com.noctivag.customenderdragon.metrics.FightRecording;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+/**
+ * Replays a fight recording: every frame puts the dragons and players of its world where
+ * the recording has them, then runs the fight logic of that tick for the dragons that were
+ * awake and alive on the server. Dragons keep the seed they had on the server, so they roll
+ * the same numbers, and join with the interval counters, cooldowns and phase the server
+ * recorded for their first frame. After every later frame the replayed counters and
+ * cooldowns are compared with the recorded ones; a dragon that diverged is counted and put
+ * back on the recorded state, so one divergence is counted once. Each recorded world gets
+ * its own Simulation, as frames of different worlds are interleaved.
+ */
+public class ReplaySimulation {
+    private final CompiledConfig config;
+    private final Int2ObjectOpenHashMap<ReplayWorld> worlds = new Int2ObjectOpenHashMap<>();
+    private long frames = 0;
+    private long damageEvents = 0;
+    private double damageTaken = 0;
+    private long comparedDragonFrames = 0;
+    private long counterMismatches = 0;
+    private long cooldownMismatches = 0;
+
+    // Frame indexes of the dragons first seen in the current frame
+    private boolean[] added = new boolean[8];
+
+    public ReplaySimulation(CompiledConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Applies one recorded frame and runs the fights of its world for that tick
+     */
+    public void apply(FightRecording.Frame frame) {
+        ReplayWorld replayWorld = worlds.get(frame.getWorldId());
+        if (replayWorld == null) {
+            replayWorld = new ReplayWorld(new Simulation(config, 0L));
+            worlds.put(frame.getWorldId(), replayWorld);
+        }
+        Simulation simulation = replayWorld.simulation;
+        InMemoryWorld world = simulation.getWorld();
+
+        world.clearPlayers();
+        for (int i = 0; i < frame.getPlayerCount(); i++) {
+            SimEntity player = replayWorld.players.get(frame.getPlayerId(i));
+            if (player == null) {
+                player = new SimEntity(frame.getPlayerId(i), 0, 0, 0, 20.0f);
+                replayWorld.players.put(frame.getPlayerId(i), player);
+            }
+            player.x = frame.getPlayerX(i);
+            player.y = frame.getPlayerY(i);
+            player.z = frame.getPlayerZ(i);
+            world.addPlayer(player);
+        }
+
+        DragonVariant[] variants = DragonVariant.values();
+        if (added.length < frame.getDragonCount()) {
+            added = new boolean[frame.getDragonCount()];
+        }
+        for (int i = 0; i < frame.getDragonCount(); i++) {
+            SimEntity dragon = replayWorld.dragons.get(frame.getDragonId(i));
+            added[i] = dragon == null;
+            if (dragon == null) {
+                DragonVariant variant = variants[Math.floorMod(frame.getDragonVariant(i), variants.length)];
+                dragon = simulation.addDragon(frame.getDragonId(i), variant, frame.getDragonSeed(i));
+                replayWorld.dragons.put(frame.getDragonId(i), dragon);
+                replayWorld.fights.put(frame.getDragonId(i), simulation.getFight(simulation.getDragonCount() - 1));
+            }
+            dragon.x = frame.getDragonX(i);
+            dragon.y = frame.getDragonY(i);
+            dragon.z = frame.getDragonZ(i);
+            dragon.velocityX = frame.getDragonVelocityX(i);
+            dragon.velocityZ = frame.getDragonVelocityZ(i);
+            dragon.health = frame.getDragonHealth(i);
+            dragon.alive = !frame.isDragonDead(i);
+            // A new dragon's tick already ran on the server, it takes the recorded result below
+            dragon.dormant = frame.isDragonDormant(i) || added[i];
+        }
+        // Dragons that died or unloaded since the last frame of this world
+        if (simulation.getDragonCount() > frame.getDragonCount()) {
+            for (int i = simulation.getDragonCount() - 1; i >= 0; i--) {
+                SimEntity dragon = simulation.getDragon(i);
+                if (!contains(frame, dragon.getId())) {
+                    simulation.removeDragon(i);
+                    replayWorld.dragons.remove(dragon.getId());
+                    replayWorld.fights.remove(dragon.getId());
+                }
+            }
+        }
+
+        world.advanceTo(frame.getTime());
+        // Damage by players feeds the dragons' threat, as on the server
+        for (int i = 0; i < frame.getDamageCount(); i++) {
+            damageTaken += frame.getDamageAmount(i);
+            SimEntity dragon = replayWorld.dragons.get(frame.getDamageDragonId(i));
+            if (dragon != null && replayWorld.players.containsKey(frame.getDamageAttackerId(i))) {
+                simulation.addThreat(dragon, frame.getDamageAttackerId(i), frame.getDamageAmount(i));
+            }
+        }
+        damageEvents += frame.getDamageCount();
+        simulation.runFights();
+
+        boolean sameConfig = frame.getConfigFingerprint() == config.fingerprint();
+        for (int i = 0; i < frame.getDragonCount(); i++) {
+            DragonFight fight = replayWorld.fights.get(frame.getDragonId(i));
+            if (added[i]) {
+                fight.restorePhase(DragonPhase.fromHealthPercent(fight.getHealthPercent(frame.getDragonHealth(i))));
+                restoreState(fight, frame, i);
+            } else if (sameConfig) {
+                compare(fight, frame, i);
+            }
+        }
+        frames++;
+    }
+
+    /**
+     * Compares the state the replay ended the tick with against the recorded one, and puts
+     * a dragon that diverged back on the recorded state
+     */
+    private void compare(DragonFight fight, FightRecording.Frame frame, int i) {
+        comparedDragonFrames++;
+        boolean countersMatch = fight.getParticleTickCounter() == frame.getDragonParticleCounter(i)
+            && fight.getAbilityTickCounter() == frame.getDragonAbilityCounter(i);
+        boolean cooldownsMatch = sameCooldowns(fight, frame, i);
+        if (!countersMatch) {
+            counterMismatches++;
+        }
+        if (!cooldownsMatch) {
+            cooldownMismatches++;
+        }
+        if (!countersMatch || !cooldownsMatch) {
+            restoreState(fight, frame, i);
+        }
+    }
+
+    private static boolean sameCooldowns(DragonFight fight, FightRecording.Frame frame, int i) {
+        long now = frame.getTime();
+        int running = 0;
+        for (int abilityId = 0; abilityId < fight.getCooldownCapacity(); abilityId++) {
+            if (fight.getCooldownReadyAt(abilityId) > now) {
+                running++;
+            }
+        }
+        if (running != frame.getDragonCooldownCount(i)) {
+            return false;
+        }
+        for (int j = 0; j < running; j++) {
+            if (fight.getCooldownReadyAt(frame.getDragonCooldownAbility(i, j)) != frame.getDragonCooldownReadyAt(i, j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sets the interval counters and running cooldowns the server ended the tick with
+     */
+    private static void restoreState(DragonFight fight, FightRecording.Frame frame, int i) {
+        fight.restoreTickCounters(frame.getDragonParticleCounter(i), frame.getDragonAbilityCounter(i));
+        long now = frame.getTime();
+        for (int abilityId = 0; abilityId < fight.getCooldownCapacity(); abilityId++) {
+            if (fight.getCooldownReadyAt(abilityId) > now) {
+                fight.restoreCooldown(abilityId, 0L);
+            }
+        }
+        for (int j = 0; j < frame.getDragonCooldownCount(i); j++) {
+            fight.restoreCooldown(frame.getDragonCooldownAbility(i, j), frame.getDragonCooldownReadyAt(i, j));
+        }
+    }
+
+    private static boolean contains(FightRecording.Frame frame, int dragonId) {
+        for (int i = 0; i < frame.getDragonCount(); i++) {
+            if (frame.getDragonId(i) == dragonId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public int getWorldCount() {
+        return worlds.size();
+    }
+
+    public long getDamageEvents() {
+        return damageEvents;
+    }
+
+    public double getDamageTaken() {
+        return damageTaken;
+    }
+
+    /**
+     * Dragon ticks compared with the recording, frames taken with another config are skipped
+     */
+    public long getComparedDragonFrames() {
+        return comparedDragonFrames;
+    }
+
+    /**
+     * Compared dragon ticks whose particle or ability counter differed from the recording
+     */
+    public long getCounterMismatches() {
+        return counterMismatches;
+    }
+
+    /**
+     * Compared dragon ticks whose running cooldowns differed from the recording
+     */
+    public long getCooldownMismatches() {
+        return cooldownMismatches;
+    }
+
+    public long getAbilityExecutions(int abilityId) {
+        long total = 0;
+        for (ReplayWorld world : worlds.values()) {
+            total += world.simulation.getAbilityExecutions(abilityId);
+        }
+        return total;
+    }
+
+    public long getParticlesSent() {
+        long total = 0;
+        for (ReplayWorld world : worlds.values()) {
+            total += world.simulation.getParticlesSent();
+        }
+        return total;
+    }
+
+    public long getPhaseChanges() {
+        long total = 0;
+        for (ReplayWorld world : worlds.values()) {
+            total += world.simulation.getPhaseChanges();
+        }
+        return total;
+    }
+
+    private static final class ReplayWorld {
+        final Simulation simulation;
+        final Int2ObjectOpenHashMap<SimEntity> dragons = new Int2ObjectOpenHashMap<>();
+        final Int2ObjectOpenHashMap<DragonFight> fights = new Int2ObjectOpenHashMap<>();
+        final Int2ObjectOpenHashMap<SimEntity> players = new Int2ObjectOpenHashMap<>();
+
+        ReplayWorld(Simulation simulation) {
+            this.simulation = simulation;
+        }
+    }
+}
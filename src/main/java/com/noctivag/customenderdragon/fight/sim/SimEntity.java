@@ -0,0 +1,75 @@
+package com.noctivag.customenderdragon.fight.sim;
+
+import com.noctivag.customenderdragon.fight.FightEntity;
+
+/**
+ * Mutable in-memory entity for simulations
+ */
+public class SimEntity implements FightEntity {
+    private final int id;
+    double x;
+    double y;
+    double z;
+    double velocityX;
+    double velocityZ;
+    float health;
+    boolean alive = true;
+    // Dragons only: skipped by the fight logic, like a dormant dragon on the server
+    boolean dormant = false;
+
+    public SimEntity(int id, double x, double y, double z, float health) {
+        this.id = id;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.health = health;
+    }
+
+    /**
+     * Moves the entity by its velocity
+     */
+    void move() {
+        x += velocityX;
+        z += velocityZ;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public double getX() {
+        return x;
+    }
+
+    @Override
+    public double getY() {
+        return y;
+    }
+
+    @Override
+    public double getZ() {
+        return z;
+    }
+
+    @Override
+    public double getVelocityX() {
+        return velocityX;
+    }
+
+    @Override
+    public double getVelocityZ() {
+        return velocityZ;
+    }
+
+    @Override
+    public float getHealth() {
+        return health;
+    }
+
+    @Override
+    public boolean isAlive() {
+        return alive;
+    }
+}
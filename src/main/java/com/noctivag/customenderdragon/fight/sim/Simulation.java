@@ -0,0 +1,319 @@
+package com.noctivag.customenderdragon.fight.sim;
+
+import com.noctivag.customenderdragon.abilities.AbilityDispatch;
+import com.noctivag.customenderdragon.abilities.AbilityIds;
+import com.noctivag.customenderdragon.abilities.AbilityRegistry;
+import com.noctivag.customenderdragon.abilities.BuiltinAbilities;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.fight.DragonFight;
+import com.noctivag.customenderdragon.fight.EmissionPlanner;
+import com.noctivag.customenderdragon.fight.FightEntity;
+import com.noctivag.customenderdragon.fight.ThreatTable;
+import com.noctivag.customenderdragon.utils.ParticleGeometry;
+import com.noctivag.customenderdragon.utils.ParticleShape;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Headless fight simulation: many dragons and players in an InMemoryWorld, driven by the
+ * same DragonFight, AbilityDispatch and EmissionPlanner code as real dragons.
+ * Abilities and particles are decided and counted but not executed. Dragons lose health
+ * over time so they go through all phases, and respawn at full health when they die.
+ */
+public class Simulation {
+    private static final double DRAGON_SPACING = 48.0;
+    private static final double DRAGON_SPEED = 0.6;
+    private static final double PLAYER_SPEED = 0.3;
+
+    private final CompiledConfig config;
+    private final AbilityDispatch dispatch;
+    private final EmissionPlanner planner = new EmissionPlanner();
+    private final InMemoryWorld world = new InMemoryWorld();
+    private final List<SimEntity> dragons = new ArrayList<>();
+    private final List<DragonFight> fights = new ArrayList<>();
+    private final Random random;
+    private final double arenaSize;
+
+    // Scratch state reused every tick
+    private final List<FightEntity> viewers = new ArrayList<>();
+    private final Int2IntOpenHashMap budgetUsed = new Int2IntOpenHashMap();
+    private final double[] wingAxis = new double[2];
+    private final int[] selected;
+
+    private final long[] abilityExecutions = new long[AbilityIds.count()];
+    private long particlesSent = 0;
+    private long particlesCulled = 0;
+    private long phaseChanges = 0;
+
+    /**
+     * An empty simulation whose dragons and players are added by the caller
+     */
+    Simulation(CompiledConfig config, long seed) {
+        this(config, 0, 0, seed);
+    }
+
+    public Simulation(CompiledConfig config, int dragonCount, int playerCount, long seed) {
+        AbilityRegistry registry = new AbilityRegistry();
+        BuiltinAbilities.registerAll(registry);
+
+        this.config = config;
+        this.dispatch = AbilityDispatch.compile(config, registry);
+        this.selected = new int[dispatch.getMaxAbilities()];
+        this.random = new Random(seed);
+        this.arenaSize = Math.max(1.0, Math.sqrt(dragonCount)) * DRAGON_SPACING;
+        planner.configure(config.general());
+
+        DragonVariant[] variants = DragonVariant.values();
+        int nextId = 0;
+        for (int i = 0; i < dragonCount; i++) {
+            DragonVariant variant = variants[i % variants.length];
+            float health = config.variant(variant).health;
+            SimEntity dragon = new SimEntity(nextId++, random.nextDouble() * arenaSize, 80,
+                random.nextDouble() * arenaSize, health);
+            double angle = random.nextDouble() * Math.PI * 2;
+            dragon.velocityX = Math.cos(angle) * DRAGON_SPEED;
+            dragon.velocityZ = Math.sin(angle) * DRAGON_SPEED;
+
+            DragonFight fight = new DragonFight(variant, health);
+            fight.setTickOffset(i, config.general());
+            fight.setSeed(seed + i);
+            dragons.add(dragon);
+            fights.add(fight);
+        }
+
+        for (int i = 0; i < playerCount; i++) {
+            world.addPlayer(new SimEntity(nextId++, random.nextDouble() * arenaSize, 70,
+                random.nextDouble() * arenaSize, 20.0f));
+        }
+    }
+
+    /**
+     * Runs one server tick of every dragon
+     */
+    public void tick() {
+        List<SimEntity> players = world.getPlayers();
+        for (int i = 0; i < players.size(); i++) {
+            SimEntity player = players.get(i);
+            player.velocityX = (random.nextDouble() - 0.5) * 2 * PLAYER_SPEED;
+            player.velocityZ = (random.nextDouble() - 0.5) * 2 * PLAYER_SPEED;
+            player.move();
+            keepInArena(player);
+        }
+        world.advance();
+
+        for (int i = 0; i < dragons.size(); i++) {
+            SimEntity dragon = dragons.get(i);
+            dragon.move();
+            keepInArena(dragon);
+            damage(dragon, fights.get(i));
+        }
+        runFights();
+    }
+
+    /**
+     * Runs the fight logic of every awake, living dragon for the current world time
+     */
+    void runFights() {
+        CompiledConfig.General general = config.general();
+        budgetUsed.clear();
+        for (int i = 0; i < dragons.size(); i++) {
+            SimEntity dragon = dragons.get(i);
+            if (dragon.dormant || !dragon.isAlive()) {
+                continue;
+            }
+            DragonFight fight = fights.get(i);
+            if (fight.tick(dragon, general)) {
+                phaseChanges++;
+                emitPhaseChange(dragon, fight);
+            }
+            if (fight.takeParticlesDue()) {
+                emitAmbient(dragon, fight);
+            }
+            if (fight.takeAbilitiesDue()) {
+                decideAbilities(dragon, fight, general);
+            }
+        }
+    }
+
+    /**
+     * Adds a dragon with its own fight. Its interval counters start at 0, the caller
+     * restores the ones the dragon had.
+     */
+    SimEntity addDragon(int id, DragonVariant variant, long seed) {
+        float health = config.variant(variant).health;
+        DragonFight fight = new DragonFight(variant, health);
+        fight.setSeed(seed);
+        SimEntity dragon = new SimEntity(id, 0, 0, 0, health);
+        dragons.add(dragon);
+        fights.add(fight);
+        return dragon;
+    }
+
+    void removeDragon(int index) {
+        int last = dragons.size() - 1;
+        dragons.set(index, dragons.get(last));
+        fights.set(index, fights.get(last));
+        dragons.remove(last);
+        fights.remove(last);
+    }
+
+    /**
+     * Adds threat for damage an attacker dealt to a dragon at the current world time
+     */
+    void addThreat(SimEntity dragon, int attackerId, double amount) {
+        int index = dragons.indexOf(dragon);
+        if (index >= 0) {
+            fights.get(index).getThreat().add(attackerId, amount, world.getTime(), config.general().threatHalfLifeTicks);
+        }
+    }
+
+    public SimEntity getDragon(int index) {
+        return dragons.get(index);
+    }
+
+    public DragonFight getFight(int index) {
+        return fights.get(index);
+    }
+
+    public InMemoryWorld getWorld() {
+        return world;
+    }
+
+    private void damage(SimEntity dragon, DragonFight fight) {
+        dragon.health -= (float) (random.nextDouble() * fight.getMaxHealth() * 0.002);
+        if (dragon.health <= 0) {
+            dragon.health = (float) fight.getMaxHealth();
+        }
+    }
+
+    private void keepInArena(SimEntity entity) {
+        if (entity.x < 0 || entity.x > arenaSize) {
+            entity.velocityX = -entity.velocityX;
+            entity.x = Math.max(0, Math.min(arenaSize, entity.x));
+        }
+        if (entity.z < 0 || entity.z > arenaSize) {
+            entity.velocityZ = -entity.velocityZ;
+            entity.z = Math.max(0, Math.min(arenaSize, entity.z));
+        }
+    }
+
+    private void decideAbilities(SimEntity dragon, DragonFight fight, CompiledConfig.General general) {
+        if (findThreatTarget(dragon, fight, general.targetRange) == null
+            && world.findClosestTarget(dragon, general.targetRange) == null) {
+            return;
+        }
+        int count = fight.decideAbilities(dispatch, world.getTime(), selected);
+        for (int i = 0; i < count; i++) {
+            abilityExecutions[selected[i]]++;
+        }
+    }
+
+    /**
+     * Same threat targeting as CustomDragon.findTarget
+     */
+    private SimEntity findThreatTarget(SimEntity dragon, DragonFight fight, double range) {
+        ThreatTable threat = fight.getThreat();
+        int attackerId;
+        while ((attackerId = threat.getTop(world.getTime())) >= 0) {
+            SimEntity player = world.getPlayer(attackerId);
+            if (player != null && player.isAlive()) {
+                return player.squaredDistanceTo(dragon.x, dragon.y, dragon.z) <= range * range ? player : null;
+            }
+            threat.remove(attackerId);
+        }
+        return null;
+    }
+
+    /**
+     * Same emissions as ParticleManager.spawnParticles: the variant's AMBIENT emitters,
+     * viewers picked around a point two blocks above the dragon
+     */
+    private void emitAmbient(SimEntity dragon, DragonFight fight) {
+        world.collectTargetsAround(dragon.x, dragon.y + 2, dragon.z, config.general().particleViewDistance, viewers);
+        emitShapes(dragon, config.variant(fight.getVariant()).particles(ParticleShape.Trigger.AMBIENT));
+    }
+
+    /**
+     * Same emissions as ParticleManager.spawnPhaseChangeEffect
+     */
+    private void emitPhaseChange(SimEntity dragon, DragonFight fight) {
+        world.collectTargetsAround(dragon.x, dragon.y, dragon.z, config.general().particleViewDistance, viewers);
+        emitShapes(dragon, config.variant(fight.getVariant()).particles(ParticleShape.Trigger.PHASE_CHANGE));
+    }
+
+    private void emitShapes(SimEntity dragon, ParticleShape[] shapes) {
+        boolean moving = ParticleGeometry.wingOffset(dragon.velocityX, dragon.velocityZ, 1.0, wingAxis);
+        for (ParticleShape shape : shapes) {
+            if (shape.isOriented() && !moving) {
+                continue;
+            }
+            float[] offsets = shape.getOffsets();
+            for (int j = 0; j < shape.getPointCount(); j++) {
+                double offsetX = offsets[j * 3];
+                double offsetZ = offsets[j * 3 + 2];
+                if (shape.isOriented()) {
+                    double lateral = offsetX;
+                    offsetX = lateral * wingAxis[0] - offsetZ * wingAxis[1];
+                    offsetZ = lateral * wingAxis[1] + offsetZ * wingAxis[0];
+                }
+                emit(dragon.x + offsetX, dragon.y + offsets[j * 3 + 1], dragon.z + offsetZ, shape.getCount(),
+                    shape.isNearOnly(j));
+            }
+        }
+    }
+
+    /**
+     * Plans one emission for the viewers collected last, updating budgets and counters
+     */
+    private void emit(double x, double y, double z, int count, boolean nearOnly) {
+        for (int i = 0; i < viewers.size(); i++) {
+            FightEntity viewer = viewers.get(i);
+            int used = budgetUsed.get(viewer.getId());
+            int allowed = planner.allowedCount(count, planner.isFar(viewer.squaredDistanceTo(x, y, z)), nearOnly, used);
+            if (allowed > 0) {
+                budgetUsed.put(viewer.getId(), used + allowed);
+            }
+            particlesSent += allowed;
+            particlesCulled += count - allowed;
+        }
+    }
+
+    public int getDragonCount() {
+        return dragons.size();
+    }
+
+    public long getTime() {
+        return world.getTime();
+    }
+
+    public long getAbilityExecutions(int abilityId) {
+        return abilityId < abilityExecutions.length ? abilityExecutions[abilityId] : 0L;
+    }
+
+    public long getParticlesSent() {
+        return particlesSent;
+    }
+
+    public long getParticlesCulled() {
+        return particlesCulled;
+    }
+
+    public long getPhaseChanges() {
+        return phaseChanges;
+    }
+
+    /**
+     * Estimated heap of the fight state of all dragons
+     */
+    public long estimateFightMemoryBytes() {
+        long total = 0;
+        for (DragonFight fight : fights) {
+            total += fight.estimateMemoryBytes();
+        }
+        return total;
+    }
+}
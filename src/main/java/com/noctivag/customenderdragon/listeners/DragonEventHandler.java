@@ -1,14 +1,24 @@
 package com.noctivag.customenderdragon.listeners;
 
 import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.ModConfig;
 import com.noctivag.customenderdragon.dragon.CustomDragon;
+import com.noctivag.customenderdragon.metrics.FightRecorder;
+import com.noctivag.customenderdragon.utils.LootTable;
+import com.noctivag.customenderdragon.visuals.DisplayEntityManager;
 import net.fabricmc.fabric.api.entity.event.v1.ServerLivingEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.ItemEntity;
 import net.minecraft.entity.boss.dragon.EnderDragonEntity;
 import net.minecraft.entity.damage.DamageSource;
-import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.entity.decoration.DisplayEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
 import net.minecraft.server.world.ServerWorld;
-import net.minecraft.text.Text;
-import net.minecraft.util.Formatting;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.Heightmap;
 
 /**
  * Handles Fabric events for custom dragons
@@ -22,6 +32,43 @@ public class DragonEventHandler {
                 onDragonDeath(dragon, damageSource);
             }
         });
+
+        // Restore saved custom dragons as their chunks load, drop leftover decorations
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof EnderDragonEntity dragon) {
+                CustomEnderDragonMod.getDragonManager().restoreDragon(dragon, world);
+            } else if (entity instanceof DisplayEntity display) {
+                DisplayEntityManager displayManager = CustomEnderDragonMod.getDisplayEntityManager();
+                if (displayManager != null) {
+                    displayManager.onDisplayEntityLoad(display);
+                }
+            }
+        });
+
+        // Damage taken by custom dragons feeds their threat and the fight recording
+        ServerLivingEntityEvents.AFTER_DAMAGE.register((entity, source, baseDamageTaken, damageTaken, blocked) -> {
+            if (entity instanceof EnderDragonEntity dragon) {
+                onDragonDamaged(dragon, source, damageTaken);
+            }
+        });
+    }
+
+    private static void onDragonDamaged(EnderDragonEntity dragon, DamageSource source, float amount) {
+        CustomDragon customDragon = CustomEnderDragonMod.getDragonManager().getCustomDragon(dragon);
+        if (customDragon == null) {
+            return;
+        }
+
+        // Projectiles count for the player who shot them
+        Entity attacker = source.getAttacker();
+        if (attacker instanceof PlayerEntity player) {
+            customDragon.addThreat(player, amount);
+        }
+
+        FightRecorder recorder = CustomEnderDragonMod.getFightRecorder();
+        if (recorder != null && dragon.getWorld() instanceof ServerWorld world) {
+            recorder.recordDamage(world, dragon.getId(), attacker != null ? attacker.getId() : -1, amount);
+        }
     }
 
     private static void onDragonDeath(EnderDragonEntity dragon, DamageSource source) {
@@ -32,21 +79,71 @@ public class DragonEventHandler {
         }
 
         // Broadcast death message
-        if (dragon.getWorld() instanceof ServerWorld serverWorld) {
-            Text message = Text.literal(customDragon.getVariant().getDisplayName() + 
-                " Dragon has been slain!").formatted(Formatting.YELLOW, Formatting.BOLD);
-
-            serverWorld.getPlayers().forEach(player -> {
-                if (player instanceof ServerPlayerEntity serverPlayer) {
-                    serverPlayer.sendMessage(message, false);
-                }
-            });
+        var broadcastService = CustomEnderDragonMod.getBroadcastService();
+        if (broadcastService != null) {
+            broadcastService.announceDeath(customDragon);
         }
 
-        // Drop custom loot (TODO: Implement based on config)
-        // For now, dragons drop vanilla loot
+        try {
+            dropLoot(customDragon);
+        } catch (Exception e) {
+            CustomEnderDragonMod.LOGGER.error("Failed to drop dragon loot", e);
+        }
 
         // Remove from manager
         CustomEnderDragonMod.getDragonManager().removeDragon(dragon.getUuid());
     }
+
+    /**
+     * Rolls the variant's loot table and drops the result as full stacks, so a kill spawns
+     * one item entity per stack instead of one per roll. The stacks land on the ground.
+     */
+    private static void dropLoot(CustomDragon customDragon) {
+        EnderDragonEntity dragon = customDragon.getDragon();
+        LootTable loot = ModConfig.current().variant(customDragon.getVariant()).loot;
+        if (loot.isEmpty() || !(dragon.getWorld() instanceof ServerWorld world)) {
+            return;
+        }
+
+        // The arena's middle, else below the dragon, which in the End is mostly over the void
+        BlockPos origin = customDragon.getArenaOrigin();
+        double x = dragon.getX();
+        double y = dragon.getY();
+        double z = dragon.getZ();
+        int ground = origin != null ? groundLevel(world, origin.getX(), origin.getZ()) : Integer.MIN_VALUE;
+        if (ground != Integer.MIN_VALUE) {
+            x = origin.getX() + 0.5;
+            z = origin.getZ() + 0.5;
+            y = ground;
+        } else {
+            ground = groundLevel(world, dragon.getBlockX(), dragon.getBlockZ());
+            if (ground != Integer.MIN_VALUE) {
+                y = ground;
+            }
+        }
+
+        int[] counts = loot.roll(customDragon.getFight().random(world.getTime()));
+        for (int i = 0; i < counts.length; i++) {
+            Item item = loot.getItem(i);
+            int remaining = counts[i];
+            while (remaining > 0) {
+                int size = Math.min(remaining, item.getMaxCount());
+                remaining -= size;
+                ItemEntity drop = new ItemEntity(world, x, y, z, new ItemStack(item, size));
+                drop.setToDefaultPickupDelay();
+                world.spawnEntity(drop);
+            }
+        }
+    }
+
+    /**
+     * Y above the topmost solid block of a column, MIN_VALUE if its chunk isn't loaded or it has none
+     */
+    private static int groundLevel(ServerWorld world, int x, int z) {
+        if (!world.isChunkLoaded(x >> 4, z >> 4)) {
+            return Integer.MIN_VALUE;
+        }
+        int top = world.getTopY(Heightmap.Type.MOTION_BLOCKING, x, z);
+        return top > world.getBottomY() ? top : Integer.MIN_VALUE;
+    }
 }
@@ -0,0 +1,29 @@
+package com.noctivag.customenderdragon.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One ability execution by AbilityManager
+ */
+@Name("customenderdragon.AbilityExecution")
+@Label("Ability Execution")
+@Description("Execution of a single dragon ability")
+public class AbilityExecutionEvent extends DragonEvent {
+    @Label("Ability")
+    public String ability;
+
+    @Label("Target")
+    public String target;
+
+    private static final EventType TYPE = EventType.getEventType(AbilityExecutionEvent.class);
+
+    /**
+     * Whether a recording has this event enabled, see DragonTickEvent.isRecording
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
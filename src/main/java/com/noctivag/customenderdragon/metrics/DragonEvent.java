@@ -0,0 +1,35 @@
+package com.noctivag.customenderdragon.metrics;
+
+import com.noctivag.customenderdragon.dragon.DragonPhase;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+import java.util.UUID;
+
+/**
+ * Base of the JFR events emitted for a single dragon.
+ * Events fired every tick are only created while a recording has them enabled (see
+ * isRecording() of the subclasses), so the tick path allocates nothing with JFR off.
+ * tag() and its string conversions only run when shouldCommit() is true.
+ */
+@Category({"Custom Ender Dragon"})
+@StackTrace(false)
+public abstract class DragonEvent extends Event {
+    @Label("Dragon UUID")
+    public String dragonUuid;
+
+    @Label("Variant")
+    public String variant;
+
+    @Label("Phase")
+    public int phase;
+
+    public void tag(UUID uuid, DragonVariant variant, DragonPhase phase) {
+        this.dragonUuid = uuid != null ? uuid.toString() : null;
+        this.variant = variant != null ? variant.name() : null;
+        this.phase = phase != null ? phase.getPhaseNumber() : 0;
+    }
+}
@@ -0,0 +1,37 @@
+package com.noctivag.customenderdragon.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One world's dragon tick, covering every dragon of the world and the scheduled work
+ */
+@Name("customenderdragon.DragonManagerTick")
+@Label("Dragon Manager Tick")
+@Description("Tick of the custom dragons of one world including scheduled particle and ability work")
+@Category({"Custom Ender Dragon"})
+@StackTrace(false)
+public class DragonManagerTickEvent extends Event {
+    @Label("World")
+    public String world;
+
+    @Label("Active Dragons")
+    public int activeDragons;
+
+    @Label("Deferred Dragons")
+    public int deferredDragons;
+
+    private static final EventType TYPE = EventType.getEventType(DragonManagerTickEvent.class);
+
+    /**
+     * Whether a recording has this event enabled, the event is only created then
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
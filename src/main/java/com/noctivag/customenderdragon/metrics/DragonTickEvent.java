@@ -0,0 +1,24 @@
+package com.noctivag.customenderdragon.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One CustomDragon.tick
+ */
+@Name("customenderdragon.DragonTick")
+@Label("Dragon Tick")
+@Description("Per-tick update of a single custom dragon")
+public class DragonTickEvent extends DragonEvent {
+    private static final EventType TYPE = EventType.getEventType(DragonTickEvent.class);
+
+    /**
+     * Whether a recording has this event enabled. Checked before creating one so the
+     * tick path allocates nothing while JFR is off.
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
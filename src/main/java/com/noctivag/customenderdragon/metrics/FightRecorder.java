@@ -0,0 +1,304 @@
+package com.noctivag.customenderdragon.metrics;
+
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.dragon.CustomDragon;
+import com.noctivag.customenderdragon.fight.DragonFight;
+import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records what the fights of every world saw each tick (dragons with their interval
+ * counters and cooldowns, players, damage taken and how long the tick took) into
+ * config/customenderdragon-fights.bin, so a fight that was slow on a live server can be
+ * replayed offline. The file is memory mapped and used as a ring, see
+ * {@link FightRecording} for the format. Recording a frame writes straight into the
+ * mapping and does not allocate; the OS writes the pages back, also after a crash of the JVM.
+ */
+public class FightRecorder {
+    private static final String RECORDING_FILE_NAME = "customenderdragon-fights.bin";
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int megabytes;
+    private final int capacity;
+    private int writeOffset;
+    private int oldestOffset;
+    private int liveFrames;
+    private long totalFrames;
+    private boolean warnedOversized = false;
+
+    // Damage dragons took since their world's last frame
+    private ServerWorld[] damageWorlds = new ServerWorld[16];
+    private int[] damageDragonIds = new int[16];
+    private int[] damageAttackerIds = new int[16];
+    private float[] damageAmounts = new float[16];
+    private int damageCount = 0;
+
+    private FightRecorder(FileChannel channel, int megabytes) throws IOException {
+        this.channel = channel;
+        this.megabytes = megabytes;
+        this.capacity = megabytes * 1024 * 1024;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        if (buffer.getInt(0) == FightRecording.MAGIC && buffer.getInt(4) == FightRecording.VERSION
+            && buffer.getInt(FightRecording.CAPACITY_OFFSET) == capacity) {
+            // Continue the recording of the last run, a slow fight before a restart is kept
+            writeOffset = buffer.getInt(FightRecording.WRITE_OFFSET);
+            oldestOffset = buffer.getInt(FightRecording.OLDEST_OFFSET);
+            liveFrames = buffer.getInt(FightRecording.LIVE_OFFSET);
+            totalFrames = buffer.getLong(FightRecording.TOTAL_OFFSET);
+        } else {
+            writeOffset = FightRecording.HEADER_BYTES;
+            oldestOffset = FightRecording.HEADER_BYTES;
+            liveFrames = 0;
+            totalFrames = 0;
+            buffer.putInt(0, FightRecording.MAGIC);
+            buffer.putInt(4, FightRecording.VERSION);
+            buffer.putInt(FightRecording.CAPACITY_OFFSET, capacity);
+            writeHeader();
+        }
+    }
+
+    /**
+     * Opens the recording in the config directory, starting a new one if the size changed
+     */
+    public static FightRecorder open(int megabytes) throws IOException {
+        File configDir = new File("config");
+        if (!configDir.exists()) {
+            configDir.mkdirs();
+        }
+        Path file = new File(configDir, RECORDING_FILE_NAME).toPath();
+        int capacity = megabytes * 1024 * 1024;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            if (channel.size() != capacity) {
+                channel.truncate(0);
+            }
+            return new FightRecorder(channel, megabytes);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Called for damage a custom dragon took, written with the next frame of its world
+     */
+    public void recordDamage(ServerWorld world, int dragonId, int attackerId, float amount) {
+        if (damageCount == damageWorlds.length) {
+            int size = damageCount * 2;
+            damageWorlds = Arrays.copyOf(damageWorlds, size);
+            damageDragonIds = Arrays.copyOf(damageDragonIds, size);
+            damageAttackerIds = Arrays.copyOf(damageAttackerIds, size);
+            damageAmounts = Arrays.copyOf(damageAmounts, size);
+        }
+        damageWorlds[damageCount] = world;
+        damageDragonIds[damageCount] = dragonId;
+        damageAttackerIds[damageCount] = attackerId;
+        damageAmounts[damageCount] = amount;
+        damageCount++;
+    }
+
+    /**
+     * Writes a frame without dragons if damage of the world is still pending, so the killing
+     * blow of a world's last dragon, removed before its next tick, still gets recorded
+     */
+    public void flushWorld(ServerWorld world, long configFingerprint) {
+        for (int i = 0; i < damageCount; i++) {
+            if (damageWorlds[i] == world) {
+                recordFrame(world, List.of(), 0L, configFingerprint);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records one tick of a world's dragons, called at the end of the world's dragon tick
+     */
+    public void recordFrame(ServerWorld world, List<CustomDragon> dragons, long tickNanos, long configFingerprint) {
+        List<ServerPlayerEntity> players = world.getPlayers();
+        int damage = 0;
+        for (int i = 0; i < damageCount; i++) {
+            if (damageWorlds[i] == world) {
+                damage++;
+            }
+        }
+        long now = world.getTime();
+        int dragonCount = Math.min(dragons.size(), Short.MAX_VALUE);
+        int playerCount = Math.min(players.size(), Short.MAX_VALUE);
+        damage = Math.min(damage, Short.MAX_VALUE);
+        int cooldowns = 0;
+        for (int i = 0; i < dragonCount; i++) {
+            cooldowns += countRunningCooldowns(dragons.get(i).getFight(), now);
+        }
+        int length = FightRecording.FRAME_HEADER_BYTES + dragonCount * FightRecording.DRAGON_BYTES
+            + cooldowns * FightRecording.COOLDOWN_BYTES + playerCount * FightRecording.PLAYER_BYTES
+            + damage * FightRecording.DAMAGE_BYTES;
+        if (length > (capacity - FightRecording.HEADER_BYTES) / 2) {
+            if (!warnedOversized) {
+                warnedOversized = true;
+                CustomEnderDragonMod.LOGGER.warn("Fight recording buffer is too small for a tick of {} dragons and {} players, "
+                    + "raise recordingBufferMegabytes", dragonCount, playerCount);
+            }
+            takeDamage(world, null);
+            return;
+        }
+
+        int start = reserve(length);
+        buffer.position(start);
+        buffer.putInt(length);
+        buffer.putLong(now);
+        buffer.putInt(world.getRegistryKey().getValue().hashCode());
+        buffer.putLong(configFingerprint);
+        buffer.putInt((int) Math.min(Integer.MAX_VALUE, tickNanos / 1000L));
+        buffer.putShort((short) dragonCount);
+        buffer.putShort((short) playerCount);
+        buffer.putShort((short) damage);
+        for (int i = 0; i < dragonCount; i++) {
+            CustomDragon dragon = dragons.get(i);
+            DragonFight fight = dragon.getFight();
+            EnderDragonEntity entity = dragon.getDragon();
+            int flags = 0;
+            if (dragon.isDormant()) {
+                flags |= FightRecording.FLAG_DORMANT;
+            }
+            if (entity == null || entity.isDead() || entity.isRemoved()) {
+                flags |= FightRecording.FLAG_DEAD;
+            }
+            buffer.putInt(dragon.getId());
+            buffer.put((byte) dragon.getVariant().ordinal());
+            buffer.put((byte) flags);
+            buffer.putLong(fight.getSeed());
+            buffer.putInt(fight.getParticleTickCounter());
+            buffer.putInt(fight.getAbilityTickCounter());
+            buffer.putFloat((float) dragon.getX());
+            buffer.putFloat((float) dragon.getY());
+            buffer.putFloat((float) dragon.getZ());
+            buffer.putFloat((float) dragon.getVelocityX());
+            buffer.putFloat((float) dragon.getVelocityZ());
+            buffer.putFloat(dragon.getHealth());
+            buffer.putShort((short) countRunningCooldowns(fight, now));
+            for (int abilityId = 0; abilityId < fight.getCooldownCapacity(); abilityId++) {
+                long readyAt = fight.getCooldownReadyAt(abilityId);
+                if (readyAt > now) {
+                    buffer.putShort((short) abilityId);
+                    buffer.putLong(readyAt);
+                }
+            }
+        }
+        for (int i = 0; i < playerCount; i++) {
+            ServerPlayerEntity player = players.get(i);
+            buffer.putInt(player.getId());
+            buffer.putFloat((float) player.getX());
+            buffer.putFloat((float) player.getY());
+            buffer.putFloat((float) player.getZ());
+        }
+        takeDamage(world, buffer);
+
+        if (liveFrames == 0) {
+            oldestOffset = start;
+        }
+        liveFrames++;
+        totalFrames++;
+        writeHeader();
+    }
+
+    private static int countRunningCooldowns(DragonFight fight, long now) {
+        int count = 0;
+        for (int abilityId = 0; abilityId < fight.getCooldownCapacity(); abilityId++) {
+            if (fight.getCooldownReadyAt(abilityId) > now) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the world's pending damage events if out isn't null, then drops them
+     */
+    private void takeDamage(ServerWorld world, MappedByteBuffer out) {
+        int written = 0;
+        int kept = 0;
+        for (int i = 0; i < damageCount; i++) {
+            if (damageWorlds[i] == world) {
+                if (out != null && written < Short.MAX_VALUE) {
+                    out.putInt(damageDragonIds[i]);
+                    out.putInt(damageAttackerIds[i]);
+                    out.putFloat(damageAmounts[i]);
+                    written++;
+                }
+                continue;
+            }
+            damageWorlds[kept] = damageWorlds[i];
+            damageDragonIds[kept] = damageDragonIds[i];
+            damageAttackerIds[kept] = damageAttackerIds[i];
+            damageAmounts[kept] = damageAmounts[i];
+            kept++;
+        }
+        Arrays.fill(damageWorlds, kept, damageCount, null);
+        damageCount = kept;
+    }
+
+    /**
+     * Finds room for a frame of the given length, wrapping to the start of the ring and
+     * dropping the oldest frames it overlaps
+     */
+    private int reserve(int length) {
+        if (writeOffset + length > capacity) {
+            evict(writeOffset, capacity);
+            if (writeOffset + 4 <= capacity) {
+                buffer.putInt(writeOffset, 0);
+            }
+            writeOffset = FightRecording.HEADER_BYTES;
+        }
+        evict(writeOffset, writeOffset + length);
+        int start = writeOffset;
+        writeOffset += length;
+        return start;
+    }
+
+    private void evict(int from, int to) {
+        while (liveFrames > 0 && oldestOffset >= from && oldestOffset < to) {
+            liveFrames--;
+            if (liveFrames > 0) {
+                oldestOffset = FightRecording.nextFrame(buffer, capacity, oldestOffset);
+            }
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(FightRecording.WRITE_OFFSET, writeOffset);
+        buffer.putInt(FightRecording.OLDEST_OFFSET, oldestOffset);
+        buffer.putInt(FightRecording.LIVE_OFFSET, liveFrames);
+        buffer.putLong(FightRecording.TOTAL_OFFSET, totalFrames);
+    }
+
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    public int getMegabytes() {
+        return megabytes;
+    }
+
+    public void close() {
+        Arrays.fill(damageWorlds, null);
+        damageCount = 0;
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            CustomEnderDragonMod.LOGGER.error("Failed to close fight recording", e);
+        }
+    }
+}
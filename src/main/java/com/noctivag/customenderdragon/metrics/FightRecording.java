@@ -0,0 +1,357 @@
+package com.noctivag.customenderdragon.metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Binary format of fight recordings, and a reader for them.
+ *
+ * A recording is a file of fixed size: a header followed by a ring of frames, one frame
+ * per recorded world tick. When the ring is full the oldest frames are overwritten, so the
+ * file always holds the latest ticks.
+ *
+ * Header: magic, version, capacity, write offset, offset of the oldest frame, frames in
+ * the ring, frames written in total. Frame: length, game time, world, config fingerprint,
+ * micros the world's dragon tick took, dragon/player/damage counts, then per dragon id,
+ * variant, flags (dormant, dead), seed, particle and ability interval counters, position,
+ * horizontal velocity, health and its running cooldowns as a count followed by ability id
+ * and ready tick, per player id and position, per damage event dragon id, attacker id (-1
+ * for none) and amount. Dragon state is the one the tick ended with. A length of 0, or
+ * fewer than 4 bytes before the end of the file, means the next frame is at the start of
+ * the ring.
+ */
+public final class FightRecording {
+    static final int MAGIC = 0x43454446; // "CEDF"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 64;
+    static final int CAPACITY_OFFSET = 8;
+    static final int WRITE_OFFSET = 12;
+    static final int OLDEST_OFFSET = 16;
+    static final int LIVE_OFFSET = 20;
+    static final int TOTAL_OFFSET = 24;
+
+    static final int FRAME_HEADER_BYTES = 34;
+    // Without its cooldowns, each running cooldown adds COOLDOWN_BYTES
+    static final int DRAGON_BYTES = 48;
+    static final int COOLDOWN_BYTES = 10;
+    static final int PLAYER_BYTES = 16;
+    static final int DAMAGE_BYTES = 12;
+
+    static final int FLAG_DORMANT = 1;
+    static final int FLAG_DEAD = 2;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int oldest;
+    private final int liveFrames;
+    private final long totalFrames;
+    private int position;
+    private int read;
+
+    private FightRecording(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a fight recording");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported recording version " + buffer.getInt(4));
+        }
+        this.capacity = buffer.getInt(CAPACITY_OFFSET);
+        this.oldest = buffer.getInt(OLDEST_OFFSET);
+        this.liveFrames = buffer.getInt(LIVE_OFFSET);
+        this.totalFrames = buffer.getLong(TOTAL_OFFSET);
+        if (capacity != buffer.capacity() || oldest < HEADER_BYTES || oldest >= capacity) {
+            throw new IOException("Corrupt recording header");
+        }
+        rewind();
+    }
+
+    /**
+     * Reads a whole recording into memory
+     */
+    public static FightRecording read(Path file) throws IOException {
+        return new FightRecording(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    /**
+     * Offset of the frame after the one at offset, following the wrap to the start of the ring
+     */
+    static int nextFrame(ByteBuffer buffer, int capacity, int offset) {
+        int next = offset + buffer.getInt(offset);
+        if (next + 4 > capacity || buffer.getInt(next) == 0) {
+            return HEADER_BYTES;
+        }
+        return next;
+    }
+
+    /**
+     * Starts reading from the oldest frame again
+     */
+    public void rewind() {
+        position = oldest;
+        read = 0;
+    }
+
+    /**
+     * Reads the next frame into frame, false once all frames were read
+     */
+    public boolean next(Frame frame) {
+        if (read >= liveFrames) {
+            return false;
+        }
+        int start = position;
+        ByteBuffer in = buffer.duplicate();
+        in.position(start + 4);
+        frame.time = in.getLong();
+        frame.worldId = in.getInt();
+        frame.configFingerprint = in.getLong();
+        frame.tickMicros = in.getInt();
+        frame.resize(in.getShort(), in.getShort(), in.getShort());
+        int cooldowns = 0;
+        for (int i = 0; i < frame.dragonCount; i++) {
+            frame.dragonIds[i] = in.getInt();
+            frame.dragonVariants[i] = in.get();
+            frame.dragonFlags[i] = in.get();
+            frame.dragonSeeds[i] = in.getLong();
+            frame.dragonCounters[i * 2] = in.getInt();
+            frame.dragonCounters[i * 2 + 1] = in.getInt();
+            for (int j = 0; j < Frame.DRAGON_STRIDE; j++) {
+                frame.dragonData[i * Frame.DRAGON_STRIDE + j] = in.getFloat();
+            }
+            int count = in.getShort();
+            frame.dragonCooldownStart[i] = cooldowns;
+            frame.reserveCooldowns(cooldowns + count);
+            for (int j = 0; j < count; j++) {
+                frame.cooldownAbilities[cooldowns] = in.getShort();
+                frame.cooldownReadyAt[cooldowns] = in.getLong();
+                cooldowns++;
+            }
+        }
+        frame.dragonCooldownStart[frame.dragonCount] = cooldowns;
+        for (int i = 0; i < frame.playerCount; i++) {
+            frame.playerIds[i] = in.getInt();
+            frame.playerPositions[i * 3] = in.getFloat();
+            frame.playerPositions[i * 3 + 1] = in.getFloat();
+            frame.playerPositions[i * 3 + 2] = in.getFloat();
+        }
+        for (int i = 0; i < frame.damageCount; i++) {
+            frame.damageDragonIds[i] = in.getInt();
+            frame.damageAttackerIds[i] = in.getInt();
+            frame.damageAmounts[i] = in.getFloat();
+        }
+
+        read++;
+        if (read < liveFrames) {
+            position = nextFrame(buffer, capacity, start);
+        }
+        return true;
+    }
+
+    public int getFrameCount() {
+        return liveFrames;
+    }
+
+    /**
+     * Frames written since the file was created, including those overwritten since
+     */
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    /**
+     * One recorded world tick. Arrays are reused between frames and may be longer than the counts.
+     */
+    public static final class Frame {
+        static final int DRAGON_STRIDE = 6; // x, y, z, velocity x, z, health
+
+        private long time;
+        private int worldId;
+        private long configFingerprint;
+        private int tickMicros;
+        private int dragonCount;
+        private int playerCount;
+        private int damageCount;
+        private int[] dragonIds = new int[8];
+        private byte[] dragonVariants = new byte[8];
+        private byte[] dragonFlags = new byte[8];
+        private long[] dragonSeeds = new long[8];
+        private int[] dragonCounters = new int[8 * 2];
+        private float[] dragonData = new float[8 * DRAGON_STRIDE];
+        // Cooldowns of dragon i are at dragonCooldownStart[i] until dragonCooldownStart[i + 1]
+        private int[] dragonCooldownStart = new int[8 + 1];
+        private int[] cooldownAbilities = new int[8];
+        private long[] cooldownReadyAt = new long[8];
+        private int[] playerIds = new int[8];
+        private float[] playerPositions = new float[8 * 3];
+        private int[] damageDragonIds = new int[8];
+        private int[] damageAttackerIds = new int[8];
+        private float[] damageAmounts = new float[8];
+
+        private void resize(int dragons, int players, int damage) {
+            dragonCount = dragons;
+            playerCount = players;
+            damageCount = damage;
+            if (dragonIds.length < dragons) {
+                dragonIds = Arrays.copyOf(dragonIds, dragons);
+                dragonVariants = Arrays.copyOf(dragonVariants, dragons);
+                dragonFlags = Arrays.copyOf(dragonFlags, dragons);
+                dragonSeeds = Arrays.copyOf(dragonSeeds, dragons);
+                dragonCounters = Arrays.copyOf(dragonCounters, dragons * 2);
+                dragonData = Arrays.copyOf(dragonData, dragons * DRAGON_STRIDE);
+                dragonCooldownStart = Arrays.copyOf(dragonCooldownStart, dragons + 1);
+            }
+            if (playerIds.length < players) {
+                playerIds = Arrays.copyOf(playerIds, players);
+                playerPositions = Arrays.copyOf(playerPositions, players * 3);
+            }
+            if (damageDragonIds.length < damage) {
+                damageDragonIds = Arrays.copyOf(damageDragonIds, damage);
+                damageAttackerIds = Arrays.copyOf(damageAttackerIds, damage);
+                damageAmounts = Arrays.copyOf(damageAmounts, damage);
+            }
+        }
+
+        private void reserveCooldowns(int cooldowns) {
+            if (cooldownAbilities.length < cooldowns) {
+                int size = Math.max(cooldowns, cooldownAbilities.length * 2);
+                cooldownAbilities = Arrays.copyOf(cooldownAbilities, size);
+                cooldownReadyAt = Arrays.copyOf(cooldownReadyAt, size);
+            }
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Hash of the world's registry key, frames of different worlds are interleaved
+         */
+        public int getWorldId() {
+            return worldId;
+        }
+
+        public long getConfigFingerprint() {
+            return configFingerprint;
+        }
+
+        public int getTickMicros() {
+            return tickMicros;
+        }
+
+        public int getDragonCount() {
+            return dragonCount;
+        }
+
+        public int getDragonId(int i) {
+            return dragonIds[i];
+        }
+
+        public int getDragonVariant(int i) {
+            return dragonVariants[i];
+        }
+
+        public long getDragonSeed(int i) {
+            return dragonSeeds[i];
+        }
+
+        /**
+         * Whether the dragon was dormant this tick, its fight logic didn't run
+         */
+        public boolean isDragonDormant(int i) {
+            return (dragonFlags[i] & FLAG_DORMANT) != 0;
+        }
+
+        /**
+         * Whether the dragon was dead or removed this tick, its fight logic didn't run
+         */
+        public boolean isDragonDead(int i) {
+            return (dragonFlags[i] & FLAG_DEAD) != 0;
+        }
+
+        public int getDragonParticleCounter(int i) {
+            return dragonCounters[i * 2];
+        }
+
+        public int getDragonAbilityCounter(int i) {
+            return dragonCounters[i * 2 + 1];
+        }
+
+        /**
+         * Number of the dragon's cooldowns still running at the end of the tick
+         */
+        public int getDragonCooldownCount(int i) {
+            return dragonCooldownStart[i + 1] - dragonCooldownStart[i];
+        }
+
+        public int getDragonCooldownAbility(int i, int cooldown) {
+            return cooldownAbilities[dragonCooldownStart[i] + cooldown];
+        }
+
+        public long getDragonCooldownReadyAt(int i, int cooldown) {
+            return cooldownReadyAt[dragonCooldownStart[i] + cooldown];
+        }
+
+        public float getDragonX(int i) {
+            return dragonData[i * DRAGON_STRIDE];
+        }
+
+        public float getDragonY(int i) {
+            return dragonData[i * DRAGON_STRIDE + 1];
+        }
+
+        public float getDragonZ(int i) {
+            return dragonData[i * DRAGON_STRIDE + 2];
+        }
+
+        public float getDragonVelocityX(int i) {
+            return dragonData[i * DRAGON_STRIDE + 3];
+        }
+
+        public float getDragonVelocityZ(int i) {
+            return dragonData[i * DRAGON_STRIDE + 4];
+        }
+
+        public float getDragonHealth(int i) {
+            return dragonData[i * DRAGON_STRIDE + 5];
+        }
+
+        public int getPlayerCount() {
+            return playerCount;
+        }
+
+        public int getPlayerId(int i) {
+            return playerIds[i];
+        }
+
+        public float getPlayerX(int i) {
+            return playerPositions[i * 3];
+        }
+
+        public float getPlayerY(int i) {
+            return playerPositions[i * 3 + 1];
+        }
+
+        public float getPlayerZ(int i) {
+            return playerPositions[i * 3 + 2];
+        }
+
+        public int getDamageCount() {
+            return damageCount;
+        }
+
+        public int getDamageDragonId(int i) {
+            return damageDragonIds[i];
+        }
+
+        public int getDamageAttackerId(int i) {
+            return damageAttackerIds[i];
+        }
+
+        public float getDamageAmount(int i) {
+            return damageAmounts[i];
+        }
+    }
+}
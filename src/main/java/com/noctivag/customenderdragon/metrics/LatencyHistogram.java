@@ -0,0 +1,71 @@
+package com.noctivag.customenderdragon.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size histogram of durations in nanoseconds with power-of-two buckets.
+ * Recording is a couple of array writes, cheap enough for every tick.
+ * Only written from the server thread.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        // Bucket i holds values in [2^(i-1), 2^i)
+        buckets[BUCKETS - Long.numberOfLeadingZeros(nanos)]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0.0 : (double) totalNanos / count;
+    }
+
+    /**
+     * Upper bound of the bucket containing the given percentile (0-100)
+     */
+    public long getPercentileNanos(double percentile) {
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= Math.max(1, rank)) {
+                return i == 0 ? 0L : Math.min(maxNanos, (1L << i) - 1);
+            }
+        }
+        return maxNanos;
+    }
+
+    public void reset() {
+        Arrays.fill(buckets, 0L);
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+}
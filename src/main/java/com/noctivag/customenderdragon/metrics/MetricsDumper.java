@@ -0,0 +1,90 @@
+package com.noctivag.customenderdragon.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Periodically writes a metrics snapshot to config/customenderdragon-metrics.json.
+ * The snapshot is taken on the server thread, serializing and writing it happens
+ * on a background thread.
+ */
+public class MetricsDumper {
+    private static final String METRICS_FILE_NAME = "customenderdragon-metrics.json";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final Supplier<JsonObject> snapshotSupplier;
+    private final ExecutorService executor;
+    private int ticksSinceDump = 0;
+
+    public MetricsDumper(Supplier<JsonObject> snapshotSupplier) {
+        this.snapshotSupplier = snapshotSupplier;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CustomEnderDragon-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Called every server tick, dumps once the interval has passed. An interval of 0 disables dumping.
+     */
+    public void tick(int intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            ticksSinceDump = 0;
+            return;
+        }
+        if (++ticksSinceDump < intervalSeconds * 20) {
+            return;
+        }
+        ticksSinceDump = 0;
+        dump();
+    }
+
+    public void dump() {
+        JsonObject snapshot;
+        try {
+            snapshot = snapshotSupplier.get();
+        } catch (Exception e) {
+            CustomEnderDragonMod.LOGGER.error("Failed to collect metrics", e);
+            return;
+        }
+        executor.execute(() -> write(snapshot));
+    }
+
+    private void write(JsonObject snapshot) {
+        try {
+            File configDir = new File("config");
+            if (!configDir.exists()) {
+                configDir.mkdirs();
+            }
+            Path target = new File(configDir, METRICS_FILE_NAME).toPath();
+            Path temp = target.resolveSibling(METRICS_FILE_NAME + ".tmp");
+
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                GSON.toJson(snapshot, writer);
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            CustomEnderDragonMod.LOGGER.error("Failed to write metrics", e);
+        }
+    }
+}
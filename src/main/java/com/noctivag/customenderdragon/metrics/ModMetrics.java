@@ -0,0 +1,217 @@
+package com.noctivag.customenderdragon.metrics;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.noctivag.customenderdragon.abilities.AbilityIds;
+import com.noctivag.customenderdragon.abilities.AbilityManager;
+import com.noctivag.customenderdragon.abilities.MeteorImpactQueue;
+import com.noctivag.customenderdragon.dragon.CustomDragon;
+import com.noctivag.customenderdragon.dragon.DragonManager;
+import com.noctivag.customenderdragon.dragon.WorldDragonRegistry;
+import com.noctivag.customenderdragon.utils.ParticleManager;
+
+import java.util.Collection;
+
+/**
+ * Runtime cost of the mod. Tick timings are recorded here, the other counters are
+ * read from the managers that already keep them, so recording stays a few field
+ * writes on the server thread and the aggregation only happens on snapshot().
+ */
+public class ModMetrics {
+    private final LatencyHistogram managerTick = new LatencyHistogram();
+    private final LatencyHistogram dragonTick = new LatencyHistogram();
+    private final LatencyHistogram dragonWork = new LatencyHistogram();
+    private final LatencyHistogram planning = new LatencyHistogram();
+    private final LatencyHistogram planHandoff = new LatencyHistogram();
+    private long plansApplied = 0;
+    private long planBatchesMissed = 0;
+    private long messagesBroadcast = 0;
+    private long announcementsSuppressed = 0;
+    private final long startedAt = System.currentTimeMillis();
+
+    public void recordManagerTick(long nanos) {
+        managerTick.record(nanos);
+    }
+
+    public void recordDragonTick(long nanos) {
+        dragonTick.record(nanos);
+    }
+
+    public void recordDragonWork(long nanos) {
+        dragonWork.record(nanos);
+    }
+
+    /**
+     * Records a plan batch picked up in time, with the worker time it took
+     */
+    public void recordPlanBatch(long nanos, int plans) {
+        planning.record(nanos);
+        plansApplied += plans;
+    }
+
+    /**
+     * Records the server thread time a world tick spent taking a snapshot and handing plans
+     * over. Compare with planningThreads 0, where the work it saves runs in dragon work.
+     */
+    public void recordPlanHandoff(long nanos) {
+        planHandoff.record(nanos);
+    }
+
+    /**
+     * Records a plan batch that wasn't done by the next tick
+     */
+    public void recordPlanMiss() {
+        planBatchesMissed++;
+    }
+
+    /**
+     * Counts chat messages sent to players, one per recipient
+     */
+    public void recordMessages(int recipients) {
+        messagesBroadcast += recipients;
+    }
+
+    /**
+     * Counts an announcement dropped by the per-dragon cooldown or the per-tick limit
+     */
+    public void recordAnnouncementSuppressed() {
+        announcementsSuppressed++;
+    }
+
+    public LatencyHistogram getManagerTick() {
+        return managerTick;
+    }
+
+    public LatencyHistogram getDragonTick() {
+        return dragonTick;
+    }
+
+    public LatencyHistogram getDragonWork() {
+        return dragonWork;
+    }
+
+    public LatencyHistogram getPlanning() {
+        return planning;
+    }
+
+    public LatencyHistogram getPlanHandoff() {
+        return planHandoff;
+    }
+
+    public long getPlansApplied() {
+        return plansApplied;
+    }
+
+    public long getPlanBatchesMissed() {
+        return planBatchesMissed;
+    }
+
+    public long getMessagesBroadcast() {
+        return messagesBroadcast;
+    }
+
+    public long getAnnouncementsSuppressed() {
+        return announcementsSuppressed;
+    }
+
+    /**
+     * Rough estimate of the heap the mod keeps per dragon, not counting the entity itself
+     */
+    public static long estimateBytesPerDragon(Collection<CustomDragon> dragons) {
+        if (dragons.isEmpty()) {
+            return 0L;
+        }
+        long total = 0;
+        for (CustomDragon dragon : dragons) {
+            total += dragon.estimateMemoryBytes();
+        }
+        return total / dragons.size();
+    }
+
+    /**
+     * Collects all metrics into a JSON tree, must be called on the server thread
+     */
+    public JsonObject snapshot(DragonManager dragonManager, AbilityManager abilityManager,
+                               ParticleManager particleManager) {
+        JsonObject root = new JsonObject();
+        root.addProperty("timestamp", System.currentTimeMillis());
+        root.addProperty("uptimeSeconds", (System.currentTimeMillis() - startedAt) / 1000);
+
+        JsonObject timings = new JsonObject();
+        timings.add("dragonManagerTick", toJson(managerTick));
+        timings.add("dragonTick", toJson(dragonTick));
+        timings.add("dragonWork", toJson(dragonWork));
+        timings.add("planning", toJson(planning));
+        timings.add("planHandoff", toJson(planHandoff));
+        root.add("timings", timings);
+
+        if (dragonManager != null) {
+            Collection<CustomDragon> dragons = dragonManager.getAllDragons();
+            JsonObject dragonStats = new JsonObject();
+            dragonStats.addProperty("active", dragons.size());
+            dragonStats.addProperty("dormant", dragonManager.getDormantCount());
+            dragonStats.addProperty("estimatedBytesPerDragon", estimateBytesPerDragon(dragons));
+            dragonStats.addProperty("scheduledWorkExecuted", dragonManager.getScheduledExecutedTotal());
+            dragonStats.addProperty("scheduledWorkDeferred", dragonManager.getScheduledDeferredTotal());
+            JsonObject worlds = new JsonObject();
+            for (WorldDragonRegistry registry : dragonManager.getRegistries()) {
+                worlds.addProperty(registry.getWorld().getRegistryKey().getValue().toString(), registry.size());
+            }
+            dragonStats.add("perWorld", worlds);
+            root.add("dragons", dragonStats);
+        }
+
+        if (abilityManager != null) {
+            JsonArray abilities = new JsonArray();
+            for (int id = 0; id < AbilityIds.count(); id++) {
+                long invocations = abilityManager.getInvocationCount(id);
+                if (invocations == 0) {
+                    continue;
+                }
+                JsonObject ability = new JsonObject();
+                ability.addProperty("name", AbilityIds.name(id));
+                ability.addProperty("invocations", invocations);
+                ability.addProperty("totalMicros", abilityManager.getTotalNanos(id) / 1000);
+                ability.addProperty("maxMicros", abilityManager.getMaxNanos(id) / 1000);
+                abilities.add(ability);
+            }
+            root.add("abilities", abilities);
+
+            MeteorImpactQueue meteors = abilityManager.getMeteorQueue();
+            JsonObject explosions = new JsonObject();
+            explosions.addProperty("executed", meteors.getExecutedTotal());
+            explosions.addProperty("deferred", meteors.getDeferredTotal());
+            explosions.addProperty("queued", meteors.getQueuedCount());
+            root.add("explosions", explosions);
+        }
+
+        if (particleManager != null) {
+            JsonObject particles = new JsonObject();
+            particles.addProperty("sent", particleManager.getParticlesSent());
+            particles.addProperty("culled", particleManager.getParticlesCulled());
+            root.add("particles", particles);
+        }
+
+        JsonObject planningStats = new JsonObject();
+        planningStats.addProperty("plansApplied", plansApplied);
+        planningStats.addProperty("batchesMissed", planBatchesMissed);
+        root.add("planning", planningStats);
+
+        root.addProperty("messagesBroadcast", messagesBroadcast);
+        root.addProperty("announcementsSuppressed", announcementsSuppressed);
+
+        Runtime runtime = Runtime.getRuntime();
+        root.addProperty("heapUsedBytes", runtime.totalMemory() - runtime.freeMemory());
+        return root;
+    }
+
+    private static JsonObject toJson(LatencyHistogram histogram) {
+        JsonObject json = new JsonObject();
+        json.addProperty("count", histogram.getCount());
+        json.addProperty("meanMicros", histogram.getMeanNanos() / 1000.0);
+        json.addProperty("p50Micros", histogram.getPercentileNanos(50) / 1000.0);
+        json.addProperty("p99Micros", histogram.getPercentileNanos(99) / 1000.0);
+        json.addProperty("maxMicros", histogram.getMaxNanos() / 1000.0);
+        return json;
+    }
+}
@@ -0,0 +1,32 @@
+package com.noctivag.customenderdragon.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One particle effect emitted by ParticleManager
+ */
+@Name("customenderdragon.ParticleEmission")
+@Label("Particle Emission")
+@Description("Particle effect of a dragon sent to nearby players")
+public class ParticleEmissionEvent extends DragonEvent {
+    @Label("Effect")
+    public String effect;
+
+    @Label("Particles Sent")
+    public long particlesSent;
+
+    @Label("Particles Culled")
+    public long particlesCulled;
+
+    private static final EventType TYPE = EventType.getEventType(ParticleEmissionEvent.class);
+
+    /**
+     * Whether a recording has this event enabled, see DragonTickEvent.isRecording
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,29 @@
+package com.noctivag.customenderdragon.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A dragon entering a new phase, phase holds the new phase
+ */
+@Name("customenderdragon.PhaseChange")
+@Label("Dragon Phase Change")
+@Description("Dragon moved to another phase, including the phase change effects and broadcast")
+public class PhaseChangeEvent extends DragonEvent {
+    @Label("Previous Phase")
+    public int previousPhase;
+
+    @Label("Health Percent")
+    public double healthPercent;
+
+    private static final EventType TYPE = EventType.getEventType(PhaseChangeEvent.class);
+
+    /**
+     * Whether a recording has this event enabled, see DragonTickEvent.isRecording
+     */
+    public static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,12 @@
+package com.noctivag.customenderdragon.mixin;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.decoration.DisplayEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+@Mixin(DisplayEntity.BlockDisplayEntity.class)
+public interface BlockDisplayEntityAccessor {
+    @Invoker("setBlockState")
+    void customenderdragon$setBlockState(BlockState state);
+}
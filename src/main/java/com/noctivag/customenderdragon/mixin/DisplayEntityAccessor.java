@@ -0,0 +1,43 @@
+package com.noctivag.customenderdragon.mixin;
+
+import net.minecraft.entity.data.TrackedData;
+import net.minecraft.entity.decoration.DisplayEntity;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+/**
+ * Setters of DisplayEntity that vanilla only reaches through NBT, used by the dragon decorations.
+ * The transform is written through its tracked data, setTransformation copies every vector.
+ */
+@Mixin(DisplayEntity.class)
+public interface DisplayEntityAccessor {
+    @Accessor("TRANSLATION")
+    static TrackedData<Vector3f> customenderdragon$getTranslation() {
+        throw new AssertionError();
+    }
+
+    @Accessor("LEFT_ROTATION")
+    static TrackedData<Quaternionf> customenderdragon$getLeftRotation() {
+        throw new AssertionError();
+    }
+
+    @Accessor("SCALE")
+    static TrackedData<Vector3f> customenderdragon$getScale() {
+        throw new AssertionError();
+    }
+
+    @Invoker("setInterpolationDuration")
+    void customenderdragon$setInterpolationDuration(int ticks);
+
+    @Invoker("setStartInterpolation")
+    void customenderdragon$setStartInterpolation(int ticks);
+
+    @Invoker("setTeleportDuration")
+    void customenderdragon$setTeleportDuration(int ticks);
+
+    @Invoker("setViewRange")
+    void customenderdragon$setViewRange(float viewRange);
+}
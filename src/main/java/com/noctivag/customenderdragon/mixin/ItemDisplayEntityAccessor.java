@@ -0,0 +1,12 @@
+package com.noctivag.customenderdragon.mixin;
+
+import net.minecraft.entity.decoration.DisplayEntity;
+import net.minecraft.item.ItemStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Invoker;
+
+@Mixin(DisplayEntity.ItemDisplayEntity.class)
+public interface ItemDisplayEntityAccessor {
+    @Invoker("setItemStack")
+    void customenderdragon$setItemStack(ItemStack stack);
+}
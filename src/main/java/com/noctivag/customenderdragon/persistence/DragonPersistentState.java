@@ -0,0 +1,176 @@
+package com.noctivag.customenderdragon.persistence;
+
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.abilities.AbilityIds;
+import com.noctivag.customenderdragon.dragon.CustomDragon;
+import com.noctivag.customenderdragon.dragon.DragonPhase;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.fight.DragonFight;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.registry.RegistryWrapper;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.PersistentState;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Custom dragon state of one world, saved with the world's data.
+ *
+ * Records are kept in their NBT form and only decoded when the dragon entity loads, so
+ * dragons in unloaded chunks cost nothing. Live dragons are queued when their fight
+ * state changes and only those are re-encoded on the next save, clean records are
+ * written back as they are.
+ *
+ * Record format: id (UUID), v (variant ordinal), p (phase number), cd (compound of
+ * ability name to the game tick it is ready again, only for running cooldowns), s (seed of
+ * the dragon's random numbers), a (packed block position of the arena origin, only for
+ * dragons with an arena).
+ */
+public class DragonPersistentState extends PersistentState {
+    private static final String ID = CustomEnderDragonMod.MOD_ID + "_dragons";
+    private static final int FORMAT_VERSION = 1;
+
+    public static final PersistentState.Type<DragonPersistentState> TYPE =
+        new PersistentState.Type<>(DragonPersistentState::new, DragonPersistentState::fromNbt, null);
+
+    private final Map<UUID, NbtCompound> records = new HashMap<>();
+    // Live dragons to re-encode on the next save
+    private final Map<UUID, CustomDragon> dirtyDragons = new HashMap<>();
+
+    /**
+     * State of a world, loaded from disk on first use
+     */
+    public static DragonPersistentState get(ServerWorld world) {
+        return world.getPersistentStateManager().getOrCreate(TYPE, ID);
+    }
+
+    /**
+     * Queues a live dragon to be re-encoded on the next save
+     */
+    public void markDragonDirty(CustomDragon dragon) {
+        dirtyDragons.put(dragon.getUUID(), dragon);
+        markDirty();
+    }
+
+    /**
+     * Drops the record of a dragon that is gone for good
+     */
+    public void forget(UUID uuid) {
+        boolean removed = records.remove(uuid) != null;
+        removed |= dirtyDragons.remove(uuid) != null;
+        if (removed) {
+            markDirty();
+        }
+    }
+
+    /**
+     * Saved record of a dragon, or null if it isn't a custom dragon
+     */
+    public NbtCompound getRecord(UUID uuid) {
+        return records.get(uuid);
+    }
+
+    public int getRecordCount() {
+        return records.size();
+    }
+
+    @Override
+    public NbtCompound writeNbt(NbtCompound nbt, RegistryWrapper.WrapperLookup registries) {
+        for (CustomDragon dragon : dirtyDragons.values()) {
+            try {
+                records.put(dragon.getUUID(), encode(dragon));
+            } catch (Exception e) {
+                CustomEnderDragonMod.LOGGER.error("Failed to save dragon {}", dragon.getUUID(), e);
+            }
+        }
+        dirtyDragons.clear();
+
+        NbtList list = new NbtList();
+        list.addAll(records.values());
+        nbt.putInt("version", FORMAT_VERSION);
+        nbt.put("dragons", list);
+        return nbt;
+    }
+
+    private static DragonPersistentState fromNbt(NbtCompound nbt, RegistryWrapper.WrapperLookup registries) {
+        DragonPersistentState state = new DragonPersistentState();
+        NbtList list = nbt.getList("dragons", NbtElement.COMPOUND_TYPE);
+        for (int i = 0; i < list.size(); i++) {
+            NbtCompound record = list.getCompound(i);
+            if (record.containsUuid("id")) {
+                state.records.put(record.getUuid("id"), record);
+            }
+        }
+        return state;
+    }
+
+    private static NbtCompound encode(CustomDragon dragon) {
+        DragonFight fight = dragon.getFight();
+        long now = dragon.getDragon().getWorld().getTime();
+
+        NbtCompound record = new NbtCompound();
+        record.putUuid("id", dragon.getUUID());
+        record.putByte("v", (byte) dragon.getVariant().ordinal());
+        record.putByte("p", (byte) fight.getPhase().getPhaseNumber());
+        record.putLong("s", fight.getSeed());
+
+        // Cooldowns by name, ids are interned at runtime and may differ after a restart
+        NbtCompound cooldowns = new NbtCompound();
+        int capacity = Math.min(fight.getCooldownCapacity(), AbilityIds.count());
+        for (int id = 0; id < capacity; id++) {
+            long readyAt = fight.getCooldownReadyAt(id);
+            if (readyAt > now) {
+                cooldowns.putLong(AbilityIds.name(id), readyAt);
+            }
+        }
+        record.put("cd", cooldowns);
+
+        BlockPos arenaOrigin = dragon.getArenaOrigin();
+        if (arenaOrigin != null) {
+            record.putLong("a", arenaOrigin.asLong());
+        }
+        return record;
+    }
+
+    /**
+     * Variant of a record, null if the record is from an unknown variant
+     */
+    public static DragonVariant readVariant(NbtCompound record) {
+        int ordinal = record.getByte("v");
+        DragonVariant[] variants = DragonVariant.values();
+        return ordinal >= 0 && ordinal < variants.length ? variants[ordinal] : null;
+    }
+
+    /**
+     * Origin of the dragon's arena, null if it had none
+     */
+    public static BlockPos readArenaOrigin(NbtCompound record) {
+        return record.contains("a", NbtElement.LONG_TYPE) ? BlockPos.fromLong(record.getLong("a")) : null;
+    }
+
+    /**
+     * Restores the phase, running cooldowns and seed of a record into a fight
+     */
+    public static void apply(NbtCompound record, DragonFight fight) {
+        int phaseNumber = record.getByte("p");
+        for (DragonPhase phase : DragonPhase.values()) {
+            if (phase.getPhaseNumber() == phaseNumber) {
+                fight.restorePhase(phase);
+            }
+        }
+
+        NbtCompound cooldowns = record.getCompound("cd");
+        for (String name : cooldowns.getKeys()) {
+            fight.restoreCooldown(AbilityIds.intern(name), cooldowns.getLong(name));
+        }
+        if (record.contains("s", NbtElement.LONG_TYPE)) {
+            fight.setSeed(record.getLong("s"));
+        }
+        fight.clearDirty();
+    }
+}
@@ -0,0 +1,115 @@
+package com.noctivag.customenderdragon.planning;
+
+/**
+ * What a planner thread worked out for one dragon from a FightSnapshot. The server
+ * thread resolves the entity ids and re-checks them against the live world before
+ * using anything, a plan is only a head start and may be stale by a tick.
+ */
+public final class DragonPlan {
+    private final long time;
+    private final int targetId;
+    private final double nearbyRadius;
+    private final int[] nearbyIds;
+    private final int[] meteorOffsets;
+    private final int[] viewerIds;
+    private final boolean[] viewerFar;
+    private final int outOfRangeViewers;
+    private final boolean wingAxis;
+    private final double wingAxisX;
+    private final double wingAxisZ;
+
+    DragonPlan(long time, int targetId, double nearbyRadius, int[] nearbyIds, int[] meteorOffsets,
+               int[] viewerIds, boolean[] viewerFar, int outOfRangeViewers,
+               boolean wingAxis, double wingAxisX, double wingAxisZ) {
+        this.time = time;
+        this.targetId = targetId;
+        this.nearbyRadius = nearbyRadius;
+        this.nearbyIds = nearbyIds;
+        this.meteorOffsets = meteorOffsets;
+        this.viewerIds = viewerIds;
+        this.viewerFar = viewerFar;
+        this.outOfRangeViewers = outOfRangeViewers;
+        this.wingAxis = wingAxis;
+        this.wingAxisX = wingAxisX;
+        this.wingAxisZ = wingAxisZ;
+    }
+
+    /**
+     * Game time of the snapshot the plan was made from
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Whether the plan was made for the tick after the snapshot, older plans are ignored
+     */
+    public boolean isCurrent(long now) {
+        return now - time <= 1;
+    }
+
+    /**
+     * Entity id of the closest targetable player in range, -1 if there was none
+     */
+    public int getTargetId() {
+        return targetId;
+    }
+
+    /**
+     * Radius around the dragon's bounding box the nearby ids were collected for
+     */
+    public double getNearbyRadius() {
+        return nearbyRadius;
+    }
+
+    /**
+     * Living entities within the nearby radius, not including the dragon. Must not be modified.
+     */
+    public int[] getNearbyIds() {
+        return nearbyIds;
+    }
+
+    /**
+     * x, z block offsets of the meteors of a shower, null if no shower was planned.
+     * Must not be modified.
+     */
+    public int[] getMeteorOffsets() {
+        return meteorOffsets;
+    }
+
+    /**
+     * Players that see the dragon's ambient particles. Must not be modified.
+     */
+    public int[] getViewerIds() {
+        return viewerIds;
+    }
+
+    /**
+     * Whether the viewer at the same index is beyond the LOD distance. Must not be modified.
+     */
+    public boolean[] getViewerFar() {
+        return viewerFar;
+    }
+
+    public int getOutOfRangeViewers() {
+        return outOfRangeViewers;
+    }
+
+    /**
+     * Whether the dragon moved fast enough to orient wing trails
+     */
+    public boolean hasWingAxis() {
+        return wingAxis;
+    }
+
+    /**
+     * Unit vector from the dragon to its left wing tip, x component
+     */
+    public double getWingAxisX() {
+        return wingAxisX;
+    }
+
+    public double getWingAxisZ() {
+        return wingAxisZ;
+    }
+}
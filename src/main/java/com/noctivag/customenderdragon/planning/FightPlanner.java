@@ -0,0 +1,167 @@
+package com.noctivag.customenderdragon.planning;
+
+import com.noctivag.customenderdragon.abilities.AbilityIds;
+import com.noctivag.customenderdragon.abilities.BuiltinAbilities;
+import com.noctivag.customenderdragon.dragon.DragonPhase;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.fight.DragonFight;
+import com.noctivag.customenderdragon.fight.EmissionPlanner;
+import com.noctivag.customenderdragon.utils.ParticleGeometry;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Turns a FightSnapshot into DragonPlans. Only reads the snapshot, so any number of
+ * planners can work on the same one. One planner must only be used by one thread.
+ */
+public final class FightPlanner {
+    private static final DragonVariant[] VARIANTS = DragonVariant.values();
+    private static final DragonPhase[] PHASES = DragonPhase.values();
+
+    private final FightSnapshot snapshot;
+    private final EmissionPlanner emissionPlanner = new EmissionPlanner();
+    private final double[] wingAxis = new double[2];
+
+    // Scratch buffers, trimmed copies end up in the plans
+    private int[] ids = new int[16];
+    private boolean[] far = new boolean[16];
+
+    public FightPlanner(FightSnapshot snapshot) {
+        this.snapshot = snapshot;
+        emissionPlanner.configure(snapshot.config.general());
+    }
+
+    /**
+     * Plans the dragon at the given snapshot index
+     */
+    public DragonPlan plan(int dragon) {
+        double[] motion = snapshot.dragonMotion;
+        int m = dragon * FightSnapshot.DRAGON_STRIDE;
+        double x = motion[m];
+        double y = motion[m + 1];
+        double z = motion[m + 2];
+
+        int targetId = findTarget(x, y, z, snapshot.config.general().targetRange);
+        double nearbyRadius = snapshot.config.proximityRadius();
+        int[] nearbyIds = collectNearby(dragon, nearbyRadius);
+        int[] meteorOffsets = plansMeteors(dragon) ? planMeteors(dragon) : null;
+
+        // Ambient particles are centered two blocks above the dragon
+        int viewers = 0;
+        int outOfRange = 0;
+        for (int i = 0; i < snapshot.playerCount; i++) {
+            int p = i * FightSnapshot.POS_STRIDE;
+            double dx = snapshot.playerPositions[p] - x;
+            double dy = snapshot.playerPositions[p + 1] - (y + 2);
+            double dz = snapshot.playerPositions[p + 2] - z;
+            double distanceSq = dx * dx + dy * dy + dz * dz;
+            if (!emissionPlanner.isVisible(distanceSq)) {
+                outOfRange++;
+                continue;
+            }
+            ensureScratch(viewers + 1);
+            ids[viewers] = snapshot.playerIds[i];
+            far[viewers] = emissionPlanner.isFar(distanceSq);
+            viewers++;
+        }
+        int[] viewerIds = Arrays.copyOf(ids, viewers);
+        boolean[] viewerFar = Arrays.copyOf(far, viewers);
+
+        double velocityX = motion[m + 3];
+        double velocityY = motion[m + 4];
+        double velocityZ = motion[m + 5];
+        boolean moving = velocityX * velocityX + velocityY * velocityY + velocityZ * velocityZ >= 0.01
+            && ParticleGeometry.wingOffset(velocityX, velocityZ, 1.0, wingAxis);
+
+        return new DragonPlan(snapshot.time, targetId, nearbyRadius, nearbyIds, meteorOffsets,
+            viewerIds, viewerFar, outOfRange, moving, wingAxis[0], wingAxis[1]);
+    }
+
+    /**
+     * Closest targetable player within range, like ProximityIndex.getClosestPlayer
+     */
+    private int findTarget(double x, double y, double z, double range) {
+        double bestDistanceSq = range * range;
+        int best = -1;
+        double[] positions = snapshot.entityPositions;
+        for (int i = 0; i < snapshot.entityCount; i++) {
+            if (!snapshot.entityTargetable[i]) {
+                continue;
+            }
+            int p = i * FightSnapshot.POS_STRIDE;
+            double dx = positions[p] - x;
+            double dy = positions[p + 1] - y;
+            double dz = positions[p + 2] - z;
+            double distanceSq = dx * dx + dy * dy + dz * dz;
+            if (distanceSq < bestDistanceSq) {
+                bestDistanceSq = distanceSq;
+                best = snapshot.entityIds[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Entities whose bounding box intersects the dragon's box expanded by the radius
+     */
+    private int[] collectNearby(int dragon, double radius) {
+        double[] box = snapshot.dragonBoxes;
+        int b = dragon * FightSnapshot.BOX_STRIDE;
+        double minX = box[b] - radius;
+        double minY = box[b + 1] - radius;
+        double minZ = box[b + 2] - radius;
+        double maxX = box[b + 3] + radius;
+        double maxY = box[b + 4] + radius;
+        double maxZ = box[b + 5] + radius;
+        int dragonId = snapshot.dragonIds[dragon];
+
+        int count = 0;
+        double[] boxes = snapshot.entityBoxes;
+        for (int i = 0; i < snapshot.entityCount; i++) {
+            int e = i * FightSnapshot.BOX_STRIDE;
+            if (snapshot.entityIds[i] == dragonId
+                || boxes[e] >= maxX || boxes[e + 3] <= minX
+                || boxes[e + 1] >= maxY || boxes[e + 4] <= minY
+                || boxes[e + 2] >= maxZ || boxes[e + 5] <= minZ) {
+                continue;
+            }
+            ensureScratch(count + 1);
+            ids[count++] = snapshot.entityIds[i];
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    private boolean plansMeteors(int dragon) {
+        DragonVariant variant = VARIANTS[snapshot.dragonVariants[dragon]];
+        DragonPhase phase = PHASES[snapshot.dragonPhases[dragon]];
+        for (int abilityId : snapshot.dispatch.get(variant, phase)) {
+            if (abilityId == AbilityIds.METEOR_SHOWER) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Draws the offsets from the dragon's random numbers for the tick the plan is for,
+     * the same ones the server thread would draw without a plan
+     */
+    private int[] planMeteors(int dragon) {
+        SplittableRandom random = new SplittableRandom(
+            DragonFight.streamSeed(snapshot.dragonSeeds[dragon], snapshot.time + 1));
+        int[] offsets = new int[BuiltinAbilities.METEOR_COUNT * 2];
+        int half = BuiltinAbilities.METEOR_SPREAD / 2;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = random.nextInt(BuiltinAbilities.METEOR_SPREAD) - half;
+        }
+        return offsets;
+    }
+
+    private void ensureScratch(int size) {
+        if (ids.length < size) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            far = Arrays.copyOf(far, far.length * 2);
+        }
+    }
+}
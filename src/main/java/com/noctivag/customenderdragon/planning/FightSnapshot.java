@@ -0,0 +1,184 @@
+package com.noctivag.customenderdragon.planning;
+
+import com.noctivag.customenderdragon.abilities.AbilityDispatch;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+
+import java.util.Arrays;
+
+/**
+ * Positions of the dragons with ability work coming up, the living entities around them
+ * and the players of their world, copied into primitive arrays at the end of a world tick.
+ * Not changed once built, so planner threads can read it while the server keeps ticking.
+ */
+public final class FightSnapshot {
+    static final int DRAGON_STRIDE = 6; // x, y, z, velocity x, y, z
+    static final int BOX_STRIDE = 6; // min x, y, z, max x, y, z
+    static final int POS_STRIDE = 3;
+
+    final long time;
+    final CompiledConfig config;
+    final AbilityDispatch dispatch;
+
+    final int dragonCount;
+    final int[] dragonIds;
+    final byte[] dragonVariants;
+    final byte[] dragonPhases;
+    final long[] dragonSeeds;
+    final double[] dragonMotion;
+    final double[] dragonBoxes;
+
+    final int entityCount;
+    final int[] entityIds;
+    final boolean[] entityTargetable;
+    final double[] entityPositions;
+    final double[] entityBoxes;
+
+    final int playerCount;
+    final int[] playerIds;
+    final double[] playerPositions;
+
+    private FightSnapshot(Builder builder) {
+        this.time = builder.time;
+        this.config = builder.dispatch.config();
+        this.dispatch = builder.dispatch;
+        this.dragonCount = builder.dragonCount;
+        this.dragonIds = builder.dragonIds;
+        this.dragonVariants = builder.dragonVariants;
+        this.dragonPhases = builder.dragonPhases;
+        this.dragonSeeds = builder.dragonSeeds;
+        this.dragonMotion = builder.dragonMotion;
+        this.dragonBoxes = builder.dragonBoxes;
+        this.entityCount = builder.entityCount;
+        this.entityIds = builder.entityIds;
+        this.entityTargetable = builder.entityTargetable;
+        this.entityPositions = builder.entityPositions;
+        this.entityBoxes = builder.entityBoxes;
+        this.playerCount = builder.playerCount;
+        this.playerIds = builder.playerIds;
+        this.playerPositions = builder.playerPositions;
+    }
+
+    /**
+     * Game time the snapshot was taken at, its plans are for the following tick
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public int getDragonCount() {
+        return dragonCount;
+    }
+
+    /**
+     * Collects snapshots on the server thread. The snapshot shares the builder's arrays, so
+     * the builder is only reset for the next one once the plans of the last one are done;
+     * the arrays are kept between snapshots.
+     */
+    public static final class Builder {
+        private long time;
+        private AbilityDispatch dispatch;
+
+        private int dragonCount;
+        private int[] dragonIds = new int[8];
+        private byte[] dragonVariants = new byte[8];
+        private byte[] dragonPhases = new byte[8];
+        private long[] dragonSeeds = new long[8];
+        private double[] dragonMotion = new double[8 * DRAGON_STRIDE];
+        private double[] dragonBoxes = new double[8 * BOX_STRIDE];
+
+        private int entityCount;
+        private int[] entityIds = new int[32];
+        private boolean[] entityTargetable = new boolean[32];
+        private double[] entityPositions = new double[32 * POS_STRIDE];
+        private double[] entityBoxes = new double[32 * BOX_STRIDE];
+
+        private int playerCount;
+        private int[] playerIds = new int[8];
+        private double[] playerPositions = new double[8 * POS_STRIDE];
+
+        /**
+         * Starts a new snapshot, must not be called while plans of the last one are in progress
+         */
+        public void reset(long time, AbilityDispatch dispatch) {
+            this.time = time;
+            this.dispatch = dispatch;
+            this.dragonCount = 0;
+            this.entityCount = 0;
+            this.playerCount = 0;
+        }
+
+        public void addDragon(int id, int variant, int phase, long seed, double x, double y, double z,
+                              double velocityX, double velocityY, double velocityZ,
+                              double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            if (dragonCount == dragonIds.length) {
+                int size = dragonCount * 2;
+                dragonIds = Arrays.copyOf(dragonIds, size);
+                dragonVariants = Arrays.copyOf(dragonVariants, size);
+                dragonPhases = Arrays.copyOf(dragonPhases, size);
+                dragonSeeds = Arrays.copyOf(dragonSeeds, size);
+                dragonMotion = Arrays.copyOf(dragonMotion, size * DRAGON_STRIDE);
+                dragonBoxes = Arrays.copyOf(dragonBoxes, size * BOX_STRIDE);
+            }
+            int i = dragonCount++;
+            dragonIds[i] = id;
+            dragonVariants[i] = (byte) variant;
+            dragonPhases[i] = (byte) phase;
+            dragonSeeds[i] = seed;
+            setTriple(dragonMotion, i * DRAGON_STRIDE, x, y, z);
+            setTriple(dragonMotion, i * DRAGON_STRIDE + 3, velocityX, velocityY, velocityZ);
+            setTriple(dragonBoxes, i * BOX_STRIDE, minX, minY, minZ);
+            setTriple(dragonBoxes, i * BOX_STRIDE + 3, maxX, maxY, maxZ);
+        }
+
+        /**
+         * Adds a living entity near the dragons, targetable marks players that can be attacked
+         */
+        public void addEntity(int id, boolean targetable, double x, double y, double z,
+                              double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            if (entityCount == entityIds.length) {
+                int size = entityCount * 2;
+                entityIds = Arrays.copyOf(entityIds, size);
+                entityTargetable = Arrays.copyOf(entityTargetable, size);
+                entityPositions = Arrays.copyOf(entityPositions, size * POS_STRIDE);
+                entityBoxes = Arrays.copyOf(entityBoxes, size * BOX_STRIDE);
+            }
+            int i = entityCount++;
+            entityIds[i] = id;
+            entityTargetable[i] = targetable;
+            setTriple(entityPositions, i * POS_STRIDE, x, y, z);
+            setTriple(entityBoxes, i * BOX_STRIDE, minX, minY, minZ);
+            setTriple(entityBoxes, i * BOX_STRIDE + 3, maxX, maxY, maxZ);
+        }
+
+        /**
+         * Adds a player of the world as a potential particle viewer
+         */
+        public void addPlayer(int id, double x, double y, double z) {
+            if (playerCount == playerIds.length) {
+                int size = playerCount * 2;
+                playerIds = Arrays.copyOf(playerIds, size);
+                playerPositions = Arrays.copyOf(playerPositions, size * POS_STRIDE);
+            }
+            int i = playerCount++;
+            playerIds[i] = id;
+            setTriple(playerPositions, i * POS_STRIDE, x, y, z);
+        }
+
+        public int getDragonCount() {
+            return dragonCount;
+        }
+
+        public FightSnapshot build() {
+            if (dispatch == null) {
+                throw new IllegalStateException("Snapshot was not reset");
+            }
+            return new FightSnapshot(this);
+        }
+
+        private static void setTriple(double[] array, int offset, double a, double b, double c) {
+            array[offset] = a;
+            array[offset + 1] = b;
+            array[offset + 2] = c;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.noctivag.customenderdragon.planning;
+
+/**
+ * The plans made from one snapshot, indexed like the snapshot's dragons
+ */
+public final class PlanBatch {
+    private final FightSnapshot snapshot;
+    private final DragonPlan[] plans;
+    private final long planningNanos;
+
+    PlanBatch(FightSnapshot snapshot, DragonPlan[] plans, long planningNanos) {
+        this.snapshot = snapshot;
+        this.plans = plans;
+        this.planningNanos = planningNanos;
+    }
+
+    public FightSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        return plans.length;
+    }
+
+    /**
+     * Plan of the dragon added at the given index, null if planning it failed
+     */
+    public DragonPlan get(int index) {
+        return plans[index];
+    }
+
+    /**
+     * Time the worker threads spent on this batch, summed over all of them
+     */
+    public long getPlanningNanos() {
+        return planningNanos;
+    }
+}
@@ -0,0 +1,92 @@
+package com.noctivag.customenderdragon.planning;
+
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker threads that plan the next tick of the dragons in a FightSnapshot.
+ * The server thread submits a snapshot at the end of a world tick and picks the batch
+ * up at the start of the next one; it never waits, a batch that isn't done by then
+ * is dropped and the dragons fall back to planning on the server thread.
+ */
+public class PlanningPipeline {
+    // Below this a task costs more to hand over than it saves
+    private static final int MIN_DRAGONS_PER_TASK = 16;
+
+    private final ExecutorService executor;
+    private final int threads;
+
+    /**
+     * Creates a pipeline with the given number of worker threads, 0 disables it
+     */
+    public PlanningPipeline(int threads) {
+        this.threads = threads;
+        if (threads <= 0) {
+            this.executor = null;
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "CustomEnderDragon-Planner-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    /**
+     * Plans every dragon of the snapshot, split over the worker threads
+     */
+    public CompletableFuture<PlanBatch> submit(FightSnapshot snapshot) {
+        int dragons = snapshot.getDragonCount();
+        DragonPlan[] plans = new DragonPlan[dragons];
+        int tasks = Math.max(1, Math.min(threads, dragons / MIN_DRAGONS_PER_TASK));
+        int perTask = (dragons + tasks - 1) / tasks;
+
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Long>[] parts = new CompletableFuture[tasks];
+        for (int t = 0; t < tasks; t++) {
+            int from = t * perTask;
+            int to = Math.min(dragons, from + perTask);
+            // Each task writes its own range of the array, the join below publishes them
+            parts[t] = CompletableFuture.supplyAsync(() -> planRange(snapshot, plans, from, to), executor);
+        }
+
+        return CompletableFuture.allOf(parts).thenApply(done -> {
+            long nanos = 0;
+            for (CompletableFuture<Long> part : parts) {
+                nanos += part.join();
+            }
+            return new PlanBatch(snapshot, plans, nanos);
+        });
+    }
+
+    private static long planRange(FightSnapshot snapshot, DragonPlan[] plans, int from, int to) {
+        long start = System.nanoTime();
+        FightPlanner planner = new FightPlanner(snapshot);
+        for (int i = from; i < to; i++) {
+            try {
+                plans[i] = planner.plan(i);
+            } catch (Exception e) {
+                CustomEnderDragonMod.LOGGER.error("Error planning dragon {}", snapshot.dragonIds[i], e);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Stops the worker threads, tasks that have not started yet never run
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.noctivag.customenderdragon.utils;
+
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ModConfig;
+import com.noctivag.customenderdragon.dragon.CustomDragon;
+import com.noctivag.customenderdragon.dragon.DragonPhase;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.network.packet.s2c.play.GameMessageS2CPacket;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sends dragon announcements to the configured audience.
+ * Messages come from the MessagesConfig templates and are formatted into one chat packet
+ * per variant and phase, that packet is shared by every recipient and rebuilt only when
+ * a new config is published. Phase change announcements of one dragon are limited to one
+ * per announcementCooldownTicks, and at most maxAnnouncementsPerTick go out per server
+ * tick over all dragons; anything above that is dropped rather than queued. Deaths happen
+ * once per dragon and are always announced.
+ */
+public class BroadcastService {
+    private static final DragonVariant[] VARIANTS = DragonVariant.values();
+    private static final DragonPhase[] PHASES = DragonPhase.values();
+
+    public enum Audience {
+        RADIUS,
+        WORLD,
+        SERVER
+    }
+
+    // Packets of the config they were formatted from, filled on first use
+    private CompiledConfig packetsFor;
+    private final GameMessageS2CPacket[][] phasePackets = new GameMessageS2CPacket[VARIANTS.length][PHASES.length];
+    private final GameMessageS2CPacket[][] deathPackets = new GameMessageS2CPacket[VARIANTS.length][PHASES.length];
+
+    private int sentThisTick;
+
+    /**
+     * Resets the per-tick announcement count, called at the start of every server tick
+     */
+    public void beginTick() {
+        sentThisTick = 0;
+    }
+
+    /**
+     * Announces that the dragon entered its current phase, unless the dragon announced
+     * something within the cooldown or this tick's announcements are used up
+     */
+    public void announcePhaseChange(CustomDragon dragon) {
+        EnderDragonEntity entity = dragon.getDragon();
+        if (!(entity.getWorld() instanceof ServerWorld world)) {
+            return;
+        }
+        CompiledConfig config = ModConfig.current();
+        CompiledConfig.General general = config.general();
+
+        long now = world.getTime();
+        long last = dragon.getLastAnnouncementTick();
+        boolean coolingDown = last != Long.MIN_VALUE && now - last < general.announcementCooldownTicks;
+        if (coolingDown || !takeSlot(general)) {
+            recordSuppressed();
+            return;
+        }
+        dragon.setLastAnnouncementTick(now);
+
+        int variant = dragon.getVariant().ordinal();
+        int phase = dragon.getCurrentPhase().ordinal();
+        dropStalePackets(config);
+        GameMessageS2CPacket packet = phasePackets[variant][phase];
+        if (packet == null) {
+            packet = format(config.messages().phaseChange, config, dragon.getVariant(), dragon.getCurrentPhase());
+            phasePackets[variant][phase] = packet;
+        }
+        send(packet, general.phaseChangeAudience, world, entity, general.announcementRadius);
+    }
+
+    /**
+     * Announces the dragon's death. Deaths skip the per-dragon cooldown and the per-tick
+     * limit, a kill in a tick full of phase changes must not go unannounced.
+     */
+    public void announceDeath(CustomDragon dragon) {
+        EnderDragonEntity entity = dragon.getDragon();
+        if (!(entity.getWorld() instanceof ServerWorld world)) {
+            return;
+        }
+        CompiledConfig config = ModConfig.current();
+        CompiledConfig.General general = config.general();
+
+        // Keyed by phase as well, a template may name the phase the dragon died in
+        int variant = dragon.getVariant().ordinal();
+        int phase = dragon.getCurrentPhase().ordinal();
+        dropStalePackets(config);
+        GameMessageS2CPacket packet = deathPackets[variant][phase];
+        if (packet == null) {
+            packet = format(config.messages().dragonKilled, config, dragon.getVariant(), dragon.getCurrentPhase());
+            deathPackets[variant][phase] = packet;
+        }
+        send(packet, general.deathAudience, world, entity, general.announcementRadius);
+    }
+
+    private boolean takeSlot(CompiledConfig.General general) {
+        if (sentThisTick >= general.maxAnnouncementsPerTick) {
+            return false;
+        }
+        sentThisTick++;
+        return true;
+    }
+
+    /**
+     * Drops the packets formatted from an older config
+     */
+    private void dropStalePackets(CompiledConfig config) {
+        if (packetsFor != config) {
+            packetsFor = config;
+            for (int i = 0; i < VARIANTS.length; i++) {
+                Arrays.fill(phasePackets[i], null);
+                Arrays.fill(deathPackets[i], null);
+            }
+        }
+    }
+
+    /**
+     * Fills the %variant% and %phase% placeholders of a template
+     */
+    private static GameMessageS2CPacket format(String template, CompiledConfig config, DragonVariant variant,
+                                               DragonPhase phase) {
+        String message = template
+            .replace("%variant%", config.variant(variant).displayName)
+            .replace("%phase%", Integer.toString(phase.getPhaseNumber()));
+        return new GameMessageS2CPacket(Text.literal(message), false);
+    }
+
+    private void send(GameMessageS2CPacket packet, Audience audience, ServerWorld world, EnderDragonEntity dragon,
+                      double radius) {
+        int recipients = 0;
+        switch (audience) {
+            case SERVER -> {
+                MinecraftServer server = world.getServer();
+                if (server != null) {
+                    server.getPlayerManager().sendToAll(packet);
+                    recipients = server.getPlayerManager().getPlayerList().size();
+                }
+            }
+            case WORLD -> {
+                List<ServerPlayerEntity> players = world.getPlayers();
+                for (int i = 0; i < players.size(); i++) {
+                    players.get(i).networkHandler.sendPacket(packet);
+                }
+                recipients = players.size();
+            }
+            case RADIUS -> {
+                double radiusSq = radius * radius;
+                List<ServerPlayerEntity> players = world.getPlayers();
+                for (int i = 0; i < players.size(); i++) {
+                    ServerPlayerEntity player = players.get(i);
+                    if (player.squaredDistanceTo(dragon) <= radiusSq) {
+                        player.networkHandler.sendPacket(packet);
+                        recipients++;
+                    }
+                }
+            }
+        }
+
+        var metrics = CustomEnderDragonMod.getMetrics();
+        if (metrics != null) {
+            metrics.recordMessages(recipients);
+        }
+    }
+
+    private static void recordSuppressed() {
+        var metrics = CustomEnderDragonMod.getMetrics();
+        if (metrics != null) {
+            metrics.recordAnnouncementSuppressed();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.noctivag.customenderdragon.utils;
+
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.ModConfig;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * Loot of one variant, compiled when the config loads. Entries are resolved to their Item
+ * and amount range once, and the weights are turned into an alias table (Vose) so every
+ * roll picks an entry in constant time however many entries there are. Rolls add up per
+ * item, so a kill yields one count per distinct item rather than one drop per roll.
+ */
+public final class LootTable {
+    public static final LootTable EMPTY = new LootTable(new Item[0], new int[0], new int[0], new int[0],
+        new double[0], new int[0], 0);
+
+    private final Item[] items; // distinct items, what roll() counts are indexed by
+    private final int[] entryItem; // index into items per entry
+    private final int[] minAmount;
+    private final int[] maxAmount;
+    private final double[] probability; // chance an entry's column keeps its own entry
+    private final int[] alias; // entry a column falls through to otherwise
+    private final int rolls;
+
+    private LootTable(Item[] items, int[] entryItem, int[] minAmount, int[] maxAmount, double[] probability,
+                      int[] alias, int rolls) {
+        this.items = items;
+        this.entryItem = entryItem;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.probability = probability;
+        this.alias = alias;
+        this.rolls = rolls;
+    }
+
+    /**
+     * Compiles the loot entries of a variant, sorted by name so the same seed always rolls
+     * the same loot. Entries with an unknown item or no weight are skipped.
+     */
+    public static LootTable compile(Map<String, ModConfig.LootConfig> loot, int rolls) {
+        if (loot == null || loot.isEmpty() || rolls <= 0) {
+            return EMPTY;
+        }
+
+        List<Item> items = new ArrayList<>();
+        List<int[]> entries = new ArrayList<>(); // item index, min, max, weight
+        for (Map.Entry<String, ModConfig.LootConfig> entry : new TreeMap<>(loot).entrySet()) {
+            ModConfig.LootConfig config = entry.getValue();
+            if (config == null || config.chance <= 0) {
+                continue;
+            }
+            Item item = resolveItem(config.material);
+            int[] amount = parseAmount(config.amount);
+            if (item == null || amount == null) {
+                CustomEnderDragonMod.LOGGER.warn("Skipping loot entry {}: unknown material {} or bad amount {}",
+                    entry.getKey(), config.material, config.amount);
+                continue;
+            }
+            int itemIndex = items.indexOf(item);
+            if (itemIndex < 0) {
+                itemIndex = items.size();
+                items.add(item);
+            }
+            entries.add(new int[]{itemIndex, amount[0], amount[1], config.chance});
+        }
+        if (entries.isEmpty()) {
+            return EMPTY;
+        }
+
+        int n = entries.size();
+        int[] entryItem = new int[n];
+        int[] minAmount = new int[n];
+        int[] maxAmount = new int[n];
+        double[] weights = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            int[] entry = entries.get(i);
+            entryItem[i] = entry[0];
+            minAmount[i] = entry[1];
+            maxAmount[i] = entry[2];
+            weights[i] = entry[3];
+            total += entry[3];
+        }
+
+        // Vose's alias method: scale the weights to an average of 1, then pair every
+        // column below 1 with one above it that fills the rest
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+        ArrayDeque<Integer> small = new ArrayDeque<>();
+        ArrayDeque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            probability[i] = weights[i] * n / total;
+            (probability[i] < 1.0 ? small : large).addLast(i);
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pollFirst();
+            int more = large.pollFirst();
+            alias[less] = more;
+            probability[more] = probability[more] + probability[less] - 1.0;
+            (probability[more] < 1.0 ? small : large).addLast(more);
+        }
+        // Whatever is left is 1 up to rounding errors
+        while (!large.isEmpty()) {
+            probability[large.pollFirst()] = 1.0;
+        }
+        while (!small.isEmpty()) {
+            probability[small.pollFirst()] = 1.0;
+        }
+
+        return new LootTable(items.toArray(new Item[0]), entryItem, minAmount, maxAmount, probability, alias, rolls);
+    }
+
+    /**
+     * Looks up an item by its config name, "BLAZE_ROD" or "minecraft:blaze_rod"
+     */
+    private static Item resolveItem(String material) {
+        if (material == null) {
+            return null;
+        }
+        Identifier id = Identifier.tryParse(material.toLowerCase(Locale.ROOT));
+        return id != null && Registries.ITEM.containsId(id) ? Registries.ITEM.get(id) : null;
+    }
+
+    /**
+     * Parses "3" or "2-5" into {min, max}, null if it isn't a valid range of at least 1
+     */
+    public static int[] parseAmount(String amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            int dash = amount.indexOf('-');
+            int min = Integer.parseInt((dash < 0 ? amount : amount.substring(0, dash)).trim());
+            int max = dash < 0 ? min : Integer.parseInt(amount.substring(dash + 1).trim());
+            return min >= 1 && max >= min ? new int[]{min, max} : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Rolls the table and returns the total amount of each item, indexed like getItem()
+     */
+    public int[] roll(RandomGenerator random) {
+        int[] counts = new int[items.length];
+        int n = probability.length;
+        for (int r = 0; r < rolls; r++) {
+            int column = random.nextInt(n);
+            int entry = random.nextDouble() < probability[column] ? column : alias[column];
+            int amount = minAmount[entry] == maxAmount[entry]
+                ? minAmount[entry]
+                : random.nextInt(minAmount[entry], maxAmount[entry] + 1);
+            counts[entryItem[entry]] += amount;
+        }
+        return counts;
+    }
+
+    public Item getItem(int index) {
+        return items[index];
+    }
+
+    public int getItemCount() {
+        return items.length;
+    }
+
+    public boolean isEmpty() {
+        return rolls == 0 || probability.length == 0;
+    }
+}
@@ -0,0 +1,36 @@
+package com.noctivag.customenderdragon.utils;
+
+/**
+ * Pure geometry used by the particle effects, kept free of Minecraft types
+ * so it can be benchmarked and reused without a world
+ */
+public final class ParticleGeometry {
+    private ParticleGeometry() {}
+
+    /**
+     * Writes the x/z offsets of evenly spaced points on a horizontal circle into out,
+     * which must hold at least points * 2 values
+     */
+    public static void ring(double radius, int points, double[] out) {
+        for (int j = 0; j < points; j++) {
+            double angle = 2 * Math.PI * j / points;
+            out[j * 2] = radius * Math.cos(angle);
+            out[j * 2 + 1] = radius * Math.sin(angle);
+        }
+    }
+
+    /**
+     * Writes the x/z offset from the dragon to its left wing tip into out, the right wing is
+     * the negated offset. The wing axis is perpendicular to the horizontal velocity.
+     * Returns false if the dragon has no horizontal movement to derive the axis from.
+     */
+    public static boolean wingOffset(double velocityX, double velocityZ, double span, double[] out) {
+        double length = Math.sqrt(velocityX * velocityX + velocityZ * velocityZ);
+        if (length < 1.0E-4) {
+            return false;
+        }
+        out[0] = velocityZ / length * span;
+        out[1] = -velocityX / length * span;
+        return true;
+    }
+}
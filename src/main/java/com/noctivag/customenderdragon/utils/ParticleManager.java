@@ -1,86 +1,295 @@
 package com.noctivag.customenderdragon.utils;
 
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.ModConfig;
 import com.noctivag.customenderdragon.dragon.DragonPhase;
 import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.fight.EmissionPlanner;
+import com.noctivag.customenderdragon.metrics.ParticleEmissionEvent;
+import com.noctivag.customenderdragon.planning.DragonPlan;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import net.minecraft.entity.boss.dragon.EnderDragonEntity;
 import net.minecraft.particle.ParticleEffect;
+import net.minecraft.particle.ParticleType;
 import net.minecraft.particle.ParticleTypes;
+import net.minecraft.particle.SimpleParticleType;
+import net.minecraft.registry.Registries;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
 import net.minecraft.util.math.Vec3d;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Manages particle effects for custom dragons (Fabric)
+ *
+ * Effects are the variant's configured emitters, compiled into ParticleShapes when the
+ * config loads. Particles are only sent to players within the configured view distance, players beyond the
+ * LOD distance receive a reduced count and no fine detail (wing trails, every other ring point),
+ * and every player has a per-tick particle budget.
  */
 public class ParticleManager {
+    private final EmissionPlanner planner = new EmissionPlanner();
+
+    // Particles used by each player during the current tick, keyed by entity id
+    private final Int2IntOpenHashMap budgetUsed = new Int2IntOpenHashMap();
+
+    // Viewers of the emission currently being processed, reused between calls
+    private final List<ServerPlayerEntity> viewers = new ArrayList<>();
+    private boolean[] viewerFar = new boolean[16];
+    private int outOfRangePlayers;
+
+    // Resolved particle types by config name, unknown names map to null
+    private final Map<String, ParticleEffect> particleTypes = new HashMap<>();
+    private final Set<String> warnedTypes = new HashSet<>();
+    private final double[] wingAxis = new double[2];
+
+    private long particlesSent;
+    private long particlesCulled;
+
+    /**
+     * Resets the per-player budgets, must be called once at the start of every server tick
+     */
+    public void beginTick() {
+        budgetUsed.clear();
+    }
 
-    public void spawnParticles(EnderDragonEntity dragon, DragonVariant variant) {
+    /**
+     * Emits the dragon's AMBIENT emitters. With a current plan the viewers and wing axis
+     * come from it, the plan's viewers are only checked for still being in the world.
+     */
+    public void spawnParticles(EnderDragonEntity dragon, DragonVariant variant, DragonPhase phase, DragonPlan plan) {
         if (!(dragon.getWorld() instanceof ServerWorld serverWorld)) {
             return;
         }
 
-        ParticleEffect particle = getVariantParticle(variant);
-        Vec3d pos = dragon.getPos().add(0, 2, 0);
+        ParticleEmissionEvent event = beginEmission();
 
-        spawnParticlesForPlayers(serverWorld, particle, pos.x, pos.y, pos.z, 5, 0.5, 0.5, 0.5, 0.0);
+        // Viewers are picked around the ambient burst two blocks above the dragon
+        if (plan != null) {
+            collectPlannedViewers(serverWorld, plan);
+        } else {
+            collectViewers(serverWorld, dragon.getX(), dragon.getY() + 2, dragon.getZ());
+        }
+
+        boolean moving;
+        if (plan != null) {
+            moving = plan.hasWingAxis();
+            wingAxis[0] = plan.getWingAxisX();
+            wingAxis[1] = plan.getWingAxisZ();
+        } else {
+            Vec3d velocity = dragon.getVelocity();
+            moving = velocity.lengthSquared() >= 0.01 && ParticleGeometry.wingOffset(velocity.x, velocity.z, 1.0, wingAxis);
+        }
 
-        // Wing trail effects
-        spawnWingTrail(serverWorld, dragon, particle);
+        ParticleShape[] shapes = ModConfig.current().variant(variant).particles(ParticleShape.Trigger.AMBIENT);
+        for (ParticleShape shape : shapes) {
+            emitShape(serverWorld, shape, variant, dragon.getX(), dragon.getY(), dragon.getZ(), moving);
+        }
+
+        commitEmission(event, "ambient", dragon, variant, phase);
     }
 
-    private void spawnWingTrail(ServerWorld world, EnderDragonEntity dragon, ParticleEffect particle) {
-        Vec3d pos = dragon.getPos();
+    public void spawnPhaseChangeEffect(EnderDragonEntity dragon, DragonVariant variant, DragonPhase phase) {
+        if (!(dragon.getWorld() instanceof ServerWorld serverWorld)) {
+            return;
+        }
+
+        ParticleEmissionEvent event = beginEmission();
+        collectViewers(serverWorld, dragon.getX(), dragon.getY(), dragon.getZ());
+
         Vec3d velocity = dragon.getVelocity();
+        boolean moving = velocity.lengthSquared() >= 0.01 && ParticleGeometry.wingOffset(velocity.x, velocity.z, 1.0, wingAxis);
 
-        if (velocity.lengthSquared() < 0.01) {
+        ParticleShape[] shapes = ModConfig.current().variant(variant).particles(ParticleShape.Trigger.PHASE_CHANGE);
+        for (ParticleShape shape : shapes) {
+            emitShape(serverWorld, shape, variant, dragon.getX(), dragon.getY(), dragon.getZ(), moving);
+        }
+
+        commitEmission(event, "phase-change", dragon, variant, phase);
+    }
+
+    /**
+     * Emits every point of a compiled shape around the given origin to the collected viewers.
+     * Oriented shapes are turned to the wing axis and skipped while the dragon isn't moving.
+     */
+    private void emitShape(ServerWorld world, ParticleShape shape, DragonVariant variant,
+                           double x, double y, double z, boolean moving) {
+        if (shape.isOriented() && !moving) {
             return;
         }
 
-        Vec3d right = new Vec3d(velocity.z, 0, -velocity.x).normalize().multiply(4);
-        Vec3d leftWing = pos.add(right);
-        Vec3d rightWing = pos.subtract(right);
+        ParticleEffect particle = resolveParticle(shape.getParticleType(), variant);
+        float[] offsets = shape.getOffsets();
+        double spread = shape.getSpread();
+        double axisX = wingAxis[0];
+        double axisZ = wingAxis[1];
 
-        spawnParticlesForPlayers(world, particle, leftWing.x, leftWing.y, leftWing.z, 2, 0.1, 0.1, 0.1, 0.0);
-        spawnParticlesForPlayers(world, particle, rightWing.x, rightWing.y, rightWing.z, 2, 0.1, 0.1, 0.1, 0.0);
+        for (int j = 0; j < shape.getPointCount(); j++) {
+            double offsetX = offsets[j * 3];
+            double offsetY = offsets[j * 3 + 1];
+            double offsetZ = offsets[j * 3 + 2];
+            if (shape.isOriented()) {
+                // Local x runs along the wing axis, local z along the heading
+                double lateral = offsetX;
+                offsetX = lateral * axisX - offsetZ * axisZ;
+                offsetZ = lateral * axisZ + offsetZ * axisX;
+            }
+            spawnParticlesForPlayers(world, particle, x + offsetX, y + offsetY, z + offsetZ, shape.getCount(),
+                spread, spread, spread, 0.0, shape.isNearOnly(j));
+        }
     }
 
-    public void spawnPhaseChangeEffect(EnderDragonEntity dragon, DragonVariant variant, DragonPhase phase) {
-        if (!(dragon.getWorld() instanceof ServerWorld serverWorld)) {
-            return;
+    /**
+     * Looks up a particle type by its config name, falling back to the variant's
+     * particle for unknown names or types that need extra parameters
+     */
+    private ParticleEffect resolveParticle(String name, DragonVariant variant) {
+        ParticleEffect effect = particleTypes.get(name);
+        if (effect == null && !particleTypes.containsKey(name)) {
+            Identifier id = Identifier.tryParse(name.toLowerCase(Locale.ROOT));
+            ParticleType<?> type = id != null ? Registries.PARTICLE_TYPE.get(id) : null;
+            effect = type instanceof SimpleParticleType simple ? simple : null;
+            particleTypes.put(name, effect);
+        }
+        if (effect == null) {
+            if (warnedTypes.add(name)) {
+                CustomEnderDragonMod.LOGGER.warn("Unknown or unsupported particle type {}, using the variant default", name);
+            }
+            return getVariantParticle(variant);
+        }
+        return effect;
+    }
+
+    /**
+     * Starts the JFR event of an emission, null while no recording has it enabled
+     */
+    private ParticleEmissionEvent beginEmission() {
+        if (!ParticleEmissionEvent.isRecording()) {
+            return null;
+        }
+        ParticleEmissionEvent event = new ParticleEmissionEvent();
+        // Counters are snapshotted so the event carries this emission's share only
+        event.particlesSent = particlesSent;
+        event.particlesCulled = particlesCulled;
+        event.begin();
+        return event;
+    }
+
+    private void commitEmission(ParticleEmissionEvent event, String effect, EnderDragonEntity dragon,
+                                DragonVariant variant, DragonPhase phase) {
+        if (event != null && event.shouldCommit()) {
+            event.tag(dragon.getUuid(), variant, phase);
+            event.effect = effect;
+            event.particlesSent = particlesSent - event.particlesSent;
+            event.particlesCulled = particlesCulled - event.particlesCulled;
+            event.commit();
+        }
+    }
+
+    /**
+     * Collects the players that can see an emission centered at the given position.
+     * The result is reused by every spawnParticlesForPlayers call of the same effect.
+     */
+    private void collectViewers(ServerWorld world, double x, double y, double z) {
+        planner.configure(ModConfig.current().general());
+
+        viewers.clear();
+        outOfRangePlayers = 0;
+
+        List<ServerPlayerEntity> players = world.getPlayers();
+        if (viewerFar.length < players.size()) {
+            viewerFar = new boolean[Math.max(players.size(), viewerFar.length * 2)];
+        }
+
+        for (int i = 0; i < players.size(); i++) {
+            ServerPlayerEntity player = players.get(i);
+            double distanceSq = player.squaredDistanceTo(x, y, z);
+            if (!planner.isVisible(distanceSq)) {
+                outOfRangePlayers++;
+                continue;
+            }
+            viewerFar[viewers.size()] = planner.isFar(distanceSq);
+            viewers.add(player);
         }
+    }
 
-        ParticleEffect particle = getVariantParticle(variant);
-        Vec3d pos = dragon.getPos();
+    /**
+     * Takes the viewers a planner thread collected, dropping players that left the world
+     */
+    private void collectPlannedViewers(ServerWorld world, DragonPlan plan) {
+        planner.configure(ModConfig.current().general());
 
-        // Create expanding ring effect
-        for (int ring = 0; ring < 3; ring++) {
-            double radius = 3.0 + (ring * 2);
-            int points = 30 + (ring * 10);
+        viewers.clear();
+        outOfRangePlayers = plan.getOutOfRangeViewers();
 
-            for (int j = 0; j < points; j++) {
-                double angle = 2 * Math.PI * j / points;
-                double x = pos.x + radius * Math.cos(angle);
-                double z = pos.z + radius * Math.sin(angle);
-                double y = pos.y + 1;
+        int[] ids = plan.getViewerIds();
+        boolean[] far = plan.getViewerFar();
+        if (viewerFar.length < ids.length) {
+            viewerFar = new boolean[Math.max(ids.length, viewerFar.length * 2)];
+        }
 
-                spawnParticlesForPlayers(serverWorld, particle, x, y, z, 1, 0, 0, 0, 0.0);
+        for (int i = 0; i < ids.length; i++) {
+            if (world.getEntityById(ids[i]) instanceof ServerPlayerEntity player && !player.isRemoved()) {
+                viewerFar[viewers.size()] = far[i];
+                viewers.add(player);
             }
         }
     }
 
     /**
-     * Spawns particles for all nearby players on the server.
-     * This is the correct approach for Minecraft 1.21.10+ server-side particle spawning.
+     * Spawns particles for the viewers collected by the last collectViewers call,
+     * applying distance LOD and the per-player budget.
      */
     private void spawnParticlesForPlayers(ServerWorld world, ParticleEffect particle,
                                          double x, double y, double z,
                                          int count, double deltaX, double deltaY, double deltaZ,
-                                         double speed) {
-        for (ServerPlayerEntity player : world.getPlayers()) {
-            world.spawnParticles(player, particle, false, x, y, z, count, deltaX, deltaY, deltaZ, speed);
+                                         double speed, boolean nearOnly) {
+        particlesCulled += (long) count * outOfRangePlayers;
+
+        for (int i = 0; i < viewers.size(); i++) {
+            ServerPlayerEntity player = viewers.get(i);
+
+            int used = budgetUsed.get(player.getId());
+            int allowed = planner.allowedCount(count, viewerFar[i], nearOnly, used);
+            if (allowed <= 0) {
+                particlesCulled += count;
+                continue;
+            }
+
+            // Forced: viewers were already culled by particleViewDistance, without force vanilla
+            // drops everything past 32 blocks, the whole far LOD tier
+            if (!world.spawnParticles(player, particle, true, x, y, z, allowed, deltaX, deltaY, deltaZ, speed)) {
+                particlesCulled += count;
+                continue;
+            }
+            budgetUsed.put(player.getId(), used + allowed);
+            particlesSent += allowed;
+            particlesCulled += count - allowed;
         }
     }
 
+    /**
+     * Total particles sent to players since startup
+     */
+    public long getParticlesSent() {
+        return particlesSent;
+    }
+
+    /**
+     * Total particles dropped by distance culling, LOD or the per-player budget since startup
+     */
+    public long getParticlesCulled() {
+        return particlesCulled;
+    }
+
     private ParticleEffect getVariantParticle(DragonVariant variant) {
         return switch (variant) {
             case FIRE -> ParticleTypes.FLAME;
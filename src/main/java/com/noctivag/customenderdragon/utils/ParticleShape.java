@@ -0,0 +1,243 @@
+package com.noctivag.customenderdragon.utils;
+
+import com.noctivag.customenderdragon.config.ModConfig;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * A particle emitter from the config compiled into a flat array of point offsets.
+ * All trigonometry happens once when the config loads, emitting the shape is a loop
+ * over the offsets. Offsets of TRAIL shapes are in the dragon's frame: x along the
+ * wing axis, z along the heading; everything else is in world axes.
+ */
+public final class ParticleShape {
+    // Keeps a typo in the config from sending thousands of particles per emission
+    public static final int MAX_POINTS = 1024;
+
+    public enum Kind {
+        POINT,
+        RING,
+        SPIRAL,
+        SPHERE,
+        TRAIL
+    }
+
+    public enum Trigger {
+        AMBIENT,
+        PHASE_CHANGE
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final Trigger trigger;
+    private final String particleType;
+    private final int count;
+    private final float spread;
+    private final int pointCount;
+    private final float[] offsets;
+    private final boolean[] nearOnly;
+
+    private ParticleShape(String name, Kind kind, Trigger trigger, String particleType, int count, float spread,
+                          float[] offsets, boolean[] nearOnly) {
+        this.name = name;
+        this.kind = kind;
+        this.trigger = trigger;
+        this.particleType = particleType;
+        this.count = count;
+        this.spread = spread;
+        this.pointCount = nearOnly.length;
+        this.offsets = offsets;
+        this.nearOnly = nearOnly;
+    }
+
+    /**
+     * Compiles a validated emitter config, unknown shapes and triggers fall back to
+     * an ambient POINT
+     */
+    public static ParticleShape compile(String name, ModConfig.ParticleConfig config) {
+        Kind kind = parseKind(config.shape);
+        if (kind == null) {
+            kind = Kind.POINT;
+        }
+        Trigger trigger = parseTrigger(config.trigger);
+        if (trigger == null) {
+            trigger = Trigger.AMBIENT;
+        }
+
+        int points = Math.min(MAX_POINTS, pointCount(config));
+        float[] offsets = new float[points * 3];
+        boolean[] nearOnly = new boolean[points];
+        float y = (float) config.yOffset;
+        double radius = Math.max(0.0, config.radius);
+
+        switch (kind) {
+            case POINT -> offsets[1] = y;
+            case RING -> {
+                double[] ring = new double[0];
+                int written = 0;
+                for (int layer = 0; layer < config.layers && written < points; layer++) {
+                    int ringPoints = Math.min(points - written, Math.max(1, config.points + layer * config.pointsStep));
+                    if (ring.length < ringPoints * 2) {
+                        ring = new double[ringPoints * 2];
+                    }
+                    ParticleGeometry.ring(radius + layer * config.radiusStep, ringPoints, ring);
+                    for (int j = 0; j < ringPoints; j++) {
+                        set(offsets, written + j, ring[j * 2], y, ring[j * 2 + 1]);
+                        // Far viewers only get every other point of a ring
+                        nearOnly[written + j] = (j & 1) == 1;
+                    }
+                    written += ringPoints;
+                }
+            }
+            case SPIRAL -> {
+                int turns = Math.max(1, config.layers);
+                for (int j = 0; j < points; j++) {
+                    double t = points > 1 ? (double) j / (points - 1) : 0.0;
+                    double angle = 2 * Math.PI * turns * t;
+                    set(offsets, j, radius * Math.cos(angle), y + config.height * t, radius * Math.sin(angle));
+                    nearOnly[j] = (j & 1) == 1;
+                }
+            }
+            case SPHERE -> {
+                // Fibonacci lattice, evenly spread points without clustering at the poles
+                double golden = Math.PI * (3.0 - Math.sqrt(5.0));
+                for (int j = 0; j < points; j++) {
+                    double h = points > 1 ? 1.0 - 2.0 * j / (points - 1) : 0.0;
+                    double ring = Math.sqrt(1.0 - h * h);
+                    double angle = golden * j;
+                    set(offsets, j, radius * ring * Math.cos(angle), y + radius * h, radius * ring * Math.sin(angle));
+                    nearOnly[j] = (j & 1) == 1;
+                }
+            }
+            case TRAIL -> {
+                // Points from the wing tips inwards, alternating left and right
+                int perWing = points / 2;
+                for (int j = 0; j < perWing; j++) {
+                    double lateral = radius * (perWing - j) / perWing;
+                    set(offsets, j * 2, lateral, y, 0.0);
+                    set(offsets, j * 2 + 1, -lateral, y, 0.0);
+                }
+            }
+        }
+
+        if (config.nearOnly) {
+            Arrays.fill(nearOnly, true);
+        }
+
+        String particleType = config.type != null ? config.type.toUpperCase(Locale.ROOT) : "FLAME";
+        return new ParticleShape(name, kind, trigger, particleType, Math.max(1, config.count),
+            (float) Math.max(0.0, config.offset), offsets, nearOnly);
+    }
+
+    /**
+     * Number of points an emitter config produces, before the MAX_POINTS cap
+     */
+    public static int pointCount(ModConfig.ParticleConfig config) {
+        Kind kind = parseKind(config.shape);
+        int points = Math.max(1, config.points);
+        if (kind == null || kind == Kind.POINT) {
+            return 1;
+        }
+        if (kind == Kind.TRAIL) {
+            return points * 2;
+        }
+        if (kind == Kind.RING) {
+            long total = 0;
+            for (int layer = 0; layer < Math.max(1, config.layers); layer++) {
+                total += Math.max(1, points + (long) layer * config.pointsStep);
+                if (total > MAX_POINTS) {
+                    return MAX_POINTS + 1;
+                }
+            }
+            return (int) total;
+        }
+        return points;
+    }
+
+    private static void set(float[] offsets, int point, double x, double y, double z) {
+        offsets[point * 3] = (float) x;
+        offsets[point * 3 + 1] = (float) y;
+        offsets[point * 3 + 2] = (float) z;
+    }
+
+    public static Kind parseKind(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Kind.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static Trigger parseTrigger(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Trigger.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Config key of the emitter
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    /**
+     * Upper case particle type name, e.g. FLAME
+     */
+    public String getParticleType() {
+        return particleType;
+    }
+
+    /**
+     * Particles per point
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public float getSpread() {
+        return spread;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    /**
+     * x, y, z offset triples of the points. Must not be modified.
+     */
+    public float[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Whether a point is fine detail that viewers beyond the LOD distance skip
+     */
+    public boolean isNearOnly(int point) {
+        return nearOnly[point];
+    }
+
+    /**
+     * Whether the offsets are relative to the dragon's heading, these need a moving dragon
+     */
+    public boolean isOriented() {
+        return kind == Kind.TRAIL;
+    }
+}
@@ -0,0 +1,251 @@
+package com.noctivag.customenderdragon.utils;
+
+import com.noctivag.customenderdragon.dragon.CustomDragon;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.TypeFilter;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Spatial hash of the living entities around the active dragons of one world, built at most
+ * once per tick and shared by its dragons for targeting and aura queries. Cells are chunk sections.
+ * The index is built lazily on the first query after invalidate(), so ticks without any
+ * ability work never touch the world's entity lists. Query areas are merged as plain
+ * coordinates and the entity scans fill a reused list; a build only allocates one Box
+ * per merged area, for the world's entity lookup, and new cells.
+ */
+public class ProximityIndex {
+    private static final int CELL_SHIFT = 4;
+    // Entities are bucketed by position, allow for their bounding box reaching into neighbouring cells
+    private static final double BOX_MARGIN = 4.0;
+    private static final TypeFilter<Entity, LivingEntity> LIVING = TypeFilter.instanceOf(LivingEntity.class);
+
+    private final World world;
+    private final Long2ObjectOpenHashMap<List<LivingEntity>> cells = new Long2ObjectOpenHashMap<>();
+    private final ArrayDeque<List<LivingEntity>> listPool = new ArrayDeque<>();
+    private final IntOpenHashSet indexed = new IntOpenHashSet();
+    // Merged query areas of the current build as min x, y, z, max x, y, z, reused
+    private double[] areas = new double[6 * 8];
+    private int areaCount;
+    private final List<LivingEntity> scanned = new ArrayList<>();
+
+    private List<CustomDragon> dragons = List.of();
+    private double radius;
+    private boolean built;
+
+    public ProximityIndex(World world) {
+        this.world = world;
+    }
+
+    /**
+     * Marks the index stale, the next query rebuilds it around the given dragons
+     */
+    public void invalidate(List<CustomDragon> dragons, double radius) {
+        this.dragons = dragons;
+        this.radius = radius;
+        this.built = false;
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        built = true;
+
+        for (List<LivingEntity> list : cells.values()) {
+            list.clear();
+            listPool.push(list);
+        }
+        cells.clear();
+        indexed.clear();
+        areaCount = 0;
+
+        for (int i = 0; i < dragons.size(); i++) {
+            CustomDragon customDragon = dragons.get(i);
+            EnderDragonEntity dragon = customDragon.getDragon();
+            if (customDragon.isDormant() || dragon == null || dragon.isRemoved() || dragon.getWorld() != world) {
+                continue;
+            }
+            Box box = dragon.getBoundingBox();
+            addQueryArea(box.minX - radius, box.minY - radius, box.minZ - radius,
+                box.maxX + radius, box.maxY + radius, box.maxZ + radius);
+        }
+
+        // One entity scan per group of overlapping dragon areas instead of one per query
+        for (int a = 0; a < areaCount; a++) {
+            int o = a * 6;
+            Box area = new Box(areas[o], areas[o + 1], areas[o + 2], areas[o + 3], areas[o + 4], areas[o + 5]);
+            scanned.clear();
+            world.collectEntitiesByType(LIVING, area, Entity::isAlive, scanned);
+            for (int i = 0; i < scanned.size(); i++) {
+                LivingEntity living = scanned.get(i);
+                if (indexed.add(living.getId())) {
+                    long key = cellKey(living.getX(), living.getY(), living.getZ());
+                    List<LivingEntity> cell = cells.get(key);
+                    if (cell == null) {
+                        cell = borrowList();
+                        cells.put(key, cell);
+                    }
+                    cell.add(living);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a query area, merging it with any area it overlaps
+     */
+    private void addQueryArea(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        for (int i = areaCount - 1; i >= 0; i--) {
+            int o = i * 6;
+            if (areas[o] < maxX && areas[o + 3] > minX && areas[o + 1] < maxY && areas[o + 4] > minY
+                && areas[o + 2] < maxZ && areas[o + 5] > minZ) {
+                minX = Math.min(minX, areas[o]);
+                minY = Math.min(minY, areas[o + 1]);
+                minZ = Math.min(minZ, areas[o + 2]);
+                maxX = Math.max(maxX, areas[o + 3]);
+                maxY = Math.max(maxY, areas[o + 4]);
+                maxZ = Math.max(maxZ, areas[o + 5]);
+                // The last area takes the merged one's place
+                areaCount--;
+                System.arraycopy(areas, areaCount * 6, areas, o, 6);
+            }
+        }
+        if ((areaCount + 1) * 6 > areas.length) {
+            areas = Arrays.copyOf(areas, areas.length * 2);
+        }
+        int o = areaCount++ * 6;
+        areas[o] = minX;
+        areas[o + 1] = minY;
+        areas[o + 2] = minZ;
+        areas[o + 3] = maxX;
+        areas[o + 4] = maxY;
+        areas[o + 5] = maxZ;
+    }
+
+    private List<LivingEntity> borrowList() {
+        List<LivingEntity> list = listPool.poll();
+        return list != null ? list : new ArrayList<>();
+    }
+
+    private static long cellKey(double x, double y, double z) {
+        return ChunkSectionPos.asLong((int) Math.floor(x) >> CELL_SHIFT, (int) Math.floor(y) >> CELL_SHIFT,
+            (int) Math.floor(z) >> CELL_SHIFT);
+    }
+
+    /**
+     * Calls the action for every indexed entity, building the index first if needed
+     */
+    public void forEachEntity(Consumer<LivingEntity> action) {
+        ensureBuilt();
+        for (List<LivingEntity> cell : cells.values()) {
+            for (int i = 0; i < cell.size(); i++) {
+                action.accept(cell.get(i));
+            }
+        }
+    }
+
+    /**
+     * Closest non-spectator player within range of the dragon, like World.getClosestPlayer
+     */
+    public PlayerEntity getClosestPlayer(EnderDragonEntity dragon, double range) {
+        if (dragon.getWorld() != world) {
+            return null;
+        }
+        ensureBuilt();
+
+        double x = dragon.getX();
+        double y = dragon.getY();
+        double z = dragon.getZ();
+        double bestDistanceSq = range * range;
+        PlayerEntity best = null;
+
+        int minX = (int) Math.floor(x - range) >> CELL_SHIFT;
+        int maxX = (int) Math.floor(x + range) >> CELL_SHIFT;
+        int minY = (int) Math.floor(y - range) >> CELL_SHIFT;
+        int maxY = (int) Math.floor(y + range) >> CELL_SHIFT;
+        int minZ = (int) Math.floor(z - range) >> CELL_SHIFT;
+        int maxZ = (int) Math.floor(z + range) >> CELL_SHIFT;
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    List<LivingEntity> cell = cells.get(ChunkSectionPos.asLong(cx, cy, cz));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size(); i++) {
+                        if (cell.get(i) instanceof PlayerEntity player && !player.isSpectator() && player.isAlive()) {
+                            double distanceSq = player.squaredDistanceTo(x, y, z);
+                            if (distanceSq < bestDistanceSq) {
+                                bestDistanceSq = distanceSq;
+                                best = player;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Collects living entities other than the dragon whose bounding box intersects the
+     * dragon's bounding box expanded by the given radius
+     */
+    public void collectLivingAround(EnderDragonEntity dragon, double radius, List<LivingEntity> out) {
+        out.clear();
+        if (dragon.getWorld() != world) {
+            return;
+        }
+        ensureBuilt();
+
+        Box box = dragon.getBoundingBox();
+        double areaMinX = box.minX - radius;
+        double areaMinY = box.minY - radius;
+        double areaMinZ = box.minZ - radius;
+        double areaMaxX = box.maxX + radius;
+        double areaMaxY = box.maxY + radius;
+        double areaMaxZ = box.maxZ + radius;
+        int minX = (int) Math.floor(areaMinX - BOX_MARGIN) >> CELL_SHIFT;
+        int maxX = (int) Math.floor(areaMaxX + BOX_MARGIN) >> CELL_SHIFT;
+        int minY = (int) Math.floor(areaMinY - BOX_MARGIN) >> CELL_SHIFT;
+        int maxY = (int) Math.floor(areaMaxY + BOX_MARGIN) >> CELL_SHIFT;
+        int minZ = (int) Math.floor(areaMinZ - BOX_MARGIN) >> CELL_SHIFT;
+        int maxZ = (int) Math.floor(areaMaxZ + BOX_MARGIN) >> CELL_SHIFT;
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    List<LivingEntity> cell = cells.get(ChunkSectionPos.asLong(cx, cy, cz));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int i = 0; i < cell.size(); i++) {
+                        LivingEntity living = cell.get(i);
+                        if (living == dragon || !living.isAlive()) {
+                            continue;
+                        }
+                        Box other = living.getBoundingBox();
+                        if (other.minX < areaMaxX && other.maxX > areaMinX && other.minY < areaMaxY
+                            && other.maxY > areaMinY && other.minZ < areaMaxZ && other.maxZ > areaMinZ) {
+                            out.add(living);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,22 +1,364 @@
 package com.noctivag.customenderdragon.visuals;
 
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ModConfig;
 import com.noctivag.customenderdragon.dragon.DragonVariant;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.Heightmap;
 import net.minecraft.world.World;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 /**
- * Manages crystal arena structures around dragons (Stub for Fabric)
+ * Builds crystal pillar arenas around dragons and puts the terrain back when they go.
+ * A variant's pillar is compiled once per config into a block template. Arenas are not
+ * placed at once: every tick at most arenaBlocksPerTick blocks are worked through over all
+ * arenas, in chunk section order so the changes to one section land in the same tick and
+ * reach clients as a single section update. The blocks an arena replaces are kept as packed
+ * positions and raw state ids, remove() restores them the same way.
  */
 public class CrystalStructureManager {
+    // Clients are told about the change, neighbors aren't updated and nothing drops
+    private static final int PLACE_FLAGS = Block.NOTIFY_LISTENERS | Block.FORCE_STATE | Block.SKIP_DROPS;
+    // Original state of a cell the arena left alone
+    private static final int UNCHANGED = -1;
+
+    private static final DragonVariant[] VARIANTS = DragonVariant.values();
+
+    /**
+     * One pillar of a variant: cell offsets from the pillar's base and the block of each
+     */
+    private static final class PillarTemplate {
+        final int[] offsets; // dx, dy, dz triples
+        final int[] states; // raw block state ids
+
+        PillarTemplate(DragonVariant variant, int height) {
+            int baseState = Block.getRawIdFromState(getPillarBlock(variant).getDefaultState());
+            int crystalState = Block.getRawIdFromState(DisplayEntityManager.getCrystalBlock(variant).getDefaultState());
+            List<int[]> cells = new ArrayList<>(); // dx, dy, dz, state
+
+            // 3x3 column, the corners stop short of the top so it tapers
+            for (int dy = 0; dy < height; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        boolean corner = dx != 0 && dz != 0;
+                        if (!corner || dy < height - 2) {
+                            cells.add(new int[]{dx, dy, dz, baseState});
+                        }
+                    }
+                }
+            }
+            // Crystal crown: a cross on the top layer and a spike above it
+            cells.add(new int[]{0, height, 0, crystalState});
+            cells.add(new int[]{0, height + 1, 0, crystalState});
+            cells.add(new int[]{1, height, 0, crystalState});
+            cells.add(new int[]{-1, height, 0, crystalState});
+            cells.add(new int[]{0, height, 1, crystalState});
+            cells.add(new int[]{0, height, -1, crystalState});
+
+            this.offsets = new int[cells.size() * 3];
+            this.states = new int[cells.size()];
+            for (int i = 0; i < cells.size(); i++) {
+                int[] cell = cells.get(i);
+                System.arraycopy(cell, 0, offsets, i * 3, 3);
+                states[i] = cell[3];
+            }
+        }
+    }
+
+    // Templates of the config they were compiled from, filled on first use
+    private CompiledConfig templatesFor;
+    private final PillarTemplate[] templates = new PillarTemplate[VARIANTS.length];
+
+    // Arenas by owning dragon, kept while the dragon's chunk is unloaded
+    private final Map<UUID, CrystalArena> arenas = new HashMap<>();
+    // Arenas with blocks left to place or restore
+    private final ArrayDeque<CrystalArena> pending = new ArrayDeque<>();
+    private final BlockPos.Mutable mutablePos = new BlockPos.Mutable();
+
+    private int changedThisTick = 0;
+    private int changedLastTick = 0;
+    private long changedTotal = 0;
+
+    /**
+     * Starts building the arena of a dragon, or returns the one it already has when its
+     * entity loads again. Returns null if arenas are disabled.
+     */
+    public CrystalArena createCrystalArena(UUID owner, BlockPos origin, DragonVariant variant, World world) {
+        CrystalArena existing = arenas.get(owner);
+        if (existing != null) {
+            return existing;
+        }
+        CompiledConfig config = ModConfig.current();
+        if (!config.general().arenaEnabled || !(world instanceof ServerWorld serverWorld)) {
+            return null;
+        }
+
+        CrystalArena arena = new CrystalArena(this, owner, serverWorld, origin, template(config, variant),
+            config.general());
+        arenas.put(owner, arena);
+        arena.queue();
+        return arena;
+    }
+
+    private PillarTemplate template(CompiledConfig config, DragonVariant variant) {
+        if (templatesFor != config) {
+            templatesFor = config;
+            Arrays.fill(templates, null);
+        }
+        PillarTemplate template = templates[variant.ordinal()];
+        if (template == null) {
+            template = new PillarTemplate(variant, config.general().arenaPillarHeight);
+            templates[variant.ordinal()] = template;
+        }
+        return template;
+    }
+
+    /**
+     * Works through the pending arenas within the per-tick block budget, called once per
+     * server tick
+     */
+    public void tick() {
+        int budget = ModConfig.current().general().arenaBlocksPerTick;
+        changedThisTick = 0;
+
+        for (int i = pending.size(); i > 0 && budget > 0; i--) {
+            CrystalArena arena = pending.pollFirst();
+            try {
+                budget = arena.work(budget, true, mutablePos);
+            } catch (Exception e) {
+                CustomEnderDragonMod.LOGGER.error("Error while building or removing crystal arena", e);
+                arena.queued = false;
+                continue;
+            }
+            if (arena.hasWork()) {
+                pending.addLast(arena);
+            } else {
+                arena.queued = false;
+            }
+        }
+
+        changedLastTick = changedThisTick;
+        changedTotal += changedThisTick;
+    }
+
+    /**
+     * Restores the terrain under every arena right away, loading chunks as needed. Called
+     * when the server stops, dragons rebuild their arena at the saved origin on the next load.
+     */
+    public void restoreAll() {
+        for (CrystalArena arena : new ArrayList<>(arenas.values())) {
+            arena.remove();
+        }
+        while (!pending.isEmpty()) {
+            CrystalArena arena = pending.pollFirst();
+            arena.queued = false;
+            try {
+                arena.work(Integer.MAX_VALUE, false, mutablePos);
+            } catch (Exception e) {
+                CustomEnderDragonMod.LOGGER.error("Failed to restore terrain under crystal arena", e);
+            }
+        }
+    }
 
-    public CrystalArena createCrystalArena(BlockPos pos, DragonVariant variant, World world) {
-        // TODO: Implement crystal structure spawning
-        return new CrystalArena();
+    private static Block getPillarBlock(DragonVariant variant) {
+        return switch (variant) {
+            case FIRE -> Blocks.BLACKSTONE;
+            case ICE -> Blocks.PACKED_ICE;
+            case LIGHTNING -> Blocks.QUARTZ_BLOCK;
+            case SHADOW -> Blocks.OBSIDIAN;
+            case VOID -> Blocks.END_STONE_BRICKS;
+        };
     }
 
+    public int getArenaCount() {
+        return arenas.size();
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public int getChangedLastTick() {
+        return changedLastTick;
+    }
+
+    public long getChangedTotal() {
+        return changedTotal;
+    }
+
+    /**
+     * The pillars of one dragon. Cells are laid out once when the arena is created, sorted
+     * by chunk section, and worked through with a cursor: forwards while building, and
+     * from the start again over the placed cells while restoring.
+     */
     public static class CrystalArena {
+        private final CrystalStructureManager manager;
+        private final UUID owner;
+        private final ServerWorld world;
+        private final BlockPos origin;
+        private final long[] positions; // packed, in chunk section order
+        private final int[] states; // raw state ids the arena places
+        private final int[] original; // raw state ids it replaced, UNCHANGED where it left the block
+        private int cursor = 0;
+        private int end;
+        private boolean restoring = false;
+        private boolean queued = false;
+
+        private CrystalArena(CrystalStructureManager manager, UUID owner, ServerWorld world, BlockPos origin,
+                             PillarTemplate template, CompiledConfig.General general) {
+            this.manager = manager;
+            this.owner = owner;
+            this.world = world;
+            this.origin = origin.toImmutable();
+
+            int pillars = general.arenaPillars;
+            int cells = template.states.length;
+            long[] unsorted = new long[pillars * cells];
+            long[] sections = new long[unsorted.length];
+            for (int p = 0; p < pillars; p++) {
+                double angle = 2.0 * Math.PI * p / pillars;
+                int x = origin.getX() + (int) Math.round(Math.cos(angle) * general.arenaRadius);
+                int z = origin.getZ() + (int) Math.round(Math.sin(angle) * general.arenaRadius);
+                int baseY = groundLevel(world, x, z, origin.getY() - general.arenaPillarHeight);
+                for (int c = 0; c < cells; c++) {
+                    int i = p * cells + c;
+                    int bx = x + template.offsets[c * 3];
+                    int by = baseY + template.offsets[c * 3 + 1];
+                    int bz = z + template.offsets[c * 3 + 2];
+                    unsorted[i] = BlockPos.asLong(bx, by, bz);
+                    sections[i] = ChunkSectionPos.asLong(bx >> 4, by >> 4, bz >> 4);
+                }
+            }
+
+            int[] order = new int[unsorted.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            IntArrays.quickSort(order, (a, b) -> Long.compare(sections[a], sections[b]));
+
+            this.positions = new long[order.length];
+            this.states = new int[order.length];
+            this.original = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                positions[i] = unsorted[order[i]];
+                states[i] = template.states[order[i] % cells];
+            }
+            this.end = positions.length;
+        }
+
+        /**
+         * Surface height at a column, or the fallback if its chunk isn't loaded or it has
+         * no ground, like the void around the end islands
+         */
+        private static int groundLevel(ServerWorld world, int x, int z, int fallback) {
+            if (!world.isChunkLoaded(x >> 4, z >> 4)) {
+                return fallback;
+            }
+            int top = world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, x, z);
+            return top > world.getBottomY() ? top : fallback;
+        }
+
+        private void queue() {
+            if (!queued) {
+                queued = true;
+                manager.pending.addLast(this);
+            }
+        }
+
+        boolean hasWork() {
+            return cursor < end;
+        }
+
+        /**
+         * Places or restores cells until the budget is used up and returns what is left.
+         * With waitForChunks the arena stops at a cell whose chunk isn't loaded and
+         * carries on once it is.
+         */
+        int work(int budget, boolean waitForChunks, BlockPos.Mutable pos) {
+            long loadedSection = Long.MIN_VALUE;
+            while (cursor < end && budget > 0) {
+                long packed = positions[cursor];
+                pos.set(packed);
+                if (waitForChunks) {
+                    long section = ChunkSectionPos.fromBlockPos(packed);
+                    if (section != loadedSection) {
+                        if (!world.isChunkLoaded(pos.getX() >> 4, pos.getZ() >> 4)) {
+                            break;
+                        }
+                        loadedSection = section;
+                    }
+                }
+
+                boolean changed = restoring ? restore(cursor, pos) : place(cursor, pos);
+                if (changed) {
+                    manager.changedThisTick++;
+                }
+                cursor++;
+                budget--;
+            }
+            return budget;
+        }
+
+        private boolean place(int i, BlockPos pos) {
+            original[i] = UNCHANGED;
+            if (world.isOutOfHeightLimit(pos)) {
+                return false;
+            }
+            BlockState current = world.getBlockState(pos);
+            BlockState target = Block.getStateFromRawId(states[i]);
+            // Containers and unbreakable blocks are never replaced
+            if (current == target || current.hasBlockEntity() || current.getHardness(world, pos) < 0) {
+                return false;
+            }
+            original[i] = Block.getRawIdFromState(current);
+            world.setBlockState(pos, target, PLACE_FLAGS);
+            return true;
+        }
+
+        private boolean restore(int i, BlockPos pos) {
+            if (original[i] == UNCHANGED) {
+                return false;
+            }
+            // A block a player put in place of the arena's stays
+            BlockState current = world.getBlockState(pos);
+            if (current != Block.getStateFromRawId(states[i]) && !current.isAir()) {
+                return false;
+            }
+            world.setBlockState(pos, Block.getStateFromRawId(original[i]), PLACE_FLAGS);
+            return true;
+        }
+
+        /**
+         * Starts putting back the terrain, over the ticks that follow. An arena still
+         * being built stops and only its placed cells are restored.
+         */
         public void remove() {
-            // TODO: Remove all arena structures
+            if (restoring) {
+                return;
+            }
+            manager.arenas.remove(owner);
+            restoring = true;
+            end = cursor;
+            cursor = 0;
+            queue();
+        }
+
+        public BlockPos getOrigin() {
+            return origin;
         }
     }
 }
@@ -1,26 +1,393 @@
 package com.noctivag.customenderdragon.visuals;
 
+import com.noctivag.customenderdragon.CustomEnderDragonMod;
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.config.ModConfig;
 import com.noctivag.customenderdragon.dragon.DragonVariant;
+import com.noctivag.customenderdragon.mixin.BlockDisplayEntityAccessor;
+import com.noctivag.customenderdragon.mixin.DisplayEntityAccessor;
+import com.noctivag.customenderdragon.mixin.ItemDisplayEntityAccessor;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.data.DataTracker;
 import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.entity.decoration.DisplayEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Manages 3D visual decorations around dragons (Stub for Fabric)
- * Note: Display entities are a 1.19.4+ feature
+ * Manages the display entity decorations of dragons: two horns, a crystal of the
+ * variant's block above the back and shards orbiting the body.
+ *
+ * The server only sends a new transform every decorationUpdateInterval ticks. Each update
+ * sets the interpolation and teleport duration to the interval, so clients move the
+ * decorations smoothly to the new transform and position in between.
+ * Decorations of removed dragons are hidden and pooled per world and variant, the next
+ * dragon of that variant takes them over instead of spawning new entities.
  */
 public class DisplayEntityManager {
+    // Marks our display entities, ones loaded from disk that we don't own are leftovers
+    public static final String DECORATION_TAG = "customenderdragon.decoration";
+
+    private static final Part[] PARTS = {
+        // Horns on the head, the dragon's head sits 6.5 blocks ahead of its position
+        Part.fixed(false, -0.9f, 1.6f, 6.5f, 1.5f, 0.0f),
+        Part.fixed(false, 0.9f, 1.6f, 6.5f, 1.5f, 0.0f),
+        // Variant crystal above the back, slowly spinning
+        Part.fixed(true, 0.0f, 3.0f, 0.0f, 0.8f, 0.05f),
+        // Shards orbiting the body
+        Part.orbit(5.5f, 1.5f, 0.0f, 0.9f),
+        Part.orbit(5.5f, 1.5f, (float) (Math.PI * 0.5), 0.9f),
+        Part.orbit(5.5f, 1.5f, (float) Math.PI, 0.9f),
+        Part.orbit(5.5f, 1.5f, (float) (Math.PI * 1.5), 0.9f)
+    };
+    private static final double ORBIT_SPEED = 0.08; // radians per tick
+    // Scale per part, handed to the data trackers of every decoration and never modified
+    private static final Vector3f[] SCALES = new Vector3f[PARTS.length];
+    static {
+        for (int i = 0; i < PARTS.length; i++) {
+            SCALES[i] = new Vector3f(PARTS[i].scale, PARTS[i].scale, PARTS[i].scale);
+        }
+    }
+    // A data tracker keeps the transform objects it is given and the network thread encodes them
+    // later, so each part cycles through a few and rewrites one only after two more updates
+    private static final int TRANSFORM_BUFFERS = 3;
+    private static final double TWO_PI = Math.PI * 2;
 
+    private final Map<World, EnumMap<DragonVariant, ArrayDeque<DragonDecorations>>> pools = new IdentityHashMap<>();
+    private final Set<DisplayEntity> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Decorations for a dragon, taken from the pool when possible. Null while decorations
+     * are disabled.
+     */
     public DragonDecorations createDragonDecorations(EnderDragonEntity dragon, DragonVariant variant) {
-        // TODO: Implement display entity decorations when targeting Minecraft 1.19.4+
-        return new DragonDecorations();
+        if (!ModConfig.current().general().decorationsEnabled || !(dragon.getWorld() instanceof ServerWorld world)) {
+            return null;
+        }
+
+        ArrayDeque<DragonDecorations> pool = pool(world, variant);
+        DragonDecorations pooled;
+        while ((pooled = pool.poll()) != null) {
+            if (pooled.isIntact()) {
+                pooled.attach();
+                return pooled;
+            }
+            discard(pooled);
+        }
+
+        DragonDecorations created = new DragonDecorations(this, world, variant);
+        for (int i = 0; i < PARTS.length; i++) {
+            created.entities[i] = spawn(world, PARTS[i], variant, dragon);
+        }
+        return created;
+    }
+
+    private DisplayEntity spawn(ServerWorld world, Part part, DragonVariant variant, EnderDragonEntity dragon) {
+        DisplayEntity entity;
+        if (part.block) {
+            DisplayEntity.BlockDisplayEntity block = new DisplayEntity.BlockDisplayEntity(EntityType.BLOCK_DISPLAY, world);
+            ((BlockDisplayEntityAccessor) block).customenderdragon$setBlockState(getCrystalBlock(variant).getDefaultState());
+            entity = block;
+        } else {
+            DisplayEntity.ItemDisplayEntity item = new DisplayEntity.ItemDisplayEntity(EntityType.ITEM_DISPLAY, world);
+            Item shown = part.orbitRadius > 0 ? getShardItem(variant) : Items.GOAT_HORN;
+            ((ItemDisplayEntityAccessor) item).customenderdragon$setItemStack(new ItemStack(shown));
+            entity = item;
+        }
+        entity.setPosition(dragon.getX(), dragon.getY(), dragon.getZ());
+        entity.addCommandTag(DECORATION_TAG);
+        // Owned before spawning, ENTITY_LOAD fires from within spawnEntity
+        owned.add(entity);
+        world.spawnEntity(entity);
+        return entity;
+    }
+
+    /**
+     * Hides the decorations and keeps them for the next dragon of the variant, or discards
+     * them when the pool is full or an entity is gone
+     */
+    void release(DragonDecorations decorations) {
+        ArrayDeque<DragonDecorations> pool = pool(decorations.world, decorations.variant);
+        if (decorations.isIntact() && pool.size() < ModConfig.current().general().decorationPoolSize) {
+            decorations.hide();
+            pool.push(decorations);
+        } else {
+            discard(decorations);
+        }
+    }
+
+    private void discard(DragonDecorations decorations) {
+        for (DisplayEntity entity : decorations.entities) {
+            if (entity != null) {
+                owned.remove(entity);
+                entity.discard();
+            }
+        }
+    }
+
+    private ArrayDeque<DragonDecorations> pool(World world, DragonVariant variant) {
+        return pools.computeIfAbsent(world, w -> new EnumMap<>(DragonVariant.class))
+            .computeIfAbsent(variant, v -> new ArrayDeque<>());
+    }
+
+    /**
+     * Discards decoration entities loaded from disk that no dragon owns, e.g. ones saved
+     * with their chunk while pooled or before a crash
+     */
+    public void onDisplayEntityLoad(DisplayEntity entity) {
+        if (!owned.contains(entity) && entity.getCommandTags().contains(DECORATION_TAG)) {
+            entity.discard();
+        }
+    }
+
+    /**
+     * Discards every decoration entity so none are saved with the worlds, called when the
+     * server stops. Dragons get new decorations when they are restored.
+     */
+    public void discardAll() {
+        for (DisplayEntity entity : new ArrayList<>(owned)) {
+            entity.discard();
+        }
+        owned.clear();
+        pools.clear();
+    }
+
+    public int getPooledCount() {
+        int count = 0;
+        for (EnumMap<DragonVariant, ArrayDeque<DragonDecorations>> byVariant : pools.values()) {
+            for (ArrayDeque<DragonDecorations> pool : byVariant.values()) {
+                count += pool.size();
+            }
+        }
+        return count;
+    }
+
+    static Block getCrystalBlock(DragonVariant variant) {
+        return switch (variant) {
+            case FIRE -> Blocks.MAGMA_BLOCK;
+            case ICE -> Blocks.BLUE_ICE;
+            case LIGHTNING -> Blocks.LIGHTNING_ROD;
+            case SHADOW -> Blocks.CRYING_OBSIDIAN;
+            case VOID -> Blocks.PURPUR_BLOCK;
+        };
+    }
+
+    private static Item getShardItem(DragonVariant variant) {
+        return switch (variant) {
+            case FIRE -> Items.BLAZE_ROD;
+            case ICE -> Items.PRISMARINE_CRYSTALS;
+            case LIGHTNING -> Items.GLOWSTONE_DUST;
+            case SHADOW -> Items.ECHO_SHARD;
+            case VOID -> Items.ENDER_PEARL;
+        };
+    }
+
+    /**
+     * One decoration entity. Fixed parts sit at an offset in the dragon's frame (lateral,
+     * up, forward) and turn with it, orbit parts circle the dragon in world axes.
+     */
+    private record Part(boolean block, float lateral, float up, float forward, float scale, float spin,
+                        float orbitRadius, float orbitPhase) {
+        static Part fixed(boolean block, float lateral, float up, float forward, float scale, float spin) {
+            return new Part(block, lateral, up, forward, scale, spin, 0.0f, 0.0f);
+        }
+
+        static Part orbit(float radius, float up, float phase, float scale) {
+            return new Part(false, 0.0f, up, 0.0f, scale, 0.0f, radius, phase);
+        }
     }
 
     public static class DragonDecorations {
+        private final DisplayEntityManager manager;
+        private final ServerWorld world;
+        private final DragonVariant variant;
+        private final DisplayEntity[] entities = new DisplayEntity[PARTS.length];
+        private int updateCountdown = 0;
+        // Next update jumps instead of interpolating, after being taken from the pool
+        private boolean snap = true;
+        private boolean hidden = false;
+        private final Vector3f[][] translations = new Vector3f[TRANSFORM_BUFFERS][PARTS.length];
+        private final Quaternionf[][] rotations = new Quaternionf[TRANSFORM_BUFFERS][PARTS.length];
+        private int buffer = 0;
+        // Transform each part was last sent with, NaN forces the next update to send it
+        private final float[] sentX = new float[PARTS.length];
+        private final float[] sentZ = new float[PARTS.length];
+        private final float[] sentRotation = new float[PARTS.length];
+
+        private DragonDecorations(DisplayEntityManager manager, ServerWorld world, DragonVariant variant) {
+            this.manager = manager;
+            this.world = world;
+            this.variant = variant;
+            for (int b = 0; b < TRANSFORM_BUFFERS; b++) {
+                for (int i = 0; i < PARTS.length; i++) {
+                    translations[b][i] = new Vector3f();
+                    rotations[b][i] = new Quaternionf();
+                }
+            }
+        }
+
+        /**
+         * Called every tick, sends new transforms every decorationUpdateInterval ticks
+         */
         public void update(EnderDragonEntity dragon) {
-            // TODO: Update decoration positions
+            CompiledConfig.General general = ModConfig.current().general();
+            if (!general.decorationsEnabled) {
+                // Turned off by a config reload, shown again when turned back on
+                if (!hidden) {
+                    hide();
+                }
+                return;
+            }
+            if (--updateCountdown > 0) {
+                return;
+            }
+            int interval = general.decorationUpdateInterval;
+            updateCountdown = interval;
+
+            try {
+                sendTransforms(dragon, interval);
+            } catch (Exception e) {
+                CustomEnderDragonMod.LOGGER.error("Failed to update dragon decorations", e);
+            }
+        }
+
+        /**
+         * Moves every entity to where the dragon will be when the interpolation ends, so the
+         * decorations keep up with it instead of trailing one interval behind
+         */
+        private void sendTransforms(EnderDragonEntity dragon, int interval) {
+            Vec3d velocity = dragon.getVelocity();
+            double x = dragon.getX() + velocity.x * interval;
+            double y = dragon.getY() + velocity.y * interval;
+            double z = dragon.getZ() + velocity.z * interval;
+
+            // The dragon model faces away from its yaw, forward is (sin, -cos)
+            float yaw = (float) Math.toRadians(dragon.getYaw());
+            float forwardX = (float) Math.sin(yaw);
+            float forwardZ = (float) -Math.cos(yaw);
+            // Game time grows too large for float precision, angles are wrapped in double first
+            double time = world.getTime() + interval;
+            int duration = snap ? 0 : interval;
+            if (snap) {
+                Arrays.fill(sentX, Float.NaN);
+                Arrays.fill(sentZ, Float.NaN);
+                Arrays.fill(sentRotation, Float.NaN);
+            }
+
+            for (int i = 0; i < PARTS.length; i++) {
+                DisplayEntity entity = entities[i];
+                if (entity == null || entity.isRemoved()) {
+                    continue;
+                }
+                Part part = PARTS[i];
+
+                float offsetX;
+                float offsetZ;
+                float rotation;
+                if (part.orbitRadius > 0) {
+                    float angle = (float) ((part.orbitPhase + time * ORBIT_SPEED) % TWO_PI);
+                    offsetX = part.orbitRadius * (float) Math.cos(angle);
+                    offsetZ = part.orbitRadius * (float) Math.sin(angle);
+                    rotation = -angle;
+                } else {
+                    // Right of the dragon is forward turned by 90 degrees
+                    offsetX = part.lateral * -forwardZ + part.forward * forwardX;
+                    offsetZ = part.lateral * forwardX + part.forward * forwardZ;
+                    rotation = -yaw + (float) ((part.spin * time) % TWO_PI);
+                }
+                if (part.block) {
+                    // Block models start at their corner, shift so the block is centered on the offset
+                    float half = part.scale * 0.5f;
+                    float cos = (float) Math.cos(rotation);
+                    float sin = (float) Math.sin(rotation);
+                    offsetX -= half * cos + half * sin;
+                    offsetZ -= -half * sin + half * cos;
+                }
+
+                DisplayEntityAccessor accessor = (DisplayEntityAccessor) entity;
+                accessor.customenderdragon$setInterpolationDuration(duration);
+                accessor.customenderdragon$setTeleportDuration(duration);
+                DataTracker tracker = entity.getDataTracker();
+                if (snap) {
+                    tracker.set(DisplayEntityAccessor.customenderdragon$getScale(), SCALES[i]);
+                }
+                if (offsetX != sentX[i] || offsetZ != sentZ[i]) {
+                    tracker.set(DisplayEntityAccessor.customenderdragon$getTranslation(),
+                        translations[buffer][i].set(offsetX, part.up, offsetZ));
+                    sentX[i] = offsetX;
+                    sentZ[i] = offsetZ;
+                }
+                if (rotation != sentRotation[i]) {
+                    tracker.set(DisplayEntityAccessor.customenderdragon$getLeftRotation(),
+                        rotations[buffer][i].rotationY(rotation));
+                    sentRotation[i] = rotation;
+                }
+                accessor.customenderdragon$setStartInterpolation(0);
+                entity.setPosition(x, y, z);
+            }
+            buffer = (buffer + 1) % TRANSFORM_BUFFERS;
+
+            if (hidden) {
+                setViewRange(1.0f);
+                hidden = false;
+            }
+            snap = false;
+        }
+
+        /**
+         * Taken from the pool by a new dragon, the first update jumps to it
+         */
+        private void attach() {
+            snap = true;
+            updateCountdown = 0;
+        }
+
+        private void hide() {
+            setViewRange(0.0f);
+            hidden = true;
+            snap = true;
+            updateCountdown = 0;
+        }
+
+        private void setViewRange(float viewRange) {
+            for (DisplayEntity entity : entities) {
+                if (entity != null && !entity.isRemoved()) {
+                    ((DisplayEntityAccessor) entity).customenderdragon$setViewRange(viewRange);
+                }
+            }
+        }
+
+        private boolean isIntact() {
+            for (DisplayEntity entity : entities) {
+                if (entity == null || entity.isRemoved()) {
+                    return false;
+                }
+            }
+            return true;
         }
 
+        /**
+         * Gives the decorations back to the manager, they are pooled or discarded
+         */
         public void remove() {
-            // TODO: Remove all decoration entities
+            manager.release(this);
         }
     }
 }
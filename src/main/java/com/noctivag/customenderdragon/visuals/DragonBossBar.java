@@ -0,0 +1,115 @@
+package com.noctivag.customenderdragon.visuals;
+
+import com.noctivag.customenderdragon.config.CompiledConfig;
+import com.noctivag.customenderdragon.dragon.DragonVariant;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import net.minecraft.entity.boss.BossBar;
+import net.minecraft.entity.boss.ServerBossBar;
+import net.minecraft.entity.boss.dragon.EnderDragonEntity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.Box;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boss bar of one dragon, shown to the players within bossBarRadius.
+ * Health is rounded to bossBarUpdateStep percent before it reaches the bar, so a progress
+ * packet only goes out when the displayed value moves. Viewers are kept in a list and
+ * only the players that entered or left the radius since the last check are added or
+ * removed, the check itself runs every bossBarCheckInterval ticks. Players entering are
+ * looked up in the entity sections around the dragon, not among all players of the world.
+ */
+public class DragonBossBar {
+    // Viewers are dropped a bit beyond the radius so players on the edge don't flicker
+    private static final double LEAVE_MARGIN = 8.0;
+
+    private final ServerBossBar bar;
+    private final List<ServerPlayerEntity> viewers = new ArrayList<>();
+    // Entity ids of the viewers, for membership checks
+    private final IntOpenHashSet viewerIds = new IntOpenHashSet();
+    private int checkCountdown;
+
+    public DragonBossBar(EnderDragonEntity dragon, DragonVariant variant, int tickOffset) {
+        this.bar = new ServerBossBar(dragon.getDisplayName(), variant.getBarColor(), BossBar.Style.PROGRESS);
+        this.bar.setPercent(1.0f);
+        // Spread the viewer checks of dragons spawned together over different ticks
+        this.checkCountdown = tickOffset;
+    }
+
+    /**
+     * Updates the health shown and, when the check is due, the players seeing the bar
+     */
+    public void tick(EnderDragonEntity dragon, CompiledConfig.General general) {
+        float maxHealth = dragon.getMaxHealth();
+        float percent = maxHealth > 0 ? dragon.getHealth() / maxHealth : 0.0f;
+        // ServerBossBar only sends a packet when the value it is given changes
+        bar.setPercent(quantize(percent, general.bossBarUpdateStep));
+
+        if (--checkCountdown > 0) {
+            return;
+        }
+        checkCountdown = general.bossBarCheckInterval;
+        if (dragon.getWorld() instanceof ServerWorld world) {
+            updateViewers(world, dragon, general.bossBarRadius);
+        }
+    }
+
+    /**
+     * Rounds a health fraction up to the next step, so the bar only reads empty once the
+     * dragon is dead
+     */
+    static float quantize(float percent, double stepPercent) {
+        double step = stepPercent / 100.0;
+        double steps = Math.ceil(Math.max(0.0f, percent) / step - 1e-6);
+        return (float) Math.min(1.0, steps * step);
+    }
+
+    private void updateViewers(ServerWorld world, EnderDragonEntity dragon, double radius) {
+        double enterSq = radius * radius;
+        double leaveSq = (radius + LEAVE_MARGIN) * (radius + LEAVE_MARGIN);
+
+        // Drop players that left the radius, the world or the server
+        for (int i = viewers.size() - 1; i >= 0; i--) {
+            ServerPlayerEntity viewer = viewers.get(i);
+            if (viewer.isRemoved() || viewer.getWorld() != world || viewer.squaredDistanceTo(dragon) > leaveSq) {
+                bar.removePlayer(viewer);
+                viewerIds.remove(viewer.getId());
+                removeAt(i);
+            }
+        }
+
+        // Add players that came close
+        Box area = new Box(dragon.getX() - radius, dragon.getY() - radius, dragon.getZ() - radius,
+            dragon.getX() + radius, dragon.getY() + radius, dragon.getZ() + radius);
+        for (ServerPlayerEntity player : world.getEntitiesByClass(ServerPlayerEntity.class, area, ServerPlayerEntity::isAlive)) {
+            if (player.squaredDistanceTo(dragon) <= enterSq && viewerIds.add(player.getId())) {
+                viewers.add(player);
+                bar.addPlayer(player);
+            }
+        }
+    }
+
+    private void removeAt(int index) {
+        ServerPlayerEntity last = viewers.remove(viewers.size() - 1);
+        if (index < viewers.size()) {
+            viewers.set(index, last);
+        }
+    }
+
+    /**
+     * Hides the bar from everyone, e.g. when the dragon goes dormant. The next check
+     * adds players again once they are close.
+     */
+    public void clearViewers() {
+        bar.clearPlayers();
+        viewers.clear();
+        viewerIds.clear();
+        checkCountdown = 0;
+    }
+
+    public int getViewerCount() {
+        return viewers.size();
+    }
+}